@@ -19,27 +19,38 @@ package net.lingala.zip4j;
 import net.lingala.zip4j.exception.ZipException;
 import net.lingala.zip4j.headers.HeaderReader;
 import net.lingala.zip4j.io.inputstream.ZipInputStream;
+import net.lingala.zip4j.model.ArchiveIndex;
+import net.lingala.zip4j.model.DeflateCheckpointIndex;
+import net.lingala.zip4j.model.EntryNameIndex;
 import net.lingala.zip4j.model.FileHeader;
 import net.lingala.zip4j.model.UnzipParameters;
 import net.lingala.zip4j.model.ZipModel;
 import net.lingala.zip4j.model.ZipParameters;
 import net.lingala.zip4j.progress.ProgressMonitor;
 import net.lingala.zip4j.util.ArchiveMaintainer;
+import net.lingala.zip4j.util.EntryContentCache;
 import net.lingala.zip4j.util.Zip4jUtil;
+import net.lingala.zip4j.util.ZipModelCache;
 import net.lingala.zip4j.util.enums.RandomAccessFileMode;
 import net.lingala.zip4j.zip.UnzipEngine;
 import net.lingala.zip4j.zip.ZipEngine;
 
+import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.RandomAccessFile;
 import java.io.UnsupportedEncodingException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
 import static net.lingala.zip4j.util.InternalZipConstants.CHARSET_DEFAULT;
+import static net.lingala.zip4j.util.InternalZipConstants.DEFAULT_CHECKPOINT_SPAN;
 import static net.lingala.zip4j.util.InternalZipConstants.DEFAULT_COMMENT_CHARSET;
 
 /**
@@ -54,10 +65,16 @@ import static net.lingala.zip4j.util.InternalZipConstants.DEFAULT_COMMENT_CHARSE
  * </ul>
  */
 
-public class ZipFile {
+public class ZipFile implements Closeable {
 
   private File zipFile;
+  private SeekableByteChannel zipFileChannel;
+  private volatile FileChannel sharedFileChannel;
+  private EntryContentCache entryContentCache;
+  private ZipModelCache zipModelCache;
+  private ArchiveIndex archiveIndex;
   private ZipModel zipModel;
+  private boolean zipModelShared;
   private boolean isEncrypted;
   private ProgressMonitor progressMonitor;
   private boolean runInThread;
@@ -81,6 +98,24 @@ public class ZipFile {
     this.progressMonitor = new ProgressMonitor();
   }
 
+  /**
+   * Creates a new Zip File Object reading the zip file from the input channel, for example a zip file held in
+   * memory or in a custom storage. The zip file can only be read, and all operations which modify the zip file
+   * throw an exception. The channel is not closed by this class
+   *
+   * @param zipFileChannel
+   */
+  public ZipFile(SeekableByteChannel zipFileChannel) {
+    this(zipFileChannel, null);
+  }
+
+  public ZipFile(SeekableByteChannel zipFileChannel, char[] password) {
+    this.zipFileChannel = zipFileChannel;
+    this.password = password;
+    this.runInThread = false;
+    this.progressMonitor = new ProgressMonitor();
+  }
+
   /**
    * Creates a zip file with default zip parameters. If the zip file
    *    * exists then this method throws an exception.
@@ -154,6 +189,8 @@ public class ZipFile {
   public void createZipFile(List<File> sourceFiles, ZipParameters parameters, boolean splitArchive,
                             long splitLength) throws ZipException {
 
+    checkNotOpenedFromChannel();
+
     if (zipFile.exists()) {
       throw new ZipException("zip file: " + zipFile + " already exists. To add files to existing zip file use addFile method");
     }
@@ -185,6 +222,8 @@ public class ZipFile {
   public void createZipFileFromFolder(File folderToAdd, ZipParameters parameters, boolean splitArchive,
                                       long splitLength) throws ZipException {
 
+    checkNotOpenedFromChannel();
+
     if (folderToAdd == null) {
       throw new ZipException("folderToAdd is null, cannot create zip file from folder");
     }
@@ -231,12 +270,16 @@ public class ZipFile {
    */
   public void addFiles(List<File> sourceFiles, ZipParameters parameters) throws ZipException {
 
+    checkNotOpenedFromChannel();
+
     checkZipModel();
 
     if (this.zipModel == null) {
       throw new ZipException("internal error: zip model is null");
     }
 
+    copyZipModelIfShared();
+
     if (sourceFiles == null) {
       throw new ZipException("input file ArrayList is null");
     }
@@ -278,6 +321,50 @@ public class ZipFile {
     addFolder(folder, parameters, true);
   }
 
+  /**
+   * Synchronizes the zip file with the input folder. If zip file does not exist, then a new
+   * zip file is created with the contents of the folder. Otherwise only files which are new or
+   * have been modified since they were added, compared by size and last modified time (and CRC
+   * if ZipParameters.compareFileCrcOnSync is set), are compressed and written to the zip file.
+   * Entries for files which no longer exist in the folder are removed and all other entries are
+   * copied as is without recompressing them
+   *
+   * @param folder
+   * @param parameters
+   * @throws ZipException
+   */
+  public void syncFolder(File folder, ZipParameters parameters) throws ZipException {
+    checkNotOpenedFromChannel();
+
+    if (folder == null) {
+      throw new ZipException("input path is null, cannot sync folder with zip file");
+    }
+
+    if (parameters == null) {
+      throw new ZipException("input parameters are null, cannot sync folder with zip file");
+    }
+
+    if (zipModel == null) {
+      if (zipFile.exists()) {
+        readZipInfo();
+      } else {
+        createNewZipModel();
+      }
+    }
+
+    copyZipModelIfShared();
+
+    if (this.zipModel.isSplitArchive()) {
+      throw new ZipException("This is a split archive. Zip file format does not allow updating split/spanned files");
+    }
+
+    if (progressMonitor.getState() == ProgressMonitor.STATE_BUSY) {
+      throw new ZipException("invalid operation - Zip4j is in busy state");
+    }
+
+    new ZipEngine(zipModel, progressMonitor, password).syncFolderToZip(folder, parameters, runInThread);
+  }
+
   /**
    * Internal method to add a folder to the zip file.
    *
@@ -288,12 +375,16 @@ public class ZipFile {
    */
   private void addFolder(File folder, ZipParameters parameters, boolean checkSplitArchive) throws ZipException {
 
+    checkNotOpenedFromChannel();
+
     checkZipModel();
 
     if (this.zipModel == null) {
       throw new ZipException("internal error: zip model is null");
     }
 
+    copyZipModelIfShared();
+
     if (checkSplitArchive) {
       if (this.zipModel.isSplitArchive()) {
         throw new ZipException("This is a split archive. Zip file format does not allow updating split/spanned files");
@@ -316,6 +407,8 @@ public class ZipFile {
    * @throws ZipException
    */
   public void addStream(InputStream inputStream, ZipParameters parameters) throws ZipException {
+    checkNotOpenedFromChannel();
+
     if (inputStream == null) {
       throw new ZipException("inputstream is null, cannot add file to zip");
     }
@@ -332,6 +425,8 @@ public class ZipFile {
       throw new ZipException("internal error: zip model is null");
     }
 
+    copyZipModelIfShared();
+
     if (zipFile.exists() && zipModel.isSplitArchive()) {
       throw new ZipException("Zip file already exists. Zip file format does not allow updating split/spanned files");
     }
@@ -386,6 +481,40 @@ public class ZipFile {
     new UnzipEngine(zipModel, progressMonitor, password).extractAll(unzipParameters, destinationPath, runInThread);
   }
 
+  /**
+   * Extracts the entries of the input file headers to the destination path, for example the entries below a
+   * folder selected with an {@link EntryNameIndex}. File headers have to be file headers of this zip file
+   *
+   * @param fileHeaders
+   * @param destinationPath
+   * @param unzipParameters
+   * @throws ZipException
+   */
+  public void extractFiles(List<FileHeader> fileHeaders, String destinationPath, UnzipParameters unzipParameters)
+      throws ZipException {
+
+    if (fileHeaders == null) {
+      throw new ZipException("input file headers are null, cannot extract files");
+    }
+
+    if (!Zip4jUtil.isStringNotNullAndNotEmpty(destinationPath)) {
+      throw new ZipException("output path is null or invalid");
+    }
+
+    if (!Zip4jUtil.checkOutputFolder(destinationPath)) {
+      throw new ZipException("invalid output path");
+    }
+
+    ZipModel zipModelForReading = getZipModelForReading();
+
+    if (progressMonitor.getState() == ProgressMonitor.STATE_BUSY) {
+      throw new ZipException("invalid operation - Zip4j is in busy state");
+    }
+
+    new UnzipEngine(zipModelForReading, progressMonitor, password).extractFiles(fileHeaders, unzipParameters,
+        destinationPath, runInThread);
+  }
+
   /**
    * Extracts a specific file from the zip file to the destination path.
    * If destination path is invalid, then this method throws an exception.
@@ -548,9 +677,28 @@ public class ZipFile {
     if (zipModel == null || zipModel.getCentralDirectory() == null) {
       return null;
     }
+
+    // The returned file headers can be modified by the caller, so they must not be shared with the zip model cache
+    copyZipModelIfShared();
     return zipModel.getCentralDirectory().getFileHeaders();
   }
 
+  /**
+   * Returns an index of the file headers sorted by file name, which lists the entries below a folder or matching a
+   * glob pattern without looking at all file headers. The index is not updated when the zip file is modified
+   *
+   * @return EntryNameIndex
+   * @throws ZipException
+   */
+  public EntryNameIndex getEntryNameIndex() throws ZipException {
+    List<FileHeader> fileHeaders = getFileHeaders();
+    if (fileHeaders == null) {
+      throw new ZipException("no file headers in zip file, cannot create entry name index");
+    }
+
+    return new EntryNameIndex(fileHeaders);
+  }
+
   /**
    * Returns FileHeader if a file header with the given fileHeader
    * string exists in the zip model: If not returns null
@@ -564,12 +712,26 @@ public class ZipFile {
       throw new ZipException("input file name is emtpy or null, cannot get FileHeader");
     }
 
+    if (isArchiveIndexValid()) {
+      return archiveIndex.getFileHeader(fileName);
+    }
+
     readZipInfo();
     if (zipModel == null || zipModel.getCentralDirectory() == null) {
       return null;
     }
 
-    return Zip4jUtil.getFileHeader(zipModel, fileName);
+    FileHeader fileHeader = Zip4jUtil.getFileHeader(zipModel, fileName);
+    if (fileHeader == null || !zipModelShared) {
+      return fileHeader;
+    }
+
+    // The returned file header can be modified by the caller, so the header of the zip model cache is copied
+    try {
+      return (FileHeader) fileHeader.clone();
+    } catch (CloneNotSupportedException e) {
+      throw new ZipException(e);
+    }
   }
 
   /**
@@ -633,6 +795,8 @@ public class ZipFile {
    */
   public void removeFile(String fileName) throws ZipException {
 
+    checkNotOpenedFromChannel();
+
     if (!Zip4jUtil.isStringNotNullAndNotEmpty(fileName)) {
       throw new ZipException("file name is empty or null, cannot remove file");
     }
@@ -662,6 +826,8 @@ public class ZipFile {
    * @throws ZipException
    */
   public void removeFile(FileHeader fileHeader) throws ZipException {
+    checkNotOpenedFromChannel();
+
     if (fileHeader == null) {
       throw new ZipException("file header is null, cannot remove file");
     }
@@ -674,6 +840,8 @@ public class ZipFile {
       throw new ZipException("Zip file format does not allow updating split/spanned files");
     }
 
+    copyZipModelIfShared();
+
     ArchiveMaintainer archiveMaintainer = new ArchiveMaintainer();
     archiveMaintainer.initProgressMonitorForRemoveOp(zipModel, fileHeader, progressMonitor);
     archiveMaintainer.removeZipFile(zipModel, fileHeader, progressMonitor, runInThread);
@@ -687,6 +855,21 @@ public class ZipFile {
    * @throws ZipException
    */
   public void mergeSplitFiles(File outputZipFile) throws ZipException {
+    mergeSplitFiles(outputZipFile, 1);
+  }
+
+  /**
+   * Merges split zip files into a single zip file without the need to extract the
+   * files in the archive. With more than one thread, the split files are copied
+   * concurrently into the preallocated output file
+   *
+   * @param outputZipFile
+   * @param threads number of threads copying split files
+   * @throws ZipException
+   */
+  public void mergeSplitFiles(File outputZipFile, int threads) throws ZipException {
+    checkNotOpenedFromChannel();
+
     if (outputZipFile == null) {
       throw new ZipException("outputZipFile is null, cannot merge split files");
     }
@@ -695,15 +878,19 @@ public class ZipFile {
       throw new ZipException("output Zip File already exists");
     }
 
-    checkZipModel();
+    if (zipModel == null) {
+      readZipInfo();
+    }
 
     if (this.zipModel == null) {
       throw new ZipException("zip model is null, corrupt zip file?");
     }
 
+    copyZipModelIfShared();
+
     ArchiveMaintainer archiveMaintainer = new ArchiveMaintainer();
     archiveMaintainer.initProgressMonitorForMergeOp(zipModel, progressMonitor);
-    archiveMaintainer.mergeSplitZipFiles(zipModel, outputZipFile, progressMonitor, runInThread);
+    archiveMaintainer.mergeSplitZipFiles(zipModel, outputZipFile, progressMonitor, runInThread, threads);
   }
 
   /**
@@ -713,6 +900,8 @@ public class ZipFile {
    * @throws ZipException
    */
   public void setComment(String comment) throws ZipException {
+    checkNotOpenedFromChannel();
+
     if (comment == null) {
       throw new ZipException("input comment is null, cannot update zip file");
     }
@@ -731,6 +920,8 @@ public class ZipFile {
       throw new ZipException("end of central directory is null, cannot set comment");
     }
 
+    copyZipModelIfShared();
+
     new ArchiveMaintainer().setComment(zipModel, comment);
   }
 
@@ -760,7 +951,7 @@ public class ZipFile {
       }
     }
 
-    if (!zipFile.exists()) {
+    if (zipFileChannel == null && !zipFile.exists()) {
       throw new ZipException("zip file does not exist, cannot read comment");
     }
 
@@ -795,6 +986,16 @@ public class ZipFile {
    */
   private void readZipInfo() throws ZipException {
 
+    // Zip model is read only once in concurrent read mode, as it is shared by all reading threads
+    if (sharedFileChannel != null && zipModel != null) {
+      return;
+    }
+
+    if (zipFileChannel != null) {
+      readZipInfoFromChannel();
+      return;
+    }
+
     if (!zipFile.exists()) {
       throw new ZipException("zip file does not exist");
     }
@@ -803,13 +1004,102 @@ public class ZipFile {
       throw new ZipException("no read access for the input zip file");
     }
 
+    if (zipModelCache != null) {
+      ZipModel cachedZipModel = zipModelCache.get(zipFile, fileNameCharset);
+      if (cachedZipModel != null) {
+        zipModel = cachedZipModel;
+        zipModelShared = true;
+        return;
+      }
+    }
+
+    long lastModified = zipFile.lastModified();
+    long length = zipFile.length();
+
     try (RandomAccessFile randomAccessFile = new RandomAccessFile(zipFile, RandomAccessFileMode.READ.getValue())) {
       HeaderReader headerReader = new HeaderReader();
       zipModel = headerReader.readAllHeaders(randomAccessFile, this.fileNameCharset);
       zipModel.setZipFile(zipFile);
+      zipModelShared = false;
     } catch (IOException e) {
       throw new ZipException(e);
     }
+
+    // Headers read while the zip file was being modified must not be cached under the identity of the new zip file
+    if (zipModelCache != null && zipFile.lastModified() == lastModified && zipFile.length() == length) {
+      zipModelCache.put(zipFile, fileNameCharset, zipModel, lastModified, length);
+      zipModelShared = true;
+    }
+  }
+
+  /**
+   * Copies the headers of the zip model before they are modified, if they are shared with the snapshot in the zip
+   * model cache
+   *
+   * @throws ZipException
+   */
+  private void copyZipModelIfShared() throws ZipException {
+    if (!zipModelShared) {
+      return;
+    }
+
+    try {
+      zipModel = zipModel.deepClone();
+      zipModelShared = false;
+    } catch (CloneNotSupportedException e) {
+      throw new ZipException(e);
+    }
+  }
+
+  private void readZipInfoFromChannel() throws ZipException {
+    if (!zipFileChannel.isOpen()) {
+      throw new ZipException("zip file channel is closed");
+    }
+
+    HeaderReader headerReader = new HeaderReader();
+    synchronized (zipFileChannel) {
+      zipModel = headerReader.readAllHeaders(zipFileChannel, this.fileNameCharset);
+    }
+    zipModelShared = false;
+    zipModel.setZipFileChannel(zipFileChannel);
+  }
+
+  /**
+   * Returns the zip model used to read entries. While a valid archive index is used and the headers of the zip file
+   * were not read yet, a zip model created from the index is returned, so that the central directory is not read
+   *
+   * @return zip model
+   * @throws ZipException
+   */
+  private ZipModel getZipModelForReading() throws ZipException {
+    if (zipModel == null && isArchiveIndexValid()) {
+      return archiveIndex.createZipModel(zipFile);
+    }
+
+    if (zipModel == null) {
+      readZipInfo();
+    }
+
+    return zipModel;
+  }
+
+  private boolean isArchiveIndexValid() {
+    return archiveIndex != null && archiveIndex.isIndexOf(zipFile);
+  }
+
+  /**
+   * Throws an exception if this zip file was opened from a channel, as such zip files can only be read
+   *
+   * @throws ZipException
+   */
+  private void checkNotOpenedFromChannel() throws ZipException {
+    if (zipFileChannel != null) {
+      throw new ZipException("zip file opened from a channel can only be read, operation not supported");
+    }
+
+    if (sharedFileChannel != null) {
+      throw new ZipException("zip file is in concurrent read mode and can only be read, operation not supported");
+    }
   }
 
   /**
@@ -832,6 +1122,7 @@ public class ZipFile {
    */
   private void createNewZipModel() {
     zipModel = new ZipModel();
+    zipModelShared = false;
     zipModel.setZipFile(zipFile);
     zipModel.setFileNameCharset(fileNameCharset);
   }
@@ -869,13 +1160,228 @@ public class ZipFile {
       throw new ZipException("FileHeader is null, cannot get InputStream");
     }
 
-    checkZipModel();
-
-    if (zipModel == null) {
+    ZipModel zipModelForReading = getZipModelForReading();
+    if (zipModelForReading == null) {
       throw new ZipException("zip model is null, cannot get inputstream");
     }
 
-    return new UnzipEngine(zipModel, progressMonitor, password).createZipInputStreamFor(fileHeader);
+    return new UnzipEngine(zipModelForReading, progressMonitor, password).createZipInputStreamFor(fileHeader);
+  }
+
+  /**
+   * Returns a read only seekable channel over the data of an entry which is stored without compression and
+   * encryption. The channel maps directly onto the byte range of the entry in the zip file, so that reading from
+   * any position does not require reading the data before it. The CRC of the entry is not verified. The returned
+   * channel has to be closed by the caller
+   *
+   * @param fileHeader
+   * @return SeekableByteChannel
+   * @throws ZipException
+   */
+  public SeekableByteChannel getStoredEntryChannel(FileHeader fileHeader) throws ZipException {
+    if (fileHeader == null) {
+      throw new ZipException("FileHeader is null, cannot get channel");
+    }
+
+    return new UnzipEngine(getZipModelForReading(), progressMonitor, password).createStoredEntryChannel(fileHeader);
+  }
+
+  /**
+   * Checks if the data of the entry starts at a multiple of the input alignment in the zip file, for example to
+   * verify that a stored entry can be memory mapped on page boundaries. Only the fixed part of the local file header
+   * of the entry is read
+   *
+   * @param fileHeader
+   * @param dataAlignment
+   * @return true if the entry data is aligned
+   * @throws ZipException
+   */
+  public boolean isEntryDataAligned(FileHeader fileHeader, int dataAlignment) throws ZipException {
+    if (fileHeader == null) {
+      throw new ZipException("FileHeader is null, cannot check alignment");
+    }
+
+    return new UnzipEngine(getZipModelForReading(), progressMonitor, password).isEntryDataAligned(fileHeader, dataAlignment);
+  }
+
+  /**
+   * Returns a read only MappedByteBuffer covering exactly the data of an entry which is stored without compression
+   * and encryption. The data is not copied, but paged in by the operating system when the buffer is accessed.<br>
+   * The mapping stays valid until the buffer is garbage collected, also after this ZipFile is closed or no longer
+   * used. While the buffer is in use, the zip file must not be modified, removed or truncated, including by
+   * operations of this class: accessing a mapping of a truncated file fails with an error and, on Windows, a mapped
+   * file cannot be deleted or replaced. The CRC of the entry is not verified
+   *
+   * @param fileHeader
+   * @return MappedByteBuffer
+   * @throws ZipException
+   */
+  public MappedByteBuffer mapStoredEntry(FileHeader fileHeader) throws ZipException {
+    if (fileHeader == null) {
+      throw new ZipException("FileHeader is null, cannot map entry");
+    }
+
+    return new UnzipEngine(getZipModelForReading(), progressMonitor, password).mapStoredEntry(fileHeader);
+  }
+
+  /**
+   * Creates an index of access points into a deflated entry, which allows reading the entry from any position with
+   * getDeflatedEntryChannel. A checkpoint is created at the first deflate block boundary after every checkpointSpan
+   * bytes of decompressed data, and each checkpoint holds 32KB of decompressed data. The index can be persisted
+   * with {@link DeflateCheckpointIndex#write(java.io.OutputStream)} to avoid decompressing the entry again
+   *
+   * @param fileHeader
+   * @param checkpointSpan
+   * @return DeflateCheckpointIndex
+   * @throws ZipException
+   */
+  public DeflateCheckpointIndex createCheckpointIndex(FileHeader fileHeader, long checkpointSpan)
+      throws ZipException {
+    if (fileHeader == null) {
+      throw new ZipException("FileHeader is null, cannot create checkpoint index");
+    }
+
+    return new UnzipEngine(getZipModelForReading(), progressMonitor, password).createCheckpointIndex(fileHeader, checkpointSpan);
+  }
+
+  /**
+   * Returns a read only seekable channel over the decompressed data of an entry which is deflated without
+   * encryption. Reading from a position resumes decompression from the nearest checkpoint of the index before it.
+   * If the index is null, it is created on the first call with a checkpoint span of 1MB. The CRC of the entry is not
+   * verified when reading from the channel. The returned channel has to be closed by the caller
+   *
+   * @param fileHeader
+   * @param checkpointIndex index created with createCheckpointIndex for the same entry, or null
+   * @return SeekableByteChannel
+   * @throws ZipException
+   */
+  public SeekableByteChannel getDeflatedEntryChannel(FileHeader fileHeader, DeflateCheckpointIndex checkpointIndex)
+      throws ZipException {
+    if (fileHeader == null) {
+      throw new ZipException("FileHeader is null, cannot get channel");
+    }
+
+    UnzipEngine unzipEngine = new UnzipEngine(getZipModelForReading(), progressMonitor, password);
+    if (checkpointIndex == null) {
+      checkpointIndex = unzipEngine.createCheckpointIndex(fileHeader, DEFAULT_CHECKPOINT_SPAN);
+    }
+
+    return unzipEngine.createDeflatedEntryChannel(fileHeader, checkpointIndex);
+  }
+
+  /**
+   * Returns the complete decompressed content of the entry of the input file header. If an entry content cache is
+   * set and the entry is small enough, the content is served from and added to the cache. Zip files opened from a
+   * channel are never cached, as they have no identity to validate cached content against. Encrypted entries are
+   * never cached either, as the cache can be shared with ZipFile instances which do not have the password
+   *
+   * @param fileHeader
+   * @return content of the entry
+   * @throws ZipException
+   */
+  public byte[] readFileContent(FileHeader fileHeader) throws ZipException {
+    if (fileHeader == null) {
+      throw new ZipException("FileHeader is null, cannot read file content");
+    }
+
+    UnzipEngine unzipEngine = new UnzipEngine(getZipModelForReading(), progressMonitor, password);
+    EntryContentCache cache = entryContentCache;
+    if (cache == null || zipFileChannel != null || fileHeader.isEncrypted()
+        || !cache.isCacheable(fileHeader.getUncompressedSize())) {
+      return unzipEngine.readFileContent(fileHeader);
+    }
+
+    byte[] content = cache.get(zipFile, fileHeader.getFileName());
+    if (content != null) {
+      return content;
+    }
+
+    long lastModified = zipFile.lastModified();
+    long length = zipFile.length();
+    content = unzipEngine.readFileContent(fileHeader);
+
+    // Content read while the zip file was being modified must not be cached under the identity of the new zip file
+    if (zipFile.lastModified() == lastModified && zipFile.length() == length) {
+      cache.put(zipFile, fileHeader.getFileName(), content);
+    }
+
+    return content;
+  }
+
+  public EntryContentCache getEntryContentCache() {
+    return entryContentCache;
+  }
+
+  /**
+   * Sets the cache used by readFileContent. The same cache can be shared by several ZipFile instances
+   *
+   * @param entryContentCache
+   */
+  public void setEntryContentCache(EntryContentCache entryContentCache) {
+    this.entryContentCache = entryContentCache;
+  }
+
+  public ZipModelCache getZipModelCache() {
+    return zipModelCache;
+  }
+
+  /**
+   * Sets the cache of zip models used when the headers of the zip file are read. Sharing one cache between all
+   * ZipFile instances of a process avoids reading the headers of an unchanged zip file again when it is opened by
+   * a new instance. Headers from the cache are shared by the instances until an instance modifies the zip file or
+   * hands out its file headers
+   *
+   * @param zipModelCache
+   */
+  public void setZipModelCache(ZipModelCache zipModelCache) {
+    this.zipModelCache = zipModelCache;
+  }
+
+  /**
+   * Writes a compact index of the entries of the zip file to the index file, which can be used with
+   * useArchiveIndex to look up entries of the zip file without reading its central directory
+   *
+   * @param indexFile
+   * @throws ZipException
+   */
+  public void writeArchiveIndex(File indexFile) throws ZipException {
+    if (indexFile == null) {
+      throw new ZipException("index file is null, cannot write archive index");
+    }
+
+    if (zipFileChannel != null) {
+      throw new ZipException("zip file opened from a channel does not support archive indexes");
+    }
+
+    readZipInfo();
+    ArchiveIndex.write(zipModel, indexFile);
+  }
+
+  /**
+   * Uses the archive index written to the index file with writeArchiveIndex. While the zip file is not modified,
+   * getFileHeader looks up entries in the index, and entries are read without reading the central directory.
+   * Returns false, and no index is used, if the index file does not exist or was written for a different version
+   * of the zip file. getFileHeaders and operations which modify the zip file still read all headers
+   *
+   * @param indexFile
+   * @return true if the index is used
+   * @throws ZipException if the index file is not an archive index
+   */
+  public boolean useArchiveIndex(File indexFile) throws ZipException {
+    if (indexFile == null) {
+      throw new ZipException("index file is null, cannot use archive index");
+    }
+
+    if (zipFileChannel != null) {
+      throw new ZipException("zip file opened from a channel does not support archive indexes");
+    }
+
+    archiveIndex = ArchiveIndex.load(indexFile, zipFile);
+    return archiveIndex != null;
+  }
+
+  public ArchiveIndex getArchiveIndex() {
+    return archiveIndex;
   }
 
   /**
@@ -905,6 +1411,8 @@ public class ZipFile {
    * @throws ZipException
    */
   public ArrayList getSplitZipFiles() throws ZipException {
+    checkNotOpenedFromChannel();
+
     checkZipModel();
     return Zip4jUtil.getSplitZipFiles(zipModel);
   }
@@ -924,4 +1432,77 @@ public class ZipFile {
   public File getFile() {
     return zipFile;
   }
+
+  /**
+   * Enables or disables the concurrent read mode. In concurrent read mode, the headers of the zip file are read only
+   * once and a single FileChannel is opened, which is shared by all input streams returned by getInputStream.
+   * Input streams read from the channel with positional reads, and hence no seeks or additional file descriptors
+   * are needed. getFileHeaders, getFileHeader and getInputStream can then be called from multiple threads at the
+   * same time, while each returned input stream must only be used by one thread. Extract methods still report to
+   * the single progress monitor of this instance and must not be called concurrently.
+   * Operations which modify the zip file throw an exception until this mode is disabled again. Split zip files and
+   * zip files opened from a channel are not supported
+   *
+   * @param concurrentReadMode
+   * @throws ZipException
+   */
+  public synchronized void setConcurrentReadMode(boolean concurrentReadMode) throws ZipException {
+    if (concurrentReadMode == isConcurrentReadMode()) {
+      return;
+    }
+
+    if (!concurrentReadMode) {
+      closeSharedFileChannel();
+      return;
+    }
+
+    if (zipFileChannel != null) {
+      throw new ZipException("zip file opened from a channel does not support concurrent read mode");
+    }
+
+    readZipInfo();
+
+    if (zipModel.isSplitArchive()) {
+      throw new ZipException("split zip files do not support concurrent read mode");
+    }
+
+    try {
+      sharedFileChannel = FileChannel.open(zipFile.toPath(), StandardOpenOption.READ);
+    } catch (IOException e) {
+      throw new ZipException(e);
+    }
+
+    zipModel.setZipFileChannel(sharedFileChannel);
+  }
+
+  public boolean isConcurrentReadMode() {
+    return sharedFileChannel != null;
+  }
+
+  /**
+   * Closes the FileChannel shared by all readers if the zip file is in concurrent read mode. Has no effect otherwise
+   *
+   * @throws IOException
+   */
+  @Override
+  public synchronized void close() throws IOException {
+    if (sharedFileChannel == null) {
+      return;
+    }
+
+    try {
+      sharedFileChannel.close();
+    } finally {
+      sharedFileChannel = null;
+      zipModel = null;
+    }
+  }
+
+  private void closeSharedFileChannel() throws ZipException {
+    try {
+      close();
+    } catch (IOException e) {
+      throw new ZipException(e);
+    }
+  }
 }
@@ -20,13 +20,14 @@ public class FileHeaderFactory {
     FileHeader fileHeader = new FileHeader();
     fileHeader.setSignature(HeaderSignature.CENTRAL_DIRECTORY);
     fileHeader.setVersionMadeBy(20);
-    fileHeader.setVersionNeededToExtract(20);
+    // bzip2 compressed entries need version 4.6 of the zip specification to be extracted
+    fileHeader.setVersionNeededToExtract(zipParameters.getCompressionMethod() == CompressionMethod.BZIP2 ? 46 : 20);
 
     if (zipParameters.isEncryptFiles() && zipParameters.getEncryptionMethod() == EncryptionMethod.AES) {
       fileHeader.setCompressionMethod(CompressionMethod.AES_INTERNAL_ONLY);
       fileHeader.setAesExtraDataRecord(generateAESExtraDataRecord(zipParameters));
     } else {
-      fileHeader.setCompressionMethod(zipParameters.getCompressionMethod());
+      fileHeader.setCompressionMethodId(zipParameters.getCompressionMethodId());
     }
 
     if (zipParameters.isEncryptFiles()) {
@@ -40,7 +41,7 @@ public class FileHeaderFactory {
     fileHeader.setDiskNumberStart(isSplitZip ? currentDiskNumberStart : 0);
 
     if (zipParameters.getLastModifiedFileTime() > 0) {
-      fileHeader.setLastModifiedTime((int) Zip4jUtil.javaToDosTime(zipParameters.getLastModifiedFileTime()));
+      fileHeader.setLastModifiedTime(zipParameters.getLastModifiedFileTime());
     } else {
       fileHeader.setLastModifiedTime((int) Zip4jUtil.javaToDosTime(System.currentTimeMillis()));
     }
@@ -64,7 +65,7 @@ public class FileHeaderFactory {
     LocalFileHeader localFileHeader = new LocalFileHeader();
     localFileHeader.setSignature(HeaderSignature.LOCAL_FILE_HEADER);
     localFileHeader.setVersionNeededToExtract(fileHeader.getVersionNeededToExtract());
-    localFileHeader.setCompressionMethod(fileHeader.getCompressionMethod());
+    localFileHeader.setCompressionMethodId(fileHeader.getCompressionMethodId());
     localFileHeader.setLastModifiedTime(fileHeader.getLastModifiedTime());
     localFileHeader.setUncompressedSize(fileHeader.getUncompressedSize());
     localFileHeader.setFileNameLength(fileHeader.getFileNameLength());
@@ -121,7 +122,7 @@ public class FileHeaderFactory {
       throw new ZipException("invalid AES key strength, cannot generate AES Extra data record");
     }
 
-    aesDataRecord.setCompressionMethod(parameters.getCompressionMethod());
+    aesDataRecord.setCompressionMethodId(parameters.getCompressionMethodId());
     return aesDataRecord;
   }
 
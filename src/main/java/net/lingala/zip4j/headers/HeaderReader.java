@@ -31,12 +31,13 @@ import net.lingala.zip4j.model.ZipModel;
 import net.lingala.zip4j.util.Raw;
 import net.lingala.zip4j.util.Zip4jUtil;
 import net.lingala.zip4j.zip.AesKeyStrength;
-import net.lingala.zip4j.zip.CompressionMethod;
 import net.lingala.zip4j.zip.EncryptionMethod;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -51,6 +52,19 @@ public class HeaderReader {
   private ZipModel zipModel;
 
   public ZipModel readAllHeaders(RandomAccessFile zip4jRaf, String fileNameCharset) throws ZipException {
+    return readAllHeaders(zip4jRaf.getChannel(), fileNameCharset);
+  }
+
+  /**
+   * Reads all headers of the zip file from the input channel. The channel does not have to be backed by a file, which
+   * allows reading zip files held in memory or in any other custom storage
+   *
+   * @param zip4jRaf
+   * @param fileNameCharset
+   * @return {@link ZipModel}
+   * @throws ZipException
+   */
+  public ZipModel readAllHeaders(SeekableByteChannel zip4jRaf, String fileNameCharset) throws ZipException {
     zipModel = new ZipModel();
     zipModel.setFileNameCharset(fileNameCharset);
     zipModel.setEndOfCentralDirectoryRecord(readEndOfCentralDirectoryRecord(zip4jRaf));
@@ -73,17 +87,17 @@ public class HeaderReader {
     return zipModel;
   }
 
-  private EndOfCentralDirectoryRecord readEndOfCentralDirectoryRecord(RandomAccessFile zip4jRaf) throws ZipException {
+  private EndOfCentralDirectoryRecord readEndOfCentralDirectoryRecord(SeekableByteChannel zip4jRaf) throws ZipException {
     try {
       byte[] ebs = new byte[4];
-      long pos = zip4jRaf.length() - ENDHDR;
+      long pos = zip4jRaf.size() - ENDHDR;
 
       EndOfCentralDirectoryRecord endOfCentralDirectoryRecord = new EndOfCentralDirectoryRecord();
       int counter = 0;
       do {
-        zip4jRaf.seek(pos--);
+        zip4jRaf.position(pos--);
         counter++;
-      } while ((Raw.readLeInt(zip4jRaf, ebs) != HeaderSignature.END_OF_CENTRAL_DIRECTORY.getValue()) && counter <= 3000);
+      } while ((Raw.readIntLittleEndian(readIntoBuff(zip4jRaf, ebs), 0) != HeaderSignature.END_OF_CENTRAL_DIRECTORY.getValue()) && counter <= 3000);
 
       if ((Raw.readIntLittleEndian(ebs, 0) != HeaderSignature.END_OF_CENTRAL_DIRECTORY.getValue())) {
         throw new ZipException("zip headers not found. probably not a zip file");
@@ -154,7 +168,7 @@ public class HeaderReader {
    * @return {@link CentralDirectory}
    * @throws ZipException
    */
-  private CentralDirectory readCentralDirectory(RandomAccessFile zip4jRaf) throws ZipException {
+  private CentralDirectory readCentralDirectory(SeekableByteChannel zip4jRaf) throws ZipException {
     if (zipModel.getEndOfCentralDirectoryRecord() == null) {
       throw new ZipException("EndCentralRecord was null, maybe a corrupt zip file");
     }
@@ -172,7 +186,7 @@ public class HeaderReader {
         centralDirEntryCount = (int) zipModel.getZip64EndOfCentralDirectoryRecord().getTotNoOfEntriesInCentralDir();
       }
 
-      zip4jRaf.seek(offSetStartCentralDir);
+      zip4jRaf.position(offSetStartCentralDir);
 
       byte[] intBuff = new byte[4];
       byte[] shortBuff = new byte[2];
@@ -213,7 +227,7 @@ public class HeaderReader {
         //compression method
         readIntoBuff(zip4jRaf, shortBuff);
         int compressionTypeCode = Raw.readShortLittleEndian(shortBuff, 0);
-        fileHeader.setCompressionMethod(CompressionMethod.getCompressionMethodFromCode(compressionTypeCode));
+        fileHeader.setCompressionMethodId(compressionTypeCode);
 
         //last mod file time
         readIntoBuff(zip4jRaf, intBuff);
@@ -368,7 +382,7 @@ public class HeaderReader {
    * @param fileHeader
    * @throws ZipException
    */
-  private void readAndSaveExtraDataRecord(RandomAccessFile zip4jRaf, FileHeader fileHeader) throws ZipException {
+  private void readAndSaveExtraDataRecord(SeekableByteChannel zip4jRaf, FileHeader fileHeader) throws ZipException {
     if (fileHeader == null) {
       throw new ZipException("file header is null");
     }
@@ -388,7 +402,7 @@ public class HeaderReader {
    * @param localFileHeader
    * @throws ZipException
    */
-  private void readAndSaveExtraDataRecord(RandomAccessFile zip4jRaf, LocalFileHeader localFileHeader) throws ZipException {
+  private void readAndSaveExtraDataRecord(SeekableByteChannel zip4jRaf, LocalFileHeader localFileHeader) throws ZipException {
     if (localFileHeader == null) {
       throw new ZipException("file header is null");
     }
@@ -429,52 +443,48 @@ public class HeaderReader {
    * @return ArrayList of {@link ExtraDataRecord}
    * @throws ZipException
    */
-  private ArrayList readExtraDataRecords(RandomAccessFile zip4jRaf, int extraFieldLength) throws ZipException {
+  private ArrayList readExtraDataRecords(SeekableByteChannel zip4jRaf, int extraFieldLength) throws ZipException {
 
     if (extraFieldLength <= 0) {
       return null;
     }
 
-    try {
-      byte[] extraFieldBuf = new byte[extraFieldLength];
-      zip4jRaf.read(extraFieldBuf);
+    byte[] extraFieldBuf = new byte[extraFieldLength];
+    readIntoBuff(zip4jRaf, extraFieldBuf);
 
-      int counter = 0;
-      ArrayList extraDataList = new ArrayList();
-      while (counter < extraFieldLength) {
-        ExtraDataRecord extraDataRecord = new ExtraDataRecord();
-        int header = Raw.readShortLittleEndian(extraFieldBuf, counter);
-        extraDataRecord.setSignature(HeaderSignature.EXTRA_DATA_RECORD);
-        counter = counter + 2;
-        int sizeOfRec = Raw.readShortLittleEndian(extraFieldBuf, counter);
+    int counter = 0;
+    ArrayList extraDataList = new ArrayList();
+    while (counter < extraFieldLength) {
+      ExtraDataRecord extraDataRecord = new ExtraDataRecord();
+      int header = Raw.readShortLittleEndian(extraFieldBuf, counter);
+      extraDataRecord.setSignature(HeaderSignature.EXTRA_DATA_RECORD);
+      counter = counter + 2;
+      int sizeOfRec = Raw.readShortLittleEndian(extraFieldBuf, counter);
 
+      if ((2 + sizeOfRec) > extraFieldLength) {
+        sizeOfRec = Raw.readShortBigEndian(extraFieldBuf, counter);
         if ((2 + sizeOfRec) > extraFieldLength) {
-          sizeOfRec = Raw.readShortBigEndian(extraFieldBuf, counter);
-          if ((2 + sizeOfRec) > extraFieldLength) {
-            //If this is the case, then extra data record is corrupt
-            //skip reading any further extra data records
-            break;
-          }
+          //If this is the case, then extra data record is corrupt
+          //skip reading any further extra data records
+          break;
         }
+      }
 
-        extraDataRecord.setSizeOfData(sizeOfRec);
-        counter = counter + 2;
+      extraDataRecord.setSizeOfData(sizeOfRec);
+      counter = counter + 2;
 
-        if (sizeOfRec > 0) {
-          byte[] data = new byte[sizeOfRec];
-          System.arraycopy(extraFieldBuf, counter, data, 0, sizeOfRec);
-          extraDataRecord.setData(data);
-        }
-        counter = counter + sizeOfRec;
-        extraDataList.add(extraDataRecord);
+      if (sizeOfRec > 0) {
+        byte[] data = new byte[sizeOfRec];
+        System.arraycopy(extraFieldBuf, counter, data, 0, sizeOfRec);
+        extraDataRecord.setData(data);
       }
-      if (extraDataList.size() > 0) {
-        return extraDataList;
-      } else {
-        return null;
-      }
-    } catch (IOException e) {
-      throw new ZipException(e);
+      counter = counter + sizeOfRec;
+      extraDataList.add(extraDataRecord);
+    }
+    if (extraDataList.size() > 0) {
+      return extraDataList;
+    } else {
+      return null;
     }
   }
 
@@ -540,7 +550,7 @@ public class HeaderReader {
    * @return {@link Zip64EndOfCentralDirectoryLocator}
    * @throws ZipException
    */
-  private Zip64EndOfCentralDirectoryLocator readZip64EndCentralDirLocator(RandomAccessFile zip4jRaf) throws ZipException {
+  private Zip64EndOfCentralDirectoryLocator readZip64EndCentralDirLocator(SeekableByteChannel zip4jRaf) throws ZipException {
 
     try {
       Zip64EndOfCentralDirectoryLocator zip64EndOfCentralDirectoryLocator = new Zip64EndOfCentralDirectoryLocator();
@@ -585,7 +595,7 @@ public class HeaderReader {
    * @return {@link Zip64EndOfCentralDirectoryRecord}
    * @throws ZipException
    */
-  private Zip64EndOfCentralDirectoryRecord readZip64EndCentralDirRec(RandomAccessFile zip4jRaf) throws ZipException {
+  private Zip64EndOfCentralDirectoryRecord readZip64EndCentralDirRec(SeekableByteChannel zip4jRaf) throws ZipException {
 
     if (zipModel.getZip64EndOfCentralDirectoryLocator() == null) {
       throw new ZipException("invalid zip64 end of central directory locator");
@@ -599,7 +609,7 @@ public class HeaderReader {
     }
 
     try {
-      zip4jRaf.seek(offSetStartOfZip64CentralDir);
+      zip4jRaf.position(offSetStartOfZip64CentralDir);
 
       Zip64EndOfCentralDirectoryRecord zip64EndOfCentralDirectoryRecord = new Zip64EndOfCentralDirectoryRecord();
 
@@ -817,14 +827,14 @@ public class HeaderReader {
    *
    * @throws ZipException
    */
-  private void setFilePointerToReadZip64EndCentralDirLoc(RandomAccessFile zip4jRaf) throws ZipException {
+  private void setFilePointerToReadZip64EndCentralDirLoc(SeekableByteChannel zip4jRaf) throws ZipException {
     try {
       byte[] ebs = new byte[4];
-      long pos = zip4jRaf.length() - ENDHDR;
+      long pos = zip4jRaf.size() - ENDHDR;
 
       do {
-        zip4jRaf.seek(pos--);
-      } while (Raw.readLeInt(zip4jRaf, ebs) != HeaderSignature.END_OF_CENTRAL_DIRECTORY.getValue());
+        zip4jRaf.position(pos--);
+      } while (Raw.readIntLittleEndian(readIntoBuff(zip4jRaf, ebs), 0) != HeaderSignature.END_OF_CENTRAL_DIRECTORY.getValue());
 
       // Now the file pointer is at the end of signature of Central Dir Rec
       // Seek back with the following values
@@ -835,7 +845,7 @@ public class HeaderReader {
       // 4 -> zip64 end of central dir locator signature
       // Refer to Appnote for more information
       //TODO: Donot harcorde these values. Make use of ZipConstants
-      zip4jRaf.seek(zip4jRaf.getFilePointer() - 4 - 4 - 8 - 4 - 4);
+      zip4jRaf.position(zip4jRaf.position() - 4 - 4 - 8 - 4 - 4);
     } catch (IOException e) {
       throw new ZipException(e);
     }
@@ -849,6 +859,20 @@ public class HeaderReader {
    * @throws ZipException
    */
   public LocalFileHeader readLocalFileHeader(RandomAccessFile zip4jRaf, FileHeader fileHeader) throws ZipException {
+    if (zip4jRaf == null) {
+      throw new ZipException("invalid read parameters for local header");
+    }
+    return readLocalFileHeader(zip4jRaf.getChannel(), fileHeader);
+  }
+
+  /**
+   * Reads local file header for the given file header from the input channel
+   *
+   * @param fileHeader
+   * @return {@link LocalFileHeader}
+   * @throws ZipException
+   */
+  public LocalFileHeader readLocalFileHeader(SeekableByteChannel zip4jRaf, FileHeader fileHeader) throws ZipException {
     if (fileHeader == null || zip4jRaf == null) {
       throw new ZipException("invalid read parameters for local header");
     }
@@ -867,7 +891,7 @@ public class HeaderReader {
     }
 
     try {
-      zip4jRaf.seek(locHdrOffset);
+      zip4jRaf.position(locHdrOffset);
 
       int length = 0;
       LocalFileHeader localFileHeader = new LocalFileHeader();
@@ -909,7 +933,7 @@ public class HeaderReader {
       //compression method
       readIntoBuff(zip4jRaf, shortBuff);
       int compressionTypeCode = Raw.readShortLittleEndian(shortBuff, 0);
-      localFileHeader.setCompressionMethod(CompressionMethod.getCompressionMethodFromCode(compressionTypeCode));
+      localFileHeader.setCompressionMethodId(compressionTypeCode);
       length += 2;
 
       //last mod file time
@@ -1058,7 +1082,7 @@ public class HeaderReader {
       //compression method
       inputStream.read(shortBuff);
       int compressionTypeCode = Raw.readShortLittleEndian(shortBuff, 0);
-      localFileHeader.setCompressionMethod(CompressionMethod.getCompressionMethodFromCode(compressionTypeCode));
+      localFileHeader.setCompressionMethodId(compressionTypeCode);
       length += 2;
 
       //last mod file time
@@ -1265,8 +1289,7 @@ public class HeaderReader {
         System.arraycopy(aesData, 2, vendorIDBytes, 0, 2);
         aesExtraDataRecord.setVendorID(new String(vendorIDBytes));
         aesExtraDataRecord.setAesKeyStrength(AesKeyStrength.getAesKeyStrengthFromRawCode(aesData[4] & 0xFF));
-        aesExtraDataRecord.setCompressionMethod(
-            CompressionMethod.getCompressionMethodFromCode(Raw.readShortLittleEndian(aesData, 5)));
+        aesExtraDataRecord.setCompressionMethodId(Raw.readShortLittleEndian(aesData, 5));
 
         return aesExtraDataRecord;
       }
@@ -1275,13 +1298,15 @@ public class HeaderReader {
     return null;
   }
 
-  private byte[] readIntoBuff(RandomAccessFile zip4jRaf, byte[] buf) throws ZipException {
+  private byte[] readIntoBuff(SeekableByteChannel zip4jRaf, byte[] buf) throws ZipException {
     try {
-      if (zip4jRaf.read(buf, 0, buf.length) != -1) {
-        return buf;
-      } else {
-        throw new ZipException("unexpected end of file when reading into buffer");
+      ByteBuffer byteBuffer = ByteBuffer.wrap(buf);
+      while (byteBuffer.hasRemaining()) {
+        if (zip4jRaf.read(byteBuffer) == -1) {
+          throw new ZipException("unexpected end of file when reading into buffer");
+        }
       }
+      return buf;
     } catch (IOException e) {
       throw new ZipException("IOException when reading short buff", e);
     }
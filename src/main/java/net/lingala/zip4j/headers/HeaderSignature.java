@@ -12,7 +12,8 @@ public enum HeaderSignature {
   ZIP64_END_CENTRAL_DIRECTORY_LOCATOR(0x07064b50L),
   ZIP64_END_CENTRAL_DIRECTORY_RECORD(0x06064b50),
   ZIP64_EXTRA_FIELD_LENGTH(0x0001),
-  AES_EXTRA_DATA_RECORD(0x9901);
+  AES_EXTRA_DATA_RECORD(0x9901),
+  ALIGNMENT_EXTRA_DATA_RECORD(0xd935);
 
   private long value;
 
@@ -34,6 +34,7 @@ import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.List;
 
+import static net.lingala.zip4j.util.InternalZipConstants.LOCAL_FILE_HEADER_FIXED_LENGTH;
 import static net.lingala.zip4j.util.InternalZipConstants.UPDATE_LFH_COMP_SIZE;
 import static net.lingala.zip4j.util.InternalZipConstants.UPDATE_LFH_CRC;
 import static net.lingala.zip4j.util.InternalZipConstants.UPDATE_LFH_UNCOMP_SIZE;
@@ -41,10 +42,30 @@ import static net.lingala.zip4j.util.InternalZipConstants.ZIP_64_LIMIT;
 
 public class HeaderWriter {
 
+  // Header id, data size and alignment of the alignment extra data record
+  private static final int MIN_ALIGNMENT_PADDING_LENGTH = 6;
+
   private final int ZIP64_EXTRA_BUF = 50;
 
   public int writeLocalFileHeader(ZipModel zipModel, LocalFileHeader localFileHeader,
                                   OutputStream outputStream) throws ZipException {
+    return writeLocalFileHeader(zipModel, localFileHeader, outputStream, 0, 0);
+  }
+
+  /**
+   * Writes the local file header, padding its extra field so that the entry data following the header starts at a
+   * multiple of dataAlignment in the output
+   *
+   * @param zipModel
+   * @param localFileHeader
+   * @param outputStream
+   * @param offsetLocalHeader offset at which the local file header is written
+   * @param dataAlignment     alignment of the entry data, or 0 to not pad the header
+   * @return number of bytes written
+   * @throws ZipException
+   */
+  public int writeLocalFileHeader(ZipModel zipModel, LocalFileHeader localFileHeader, OutputStream outputStream,
+                                  long offsetLocalHeader, int dataAlignment) throws ZipException {
     if (localFileHeader == null) {
       throw new ZipException("input parameters are null, cannot write local file header");
     }
@@ -64,7 +85,7 @@ public class HeaderWriter {
       //General Purpose bit flags
       copyByteArrayToArrayList(localFileHeader.getGeneralPurposeFlag(), byteArrayList);
       //Compression Method
-      Raw.writeShortLittleEndian(shortByte, 0, (short) localFileHeader.getCompressionMethod().getCode());
+      Raw.writeShortLittleEndian(shortByte, 0, (short) localFileHeader.getCompressionMethodId());
       copyByteArrayToArrayList(shortByte, byteArrayList);
       //File modified time
       int dateTime = localFileHeader.getLastModifiedTime();
@@ -111,6 +132,12 @@ public class HeaderWriter {
       if (localFileHeader.getAesExtraDataRecord() != null) {
         extraFieldLength += 11;
       }
+      int alignmentPaddingLength = getAlignmentPaddingLength(offsetLocalHeader + LOCAL_FILE_HEADER_FIXED_LENGTH
+          + localFileHeader.getFileNameLength() + extraFieldLength, dataAlignment);
+      extraFieldLength += alignmentPaddingLength;
+      if (extraFieldLength > 0xffff) {
+        throw new ZipException("data alignment is too large: " + dataAlignment);
+      }
       Raw.writeShortLittleEndian(shortByte, 0, (short) (extraFieldLength));
       copyByteArrayToArrayList(shortByte, byteArrayList);
       if (Zip4jUtil.isStringNotNullAndNotEmpty(zipModel.getFileNameCharset())) {
@@ -159,9 +186,19 @@ public class HeaderWriter {
         aesStrengthBytes[0] = (byte) aesExtraDataRecord.getAesKeyStrength().getRawCode();
         copyByteArrayToArrayList(aesStrengthBytes, byteArrayList);
 
-        Raw.writeShortLittleEndian(shortByte, 0, (short) aesExtraDataRecord.getCompressionMethod().getCode());
+        Raw.writeShortLittleEndian(shortByte, 0, (short) aesExtraDataRecord.getCompressionMethodId());
         copyByteArrayToArrayList(shortByte, byteArrayList);
       }
+
+      if (alignmentPaddingLength > 0) {
+        Raw.writeShortLittleEndian(shortByte, 0, (short) HeaderSignature.ALIGNMENT_EXTRA_DATA_RECORD.getValue());
+        copyByteArrayToArrayList(shortByte, byteArrayList);
+        Raw.writeShortLittleEndian(shortByte, 0, (short) (alignmentPaddingLength - 4));
+        copyByteArrayToArrayList(shortByte, byteArrayList);
+        Raw.writeShortLittleEndian(shortByte, 0, (short) dataAlignment);
+        copyByteArrayToArrayList(shortByte, byteArrayList);
+        copyByteArrayToArrayList(new byte[alignmentPaddingLength - MIN_ALIGNMENT_PADDING_LENGTH], byteArrayList);
+      }
       byte[] lhBytes = byteArrayListToByteArray(byteArrayList);
       outputStream.write(lhBytes);
       return lhBytes.length;
@@ -433,7 +470,7 @@ public class HeaderWriter {
       copyByteArrayToArrayList(fileHeader.getGeneralPurposeFlag(), headerBytesList);
       sizeOfFileHeader += 2;
 
-      Raw.writeShortLittleEndian(shortByte, 0, (short) fileHeader.getCompressionMethod().getCode());
+      Raw.writeShortLittleEndian(shortByte, 0, (short) fileHeader.getCompressionMethodId());
       copyByteArrayToArrayList(shortByte, headerBytesList);
       sizeOfFileHeader += 2;
 
@@ -596,7 +633,7 @@ public class HeaderWriter {
         aesStrengthBytes[0] = (byte) aesExtraDataRecord.getAesKeyStrength().getRawCode();
         copyByteArrayToArrayList(aesStrengthBytes, headerBytesList);
 
-        Raw.writeShortLittleEndian(shortByte, 0, (short) aesExtraDataRecord.getCompressionMethod().getCode());
+        Raw.writeShortLittleEndian(shortByte, 0, (short) aesExtraDataRecord.getCompressionMethodId());
         copyByteArrayToArrayList(shortByte, headerBytesList);
 
         sizeOfFileHeader += 11;
@@ -902,6 +939,15 @@ public class HeaderWriter {
 
   }
 
+  private int getAlignmentPaddingLength(long offsetStartOfData, int dataAlignment) {
+    if (dataAlignment <= 1) {
+      return 0;
+    }
+
+    long unalignedBytes = (offsetStartOfData + MIN_ALIGNMENT_PADDING_LENGTH) % dataAlignment;
+    return (int) ((dataAlignment - unalignedBytes) % dataAlignment) + MIN_ALIGNMENT_PADDING_LENGTH;
+  }
+
   private void copyByteArrayToArrayList(byte[] byteArray, List arrayList) throws ZipException {
     if (arrayList == null || byteArray == null) {
       throw new ZipException("one of the input parameters is null, cannot copy byte array to array list");
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2010 Srikanth Reddy Lingala
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.lingala.zip4j.io.channel;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.channels.SeekableByteChannel;
+
+/**
+ * Read only channel over the content of a byte buffer, which can be used to read a zip file held in memory
+ * with {@link net.lingala.zip4j.ZipFile#ZipFile(SeekableByteChannel)}
+ */
+public class ByteBufferSeekableByteChannel implements SeekableByteChannel {
+
+  private ByteBuffer byteBuffer;
+  private boolean open = true;
+
+  public ByteBufferSeekableByteChannel(byte[] bytes) {
+    this(ByteBuffer.wrap(bytes));
+  }
+
+  public ByteBufferSeekableByteChannel(ByteBuffer byteBuffer) {
+    this.byteBuffer = byteBuffer.slice();
+  }
+
+  @Override
+  public int read(ByteBuffer dst) throws IOException {
+    checkOpen();
+
+    if (!byteBuffer.hasRemaining()) {
+      return -1;
+    }
+
+    int readLen = Math.min(dst.remaining(), byteBuffer.remaining());
+    ByteBuffer src = byteBuffer.duplicate();
+    src.limit(src.position() + readLen);
+    dst.put(src);
+    byteBuffer.position(byteBuffer.position() + readLen);
+    return readLen;
+  }
+
+  @Override
+  public int write(ByteBuffer src) {
+    throw new NonWritableChannelException();
+  }
+
+  @Override
+  public long position() throws IOException {
+    checkOpen();
+    return byteBuffer.position();
+  }
+
+  @Override
+  public SeekableByteChannel position(long newPosition) throws IOException {
+    checkOpen();
+
+    if (newPosition < 0) {
+      throw new IllegalArgumentException("negative position: " + newPosition);
+    }
+
+    byteBuffer.position((int) Math.min(newPosition, byteBuffer.limit()));
+    return this;
+  }
+
+  @Override
+  public long size() throws IOException {
+    checkOpen();
+    return byteBuffer.limit();
+  }
+
+  @Override
+  public SeekableByteChannel truncate(long size) {
+    throw new NonWritableChannelException();
+  }
+
+  @Override
+  public boolean isOpen() {
+    return open;
+  }
+
+  @Override
+  public void close() {
+    open = false;
+  }
+
+  private void checkOpen() throws ClosedChannelException {
+    if (!open) {
+      throw new ClosedChannelException();
+    }
+  }
+}
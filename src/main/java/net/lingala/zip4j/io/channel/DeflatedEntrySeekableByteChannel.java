@@ -0,0 +1,164 @@
+/*
+ * Copyright 2010 Srikanth Reddy Lingala
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.lingala.zip4j.io.channel;
+
+import net.lingala.zip4j.io.inputstream.ChannelRangeInputStream;
+import net.lingala.zip4j.io.inputstream.DeflateDecoder;
+import net.lingala.zip4j.model.DeflateCheckpointIndex;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.channels.SeekableByteChannel;
+
+/**
+ * Read only view of the decompressed data of a deflated entry, which supports reading from any position. Reads
+ * resume decompression from the nearest checkpoint of a {@link DeflateCheckpointIndex} at or before the position,
+ * and sequential reads continue with the current decoder. As data is read at arbitrary positions, the CRC of the
+ * entry is not verified
+ */
+public class DeflatedEntrySeekableByteChannel implements SeekableByteChannel {
+
+  private SeekableByteChannel zipFileChannel;
+  private long offsetStartOfData;
+  private long compressedSize;
+  private long uncompressedSize;
+  private DeflateCheckpointIndex checkpointIndex;
+  private boolean closeZipFileChannel;
+
+  private long position;
+  private boolean open = true;
+  private DeflateDecoder decoder;
+  private long decoderPosition;
+  private byte[] buff = new byte[4096];
+
+  public DeflatedEntrySeekableByteChannel(SeekableByteChannel zipFileChannel, long offsetStartOfData,
+                                          long compressedSize, long uncompressedSize,
+                                          DeflateCheckpointIndex checkpointIndex, boolean closeZipFileChannel) {
+    this.zipFileChannel = zipFileChannel;
+    this.offsetStartOfData = offsetStartOfData;
+    this.compressedSize = compressedSize;
+    this.uncompressedSize = uncompressedSize;
+    this.checkpointIndex = checkpointIndex;
+    this.closeZipFileChannel = closeZipFileChannel;
+  }
+
+  @Override
+  public int read(ByteBuffer dst) throws IOException {
+    checkOpen();
+
+    if (position >= uncompressedSize) {
+      return -1;
+    }
+
+    positionDecoder();
+
+    int readLen = (int) Math.min(Math.min(dst.remaining(), buff.length), uncompressedSize - position);
+    int maxReadLen = readLen;
+    do {
+      readLen = decoder.read(buff, 0, maxReadLen);
+    } while (readLen == 0);
+
+    if (readLen < 0) {
+      throw new EOFException("unexpected end of deflated entry data");
+    }
+
+    dst.put(buff, 0, readLen);
+    position += readLen;
+    decoderPosition += readLen;
+    return readLen;
+  }
+
+  private void positionDecoder() throws IOException {
+    DeflateCheckpointIndex.Checkpoint checkpoint = checkpointIndex.getCheckpointFor(position);
+
+    if (decoder == null || decoderPosition > position || checkpoint.getUncompressedOffset() > decoderPosition) {
+      long bitOffset = checkpoint.getBitOffset();
+      ChannelRangeInputStream compressedData = new ChannelRangeInputStream(zipFileChannel,
+          offsetStartOfData + bitOffset / 8, offsetStartOfData + compressedSize);
+      decoder = new DeflateDecoder(compressedData, (int) (bitOffset % 8), checkpoint.getWindow());
+      decoderPosition = checkpoint.getUncompressedOffset();
+    }
+
+    while (decoderPosition < position) {
+      int readLen = decoder.read(buff, 0, (int) Math.min(buff.length, position - decoderPosition));
+      if (readLen < 0) {
+        throw new EOFException("unexpected end of deflated entry data");
+      }
+      decoderPosition += readLen;
+    }
+  }
+
+  @Override
+  public int write(ByteBuffer src) {
+    throw new NonWritableChannelException();
+  }
+
+  @Override
+  public long position() throws IOException {
+    checkOpen();
+    return position;
+  }
+
+  @Override
+  public SeekableByteChannel position(long newPosition) throws IOException {
+    checkOpen();
+
+    if (newPosition < 0) {
+      throw new IllegalArgumentException("negative position: " + newPosition);
+    }
+
+    position = newPosition;
+    return this;
+  }
+
+  @Override
+  public long size() throws IOException {
+    checkOpen();
+    return uncompressedSize;
+  }
+
+  @Override
+  public SeekableByteChannel truncate(long size) {
+    throw new NonWritableChannelException();
+  }
+
+  @Override
+  public boolean isOpen() {
+    return open;
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (!open) {
+      return;
+    }
+
+    open = false;
+    if (closeZipFileChannel) {
+      zipFileChannel.close();
+    }
+  }
+
+  private void checkOpen() throws ClosedChannelException {
+    if (!open) {
+      throw new ClosedChannelException();
+    }
+  }
+}
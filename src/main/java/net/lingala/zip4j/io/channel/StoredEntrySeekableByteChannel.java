@@ -0,0 +1,142 @@
+/*
+ * Copyright 2010 Srikanth Reddy Lingala
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.lingala.zip4j.io.channel;
+
+import net.lingala.zip4j.util.Zip4jUtil;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.channels.SeekableByteChannel;
+
+/**
+ * Read only view of the data of an entry stored without compression and encryption. Position 0 of this channel
+ * is the first byte of the entry data in the zip file, and reads are mapped directly onto the byte range of the
+ * entry in the zip file channel, so that any position can be read without reading the data before it. As data is
+ * read at arbitrary positions, the CRC of the entry is not verified
+ */
+public class StoredEntrySeekableByteChannel implements SeekableByteChannel {
+
+  private SeekableByteChannel zipFileChannel;
+  private long offsetStartOfData;
+  private long size;
+  private boolean closeZipFileChannel;
+  private long position;
+  private boolean open = true;
+
+  /**
+   * @param zipFileChannel      channel of the complete zip file
+   * @param offsetStartOfData   offset of the entry data in the zip file
+   * @param size                size of the entry data
+   * @param closeZipFileChannel if the zip file channel has to be closed when this channel is closed
+   */
+  public StoredEntrySeekableByteChannel(SeekableByteChannel zipFileChannel, long offsetStartOfData, long size,
+                                        boolean closeZipFileChannel) {
+    this.zipFileChannel = zipFileChannel;
+    this.offsetStartOfData = offsetStartOfData;
+    this.size = size;
+    this.closeZipFileChannel = closeZipFileChannel;
+  }
+
+  @Override
+  public int read(ByteBuffer dst) throws IOException {
+    checkOpen();
+
+    if (position >= size) {
+      return -1;
+    }
+
+    int readLen;
+    long bytesRemaining = size - position;
+    if (dst.remaining() > bytesRemaining) {
+      // Do not read past the end of the entry into the next header
+      ByteBuffer limitedDst = dst.duplicate();
+      limitedDst.limit(limitedDst.position() + (int) bytesRemaining);
+      readLen = Zip4jUtil.readFromChannel(zipFileChannel, limitedDst, offsetStartOfData + position);
+      if (readLen > 0) {
+        dst.position(dst.position() + readLen);
+      }
+    } else {
+      readLen = Zip4jUtil.readFromChannel(zipFileChannel, dst, offsetStartOfData + position);
+    }
+
+    if (readLen < 0) {
+      throw new IOException("unexpected end of zip file when reading entry data");
+    }
+
+    position += readLen;
+    return readLen;
+  }
+
+  @Override
+  public int write(ByteBuffer src) {
+    throw new NonWritableChannelException();
+  }
+
+  @Override
+  public long position() throws IOException {
+    checkOpen();
+    return position;
+  }
+
+  @Override
+  public SeekableByteChannel position(long newPosition) throws IOException {
+    checkOpen();
+
+    if (newPosition < 0) {
+      throw new IllegalArgumentException("negative position: " + newPosition);
+    }
+
+    position = newPosition;
+    return this;
+  }
+
+  @Override
+  public long size() throws IOException {
+    checkOpen();
+    return size;
+  }
+
+  @Override
+  public SeekableByteChannel truncate(long size) {
+    throw new NonWritableChannelException();
+  }
+
+  @Override
+  public boolean isOpen() {
+    return open;
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (!open) {
+      return;
+    }
+
+    open = false;
+    if (closeZipFileChannel) {
+      zipFileChannel.close();
+    }
+  }
+
+  private void checkOpen() throws ClosedChannelException {
+    if (!open) {
+      throw new ClosedChannelException();
+    }
+  }
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2010 Srikanth Reddy Lingala
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.lingala.zip4j.io.codec;
+
+import net.lingala.zip4j.model.ZipParameters;
+import net.lingala.zip4j.zip.CompressionMethod;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Codec for BZip2 compressed entries (method 12). The compression level of the entry is used as block size in
+ * units of 100KB
+ */
+public class BZip2Codec implements CompressionCodec {
+
+  @Override
+  public int getMethodId() {
+    return CompressionMethod.BZIP2.getCode();
+  }
+
+  @Override
+  public OutputStream createCompressingStream(OutputStream outputStream, ZipParameters zipParameters)
+      throws IOException {
+    return new BZip2CompressorOutputStream(outputStream, zipParameters.getCompressionLevel().getLevel());
+  }
+
+  @Override
+  public InputStream createDecompressingStream(InputStream inputStream) {
+    return new BZip2CompressorInputStream(inputStream);
+  }
+}
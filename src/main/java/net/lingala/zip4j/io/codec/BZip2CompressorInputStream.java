@@ -0,0 +1,435 @@
+/*
+ * Copyright 2010 Srikanth Reddy Lingala
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.lingala.zip4j.io.codec;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+import static net.lingala.zip4j.io.codec.BZip2Constants.BLOCK_MAGIC;
+import static net.lingala.zip4j.io.codec.BZip2Constants.BLOCK_SIZE_UNIT;
+import static net.lingala.zip4j.io.codec.BZip2Constants.END_OF_STREAM_MAGIC;
+import static net.lingala.zip4j.io.codec.BZip2Constants.GROUP_SIZE;
+import static net.lingala.zip4j.io.codec.BZip2Constants.MAX_ALPHA_SIZE;
+import static net.lingala.zip4j.io.codec.BZip2Constants.MAX_CODE_LENGTH;
+import static net.lingala.zip4j.io.codec.BZip2Constants.MAX_GROUPS;
+import static net.lingala.zip4j.io.codec.BZip2Constants.MAX_SELECTORS;
+import static net.lingala.zip4j.io.codec.BZip2Constants.MIN_GROUPS;
+import static net.lingala.zip4j.io.codec.BZip2Constants.RUNA;
+import static net.lingala.zip4j.io.codec.BZip2Constants.RUNB;
+import static net.lingala.zip4j.io.codec.BZip2Constants.combineCrc;
+import static net.lingala.zip4j.io.codec.BZip2Constants.updateCrc;
+
+/**
+ * Pure Java decompressor of a single bzip2 stream. Compressed data is read one byte at a time and only as far as
+ * needed, so the input stream is never read beyond the end of the bzip2 stream. Block and stream checksums are
+ * verified
+ */
+public class BZip2CompressorInputStream extends InputStream {
+
+  private InputStream inputStream;
+  private int bitBuffer;
+  private int bitsInBuffer;
+
+  private int[] tt;
+  private int blockLength;
+  private int blockPosition;
+  private int tPos;
+  private int storedBlockCrc;
+  private int blockCrc;
+  private int combinedCrc;
+
+  private int lastChar = -1;
+  private int sameCharCount;
+  private int repeatRemaining;
+  private int repeatChar;
+
+  private boolean streamStarted;
+  private boolean endOfStream;
+  private byte[] singleByteBuffer = new byte[1];
+
+  public BZip2CompressorInputStream(InputStream inputStream) {
+    this.inputStream = inputStream;
+  }
+
+  @Override
+  public int read() throws IOException {
+    int readLen = read(singleByteBuffer, 0, 1);
+
+    if (readLen == -1) {
+      return -1;
+    }
+
+    return singleByteBuffer[0] & 0xff;
+  }
+
+  @Override
+  public int read(byte[] b, int off, int len) throws IOException {
+    if (len == 0) {
+      return 0;
+    }
+
+    if (!streamStarted) {
+      readStreamHeader();
+      streamStarted = true;
+    }
+
+    int readLen = 0;
+    while (readLen < len) {
+      if (repeatRemaining > 0) {
+        b[off + readLen++] = (byte) repeatChar;
+        blockCrc = updateCrc(blockCrc, repeatChar);
+        repeatRemaining--;
+        continue;
+      }
+
+      if (blockPosition == blockLength) {
+        if (endOfStream || !readNextBlock()) {
+          break;
+        }
+        continue;
+      }
+
+      tPos = tt[tPos];
+      int c = tPos & 0xff;
+      tPos >>>= 8;
+      blockPosition++;
+
+      if (sameCharCount == 4) {
+        repeatChar = lastChar;
+        repeatRemaining = c;
+        sameCharCount = 0;
+        lastChar = -1;
+        continue;
+      }
+
+      if (c == lastChar) {
+        sameCharCount++;
+      } else {
+        lastChar = c;
+        sameCharCount = 1;
+      }
+
+      b[off + readLen++] = (byte) c;
+      blockCrc = updateCrc(blockCrc, c);
+    }
+
+    return readLen == 0 ? -1 : readLen;
+  }
+
+  private void readStreamHeader() throws IOException {
+    if (getBits(8) != 'B' || getBits(8) != 'Z' || getBits(8) != 'h') {
+      throw new IOException("invalid bzip2 stream header");
+    }
+
+    int blockSize100k = getBits(8) - '0';
+    if (blockSize100k < 1 || blockSize100k > 9) {
+      throw new IOException("invalid bzip2 block size");
+    }
+
+    tt = new int[blockSize100k * BLOCK_SIZE_UNIT];
+  }
+
+  /**
+   * Verifies the checksum of the current block and decodes the next one
+   *
+   * @return false if the end of the stream was reached
+   * @throws IOException
+   */
+  private boolean readNextBlock() throws IOException {
+    if (tt != null && blockLength > 0) {
+      int computedBlockCrc = ~blockCrc;
+      if (computedBlockCrc != storedBlockCrc) {
+        throw new IOException("bzip2 block checksum mismatch");
+      }
+      combinedCrc = combineCrc(combinedCrc, computedBlockCrc);
+    }
+
+    long magic = ((long) getBits(24) << 24) | getBits(24);
+    if (magic == END_OF_STREAM_MAGIC) {
+      int storedCombinedCrc = getInt();
+      if (storedCombinedCrc != combinedCrc) {
+        throw new IOException("bzip2 stream checksum mismatch");
+      }
+      endOfStream = true;
+      blockLength = 0;
+      blockPosition = 0;
+      return false;
+    }
+
+    if (magic != BLOCK_MAGIC) {
+      throw new IOException("invalid bzip2 block header");
+    }
+
+    storedBlockCrc = getInt();
+    if (getBits(1) != 0) {
+      throw new IOException("randomised bzip2 blocks are not supported");
+    }
+    int originalPointer = getBits(24);
+
+    decodeBlock();
+
+    if (originalPointer >= blockLength) {
+      throw new IOException("invalid bzip2 block pointer");
+    }
+
+    tPos = tt[originalPointer] >>> 8;
+    blockPosition = 0;
+    blockCrc = 0xffffffff;
+    lastChar = -1;
+    sameCharCount = 0;
+    return true;
+  }
+
+  private void decodeBlock() throws IOException {
+    int[] seqToUnseq = new int[256];
+    int numberInUse = 0;
+    int inUse16 = getBits(16);
+    for (int i = 0; i < 16; i++) {
+      if ((inUse16 & (1 << (15 - i))) != 0) {
+        int bits = getBits(16);
+        for (int j = 0; j < 16; j++) {
+          if ((bits & (1 << (15 - j))) != 0) {
+            seqToUnseq[numberInUse++] = i * 16 + j;
+          }
+        }
+      }
+    }
+
+    if (numberInUse == 0) {
+      throw new IOException("invalid bzip2 symbol map");
+    }
+
+    int alphaSize = numberInUse + 2;
+    int numberOfGroups = getBits(3);
+    int numberOfSelectors = getBits(15);
+    if (numberOfGroups < MIN_GROUPS || numberOfGroups > MAX_GROUPS || numberOfSelectors < 1
+        || numberOfSelectors > MAX_SELECTORS) {
+      throw new IOException("invalid bzip2 huffman tables");
+    }
+
+    byte[] selectors = readSelectors(numberOfSelectors, numberOfGroups);
+
+    int[][] limits = new int[numberOfGroups][MAX_CODE_LENGTH + 3];
+    int[][] bases = new int[numberOfGroups][MAX_CODE_LENGTH + 3];
+    int[][] perms = new int[numberOfGroups][MAX_ALPHA_SIZE];
+    int[] minLengths = new int[numberOfGroups];
+    int[] lengths = new int[alphaSize];
+    for (int t = 0; t < numberOfGroups; t++) {
+      int current = getBits(5);
+      for (int i = 0; i < alphaSize; i++) {
+        while (true) {
+          if (current < 1 || current > MAX_CODE_LENGTH) {
+            throw new IOException("invalid bzip2 code length");
+          }
+          if (getBits(1) == 0) {
+            break;
+          }
+          current += getBits(1) == 0 ? 1 : -1;
+        }
+        lengths[i] = current;
+      }
+      minLengths[t] = createDecodeTables(limits[t], bases[t], perms[t], lengths, alphaSize);
+    }
+
+    decodeMtfValues(selectors, numberOfSelectors, limits, bases, perms, minLengths, seqToUnseq, numberInUse);
+  }
+
+  private byte[] readSelectors(int numberOfSelectors, int numberOfGroups) throws IOException {
+    byte[] order = new byte[numberOfGroups];
+    for (int i = 0; i < numberOfGroups; i++) {
+      order[i] = (byte) i;
+    }
+
+    byte[] selectors = new byte[numberOfSelectors];
+    for (int i = 0; i < numberOfSelectors; i++) {
+      int j = 0;
+      while (getBits(1) == 1) {
+        j++;
+        if (j >= numberOfGroups) {
+          throw new IOException("invalid bzip2 selector");
+        }
+      }
+
+      byte selector = order[j];
+      System.arraycopy(order, 0, order, 1, j);
+      order[0] = selector;
+      selectors[i] = selector;
+    }
+    return selectors;
+  }
+
+  /**
+   * Creates the tables for decoding canonical Huffman codes: codes of a length are consecutive, so a code of length
+   * n is valid if it is not above limit[n], and base[n] maps it to the index in perm
+   */
+  private int createDecodeTables(int[] limit, int[] base, int[] perm, int[] lengths, int alphaSize) {
+    int minLength = 32;
+    int maxLength = 0;
+    for (int i = 0; i < alphaSize; i++) {
+      minLength = Math.min(minLength, lengths[i]);
+      maxLength = Math.max(maxLength, lengths[i]);
+    }
+
+    int p = 0;
+    for (int length = minLength; length <= maxLength; length++) {
+      for (int i = 0; i < alphaSize; i++) {
+        if (lengths[i] == length) {
+          perm[p++] = i;
+        }
+      }
+    }
+
+    for (int i = 0; i < alphaSize; i++) {
+      base[lengths[i] + 1]++;
+    }
+    for (int i = 1; i < base.length; i++) {
+      base[i] += base[i - 1];
+    }
+
+    int code = 0;
+    for (int length = minLength; length <= maxLength; length++) {
+      code += base[length + 1] - base[length];
+      limit[length] = code - 1;
+      code <<= 1;
+    }
+    for (int length = minLength + 1; length <= maxLength; length++) {
+      base[length] = ((limit[length - 1] + 1) << 1) - base[length];
+    }
+    return minLength;
+  }
+
+  private void decodeMtfValues(byte[] selectors, int numberOfSelectors, int[][] limits, int[][] bases,
+                               int[][] perms, int[] minLengths, int[] seqToUnseq, int numberInUse)
+      throws IOException {
+    int endOfBlock = numberInUse + 1;
+    int[] order = new int[256];
+    for (int i = 0; i < 256; i++) {
+      order[i] = i;
+    }
+
+    int[] charCounts = new int[256];
+    int maxBlockLength = tt.length;
+    int length = 0;
+    int selectorIndex = -1;
+    int groupRemaining = 0;
+    int table = 0;
+    int runLength = 0;
+    int runWeight = 1;
+
+    while (true) {
+      if (groupRemaining == 0) {
+        selectorIndex++;
+        if (selectorIndex >= numberOfSelectors) {
+          throw new IOException("invalid bzip2 selector count");
+        }
+        table = selectors[selectorIndex];
+        groupRemaining = GROUP_SIZE;
+      }
+      groupRemaining--;
+
+      int symbol = decodeSymbol(limits[table], bases[table], perms[table], minLengths[table], numberInUse + 2);
+
+      if (symbol == RUNA || symbol == RUNB) {
+        runLength += (symbol + 1) * runWeight;
+        runWeight <<= 1;
+        if (runLength > maxBlockLength) {
+          throw new IOException("bzip2 block too long");
+        }
+        continue;
+      }
+
+      if (runLength > 0) {
+        if (length + runLength > maxBlockLength) {
+          throw new IOException("bzip2 block too long");
+        }
+        int c = seqToUnseq[order[0]];
+        charCounts[c] += runLength;
+        for (int i = 0; i < runLength; i++) {
+          tt[length++] = c;
+        }
+        runLength = 0;
+        runWeight = 1;
+      }
+
+      if (symbol == endOfBlock) {
+        break;
+      }
+
+      if (length >= maxBlockLength) {
+        throw new IOException("bzip2 block too long");
+      }
+
+      int position = symbol - 1;
+      int value = order[position];
+      System.arraycopy(order, 0, order, 1, position);
+      order[0] = value;
+
+      int c = seqToUnseq[value];
+      charCounts[c]++;
+      tt[length++] = c;
+    }
+
+    // Link each position of the sorted rotations to the rotation following it, keeping the byte in the low bits
+    int[] firstPositions = new int[256];
+    for (int i = 1; i < 256; i++) {
+      firstPositions[i] = firstPositions[i - 1] + charCounts[i - 1];
+    }
+    for (int i = 0; i < length; i++) {
+      int c = tt[i] & 0xff;
+      tt[firstPositions[c]++] |= i << 8;
+    }
+
+    blockLength = length;
+  }
+
+  private int decodeSymbol(int[] limit, int[] base, int[] perm, int minLength, int alphaSize) throws IOException {
+    int length = minLength;
+    int code = getBits(length);
+    while (code > limit[length]) {
+      length++;
+      if (length > MAX_CODE_LENGTH) {
+        throw new IOException("invalid bzip2 huffman code");
+      }
+      code = (code << 1) | getBits(1);
+    }
+
+    int index = code - base[length];
+    if (index < 0 || index >= alphaSize) {
+      throw new IOException("invalid bzip2 huffman code");
+    }
+    return perm[index];
+  }
+
+  private int getInt() throws IOException {
+    return (getBits(16) << 16) | getBits(16);
+  }
+
+  private int getBits(int numberOfBits) throws IOException {
+    while (bitsInBuffer < numberOfBits) {
+      int b = inputStream.read();
+      if (b == -1) {
+        throw new EOFException("Unexpected end of bzip2 stream");
+      }
+      bitBuffer = (bitBuffer << 8) | b;
+      bitsInBuffer += 8;
+    }
+
+    bitsInBuffer -= numberOfBits;
+    return (bitBuffer >> bitsInBuffer) & ((1 << numberOfBits) - 1);
+  }
+}
@@ -0,0 +1,658 @@
+/*
+ * Copyright 2010 Srikanth Reddy Lingala
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.lingala.zip4j.io.codec;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+import static net.lingala.zip4j.io.codec.BZip2Constants.BLOCK_MAGIC;
+import static net.lingala.zip4j.io.codec.BZip2Constants.BLOCK_SIZE_UNIT;
+import static net.lingala.zip4j.io.codec.BZip2Constants.END_OF_STREAM_MAGIC;
+import static net.lingala.zip4j.io.codec.BZip2Constants.GROUP_SIZE;
+import static net.lingala.zip4j.io.codec.BZip2Constants.MAX_ALPHA_SIZE;
+import static net.lingala.zip4j.io.codec.BZip2Constants.MAX_GROUPS;
+import static net.lingala.zip4j.io.codec.BZip2Constants.RUNA;
+import static net.lingala.zip4j.io.codec.BZip2Constants.RUNB;
+import static net.lingala.zip4j.io.codec.BZip2Constants.combineCrc;
+import static net.lingala.zip4j.io.codec.BZip2Constants.updateCrc;
+
+/**
+ * Pure Java BZip2 compressor writing a single bzip2 stream. Input is run length encoded into blocks of up to
+ * 100KB times the block size, and each block is sorted with the Burrows-Wheeler transform, move-to-front coded and
+ * written with up to six Huffman tables. The rotations of a block are sorted by prefix doubling with counting sorts,
+ * which takes O(n log n) time also for highly repetitive data
+ */
+public class BZip2CompressorOutputStream extends OutputStream {
+
+  private static final int MAX_CODE_LENGTH_FOR_ENCODING = 17;
+  private static final int NUMBER_OF_ITERATIONS = 4;
+
+  private OutputStream outputStream;
+  private int blockSize100k;
+  private int maxBlockLength;
+
+  private byte[] block;
+  private int blockLength;
+  private boolean[] inUse = new boolean[256];
+  private int blockCrc = 0xffffffff;
+  private int combinedCrc;
+
+  private int currentChar = -1;
+  private int runLength;
+
+  private int[] sortedRotations;
+  private int[] ranks;
+  private int[] tempRanks;
+  private int[] counts;
+  private char[] mtfValues;
+
+  private byte[] outputBuffer = new byte[4096];
+  private int outputBufferLength;
+  private int bitBuffer;
+  private int bitsInBuffer;
+
+  private byte[] singleByteBuffer = new byte[1];
+  private boolean finished;
+
+  public BZip2CompressorOutputStream(OutputStream outputStream, int blockSize100k) throws IOException {
+    this.outputStream = outputStream;
+    this.blockSize100k = Math.max(1, Math.min(9, blockSize100k));
+    this.block = new byte[this.blockSize100k * BLOCK_SIZE_UNIT];
+    this.maxBlockLength = block.length - 19;
+
+    writeBits(8, 'B');
+    writeBits(8, 'Z');
+    writeBits(8, 'h');
+    writeBits(8, '0' + this.blockSize100k);
+  }
+
+  @Override
+  public void write(int b) throws IOException {
+    singleByteBuffer[0] = (byte) b;
+    write(singleByteBuffer, 0, 1);
+  }
+
+  @Override
+  public void write(byte[] b, int off, int len) throws IOException {
+    if (finished) {
+      throw new IOException("stream is already finished");
+    }
+
+    for (int i = off; i < off + len; i++) {
+      int c = b[i] & 0xff;
+      if (c == currentChar && runLength < 255) {
+        runLength++;
+      } else {
+        if (currentChar != -1) {
+          writeRun();
+        }
+        currentChar = c;
+        runLength = 1;
+      }
+    }
+  }
+
+  /**
+   * Writes all remaining data and the end of stream marker, without closing the underlying output stream
+   *
+   * @throws IOException
+   */
+  public void finish() throws IOException {
+    if (finished) {
+      return;
+    }
+
+    if (currentChar != -1) {
+      writeRun();
+      currentChar = -1;
+    }
+
+    if (blockLength > 0) {
+      writeBlock();
+    }
+
+    writeBits(24, (int) (END_OF_STREAM_MAGIC >>> 24));
+    writeBits(24, (int) (END_OF_STREAM_MAGIC & 0xffffff));
+    writeInt(combinedCrc);
+    flushBits();
+    finished = true;
+  }
+
+  @Override
+  public void close() throws IOException {
+    finish();
+  }
+
+  private void writeRun() throws IOException {
+    for (int i = 0; i < runLength; i++) {
+      blockCrc = updateCrc(blockCrc, currentChar);
+    }
+
+    inUse[currentChar] = true;
+    byte c = (byte) currentChar;
+    int bytesToWrite = Math.min(runLength, 4);
+    for (int i = 0; i < bytesToWrite; i++) {
+      block[blockLength++] = c;
+    }
+
+    if (runLength >= 4) {
+      block[blockLength++] = (byte) (runLength - 4);
+      inUse[runLength - 4] = true;
+    }
+
+    if (blockLength >= maxBlockLength) {
+      writeBlock();
+    }
+  }
+
+  private void writeBlock() throws IOException {
+    blockCrc = ~blockCrc;
+    combinedCrc = combineCrc(combinedCrc, blockCrc);
+
+    int originalPointer = sortRotations();
+
+    writeBits(24, (int) (BLOCK_MAGIC >>> 24));
+    writeBits(24, (int) (BLOCK_MAGIC & 0xffffff));
+    writeInt(blockCrc);
+    writeBits(1, 0);
+    writeBits(24, originalPointer);
+
+    int[] unseqToSeq = new int[256];
+    int numberInUse = writeSymbolMap(unseqToSeq);
+    int alphaSize = numberInUse + 2;
+    int[] mtfFrequencies = new int[MAX_ALPHA_SIZE];
+    int numberOfMtfValues = generateMtfValues(unseqToSeq, numberInUse, mtfFrequencies);
+
+    writeHuffmanCodedData(alphaSize, numberOfMtfValues, mtfFrequencies);
+
+    blockLength = 0;
+    blockCrc = 0xffffffff;
+    inUse = new boolean[256];
+  }
+
+  /**
+   * Sorts the cyclic rotations of the block and returns the position of the unrotated block in the sorted order.
+   * Rotations are sorted by their first 2^k bytes in round k, using the ranks of the previous round as sort keys
+   */
+  private int sortRotations() {
+    int n = blockLength;
+    if (sortedRotations == null) {
+      sortedRotations = new int[block.length];
+      ranks = new int[block.length];
+      tempRanks = new int[block.length];
+      counts = new int[block.length];
+      mtfValues = new char[block.length + 1];
+    }
+
+    int[] sa = sortedRotations;
+    int[] rank = ranks;
+    int[] tmp = tempRanks;
+
+    Arrays.fill(counts, 0, 256, 0);
+    for (int i = 0; i < n; i++) {
+      counts[block[i] & 0xff]++;
+    }
+    for (int i = 1; i < 256; i++) {
+      counts[i] += counts[i - 1];
+    }
+    for (int i = n - 1; i >= 0; i--) {
+      sa[--counts[block[i] & 0xff]] = i;
+    }
+
+    int classes = 1;
+    rank[sa[0]] = 0;
+    for (int i = 1; i < n; i++) {
+      if (block[sa[i]] != block[sa[i - 1]]) {
+        classes++;
+      }
+      rank[sa[i]] = classes - 1;
+    }
+
+    for (int k = 1; k < n && classes < n; k <<= 1) {
+      // Rotations shifted back by k are already sorted by their second key, so a stable sort by the first key is
+      // sufficient
+      for (int i = 0; i < n; i++) {
+        int shifted = sa[i] - k;
+        tmp[i] = shifted < 0 ? shifted + n : shifted;
+      }
+
+      Arrays.fill(counts, 0, classes, 0);
+      for (int i = 0; i < n; i++) {
+        counts[rank[tmp[i]]]++;
+      }
+      for (int i = 1; i < classes; i++) {
+        counts[i] += counts[i - 1];
+      }
+      for (int i = n - 1; i >= 0; i--) {
+        sa[--counts[rank[tmp[i]]]] = tmp[i];
+      }
+
+      classes = 1;
+      tmp[sa[0]] = 0;
+      for (int i = 1; i < n; i++) {
+        int current = sa[i];
+        int previous = sa[i - 1];
+        int currentSecond = current + k < n ? current + k : current + k - n;
+        int previousSecond = previous + k < n ? previous + k : previous + k - n;
+        if (rank[current] != rank[previous] || rank[currentSecond] != rank[previousSecond]) {
+          classes++;
+        }
+        tmp[current] = classes - 1;
+      }
+
+      int[] swap = rank;
+      rank = tmp;
+      tmp = swap;
+    }
+
+    ranks = rank;
+    tempRanks = tmp;
+
+    int originalPointer = 0;
+    for (int i = 0; i < n; i++) {
+      if (sa[i] == 0) {
+        originalPointer = i;
+        break;
+      }
+    }
+    return originalPointer;
+  }
+
+  private int writeSymbolMap(int[] unseqToSeq) throws IOException {
+    int numberInUse = 0;
+    int inUse16 = 0;
+    for (int i = 0; i < 16; i++) {
+      for (int j = 0; j < 16; j++) {
+        if (inUse[i * 16 + j]) {
+          inUse16 |= 1 << (15 - i);
+        }
+      }
+    }
+
+    writeBits(16, inUse16);
+    for (int i = 0; i < 16; i++) {
+      if ((inUse16 & (1 << (15 - i))) == 0) {
+        continue;
+      }
+
+      int bits = 0;
+      for (int j = 0; j < 16; j++) {
+        if (inUse[i * 16 + j]) {
+          bits |= 1 << (15 - j);
+        }
+      }
+      writeBits(16, bits);
+    }
+
+    for (int i = 0; i < 256; i++) {
+      if (inUse[i]) {
+        unseqToSeq[i] = numberInUse++;
+      }
+    }
+    return numberInUse;
+  }
+
+  /**
+   * Move-to-front codes the last column of the sorted rotations, with runs of zeros written in bijective base 2
+   * with the symbols RUNA and RUNB, and appends the end of block symbol
+   */
+  private int generateMtfValues(int[] unseqToSeq, int numberInUse, int[] mtfFrequencies) {
+    int n = blockLength;
+    int[] sa = sortedRotations;
+    char[] mtf = mtfValues;
+    byte[] order = new byte[numberInUse];
+    for (int i = 0; i < numberInUse; i++) {
+      order[i] = (byte) i;
+    }
+
+    int written = 0;
+    int zerosPending = 0;
+    for (int i = 0; i < n; i++) {
+      int previousPosition = sa[i] == 0 ? n - 1 : sa[i] - 1;
+      byte symbol = (byte) unseqToSeq[block[previousPosition] & 0xff];
+
+      if (order[0] == symbol) {
+        zerosPending++;
+        continue;
+      }
+
+      if (zerosPending > 0) {
+        written = writeZeroRun(zerosPending, mtf, written, mtfFrequencies);
+        zerosPending = 0;
+      }
+
+      int j = 1;
+      byte previous = order[0];
+      while (order[j] != symbol) {
+        byte swap = order[j];
+        order[j] = previous;
+        previous = swap;
+        j++;
+      }
+      order[j] = previous;
+      order[0] = symbol;
+
+      mtf[written++] = (char) (j + 1);
+      mtfFrequencies[j + 1]++;
+    }
+
+    if (zerosPending > 0) {
+      written = writeZeroRun(zerosPending, mtf, written, mtfFrequencies);
+    }
+
+    mtf[written++] = (char) (numberInUse + 1);
+    mtfFrequencies[numberInUse + 1]++;
+    return written;
+  }
+
+  private int writeZeroRun(int runLength, char[] mtf, int written, int[] mtfFrequencies) {
+    int remaining = runLength - 1;
+    while (true) {
+      int symbol = (remaining & 1) == 0 ? RUNA : RUNB;
+      mtf[written++] = (char) symbol;
+      mtfFrequencies[symbol]++;
+      if (remaining < 2) {
+        return written;
+      }
+      remaining = (remaining - 2) >> 1;
+    }
+  }
+
+  private void writeHuffmanCodedData(int alphaSize, int numberOfMtfValues, int[] mtfFrequencies)
+      throws IOException {
+    int numberOfGroups = getNumberOfGroups(numberOfMtfValues);
+    int[][] lengths = new int[numberOfGroups][alphaSize];
+    initializeLengths(lengths, alphaSize, numberOfMtfValues, mtfFrequencies);
+
+    int maxSelectors = (numberOfMtfValues + GROUP_SIZE - 1) / GROUP_SIZE;
+    byte[] selectors = new byte[maxSelectors];
+    int numberOfSelectors = 0;
+
+    for (int iteration = 0; iteration < NUMBER_OF_ITERATIONS; iteration++) {
+      int[][] frequencies = new int[numberOfGroups][alphaSize];
+      numberOfSelectors = 0;
+
+      for (int groupStart = 0; groupStart < numberOfMtfValues; groupStart += GROUP_SIZE) {
+        int groupEnd = Math.min(groupStart + GROUP_SIZE, numberOfMtfValues);
+        int bestTable = 0;
+        int bestCost = Integer.MAX_VALUE;
+        for (int t = 0; t < numberOfGroups; t++) {
+          int[] tableLengths = lengths[t];
+          int cost = 0;
+          for (int i = groupStart; i < groupEnd; i++) {
+            cost += tableLengths[mtfValues[i]];
+          }
+          if (cost < bestCost) {
+            bestCost = cost;
+            bestTable = t;
+          }
+        }
+
+        selectors[numberOfSelectors++] = (byte) bestTable;
+        int[] tableFrequencies = frequencies[bestTable];
+        for (int i = groupStart; i < groupEnd; i++) {
+          tableFrequencies[mtfValues[i]]++;
+        }
+      }
+
+      for (int t = 0; t < numberOfGroups; t++) {
+        makeCodeLengths(lengths[t], frequencies[t], alphaSize);
+      }
+    }
+
+    int[][] codes = new int[numberOfGroups][alphaSize];
+    for (int t = 0; t < numberOfGroups; t++) {
+      assignCodes(codes[t], lengths[t], alphaSize);
+    }
+
+    writeBits(3, numberOfGroups);
+    writeBits(15, numberOfSelectors);
+    writeSelectors(selectors, numberOfSelectors, numberOfGroups);
+    writeCodeLengths(lengths, numberOfGroups, alphaSize);
+
+    int selectorIndex = 0;
+    for (int groupStart = 0; groupStart < numberOfMtfValues; groupStart += GROUP_SIZE) {
+      int groupEnd = Math.min(groupStart + GROUP_SIZE, numberOfMtfValues);
+      int table = selectors[selectorIndex++];
+      int[] tableLengths = lengths[table];
+      int[] tableCodes = codes[table];
+      for (int i = groupStart; i < groupEnd; i++) {
+        int symbol = mtfValues[i];
+        writeBits(tableLengths[symbol], tableCodes[symbol]);
+      }
+    }
+  }
+
+  private int getNumberOfGroups(int numberOfMtfValues) {
+    if (numberOfMtfValues < 200) {
+      return 2;
+    } else if (numberOfMtfValues < 600) {
+      return 3;
+    } else if (numberOfMtfValues < 1200) {
+      return 4;
+    } else if (numberOfMtfValues < 2400) {
+      return 5;
+    }
+    return MAX_GROUPS;
+  }
+
+  /**
+   * Splits the symbols into ranges of about equal total frequency, one per table, giving each table short codes for
+   * its range as starting point of the iterative refinement
+   */
+  private void initializeLengths(int[][] lengths, int alphaSize, int numberOfMtfValues, int[] mtfFrequencies) {
+    int numberOfGroups = lengths.length;
+    int remainingFrequency = numberOfMtfValues;
+    int groupStart = 0;
+
+    for (int part = numberOfGroups; part > 0; part--) {
+      int targetFrequency = remainingFrequency / part;
+      int groupEnd = groupStart - 1;
+      int frequency = 0;
+      while (frequency < targetFrequency && groupEnd < alphaSize - 1) {
+        groupEnd++;
+        frequency += mtfFrequencies[groupEnd];
+      }
+
+      if (groupEnd > groupStart && part != numberOfGroups && part != 1 && ((numberOfGroups - part) % 2 == 1)) {
+        frequency -= mtfFrequencies[groupEnd];
+        groupEnd--;
+      }
+
+      int[] tableLengths = lengths[part - 1];
+      for (int v = 0; v < alphaSize; v++) {
+        tableLengths[v] = v >= groupStart && v <= groupEnd ? 0 : 15;
+      }
+
+      groupStart = groupEnd + 1;
+      remainingFrequency -= frequency;
+    }
+  }
+
+  /**
+   * Computes Huffman code lengths of at most 17 bits. Weights carry the depth of the subtree in their lowest byte
+   * to prefer flat trees on ties, and are halved until no code is too long
+   */
+  private void makeCodeLengths(int[] lengths, int[] frequencies, int alphaSize) {
+    int[] weights = new int[alphaSize * 2];
+    int[] parents = new int[alphaSize * 2];
+    boolean[] active = new boolean[alphaSize * 2];
+
+    for (int i = 0; i < alphaSize; i++) {
+      weights[i] = (frequencies[i] == 0 ? 1 : frequencies[i]) << 8;
+    }
+
+    while (true) {
+      Arrays.fill(active, false);
+      for (int i = 0; i < alphaSize; i++) {
+        active[i] = true;
+        parents[i] = -1;
+      }
+
+      int numberOfNodes = alphaSize;
+      for (int merges = 0; merges < alphaSize - 1; merges++) {
+        int first = -1;
+        int second = -1;
+        for (int i = 0; i < numberOfNodes; i++) {
+          if (!active[i]) {
+            continue;
+          }
+          if (first == -1 || weights[i] < weights[first]) {
+            second = first;
+            first = i;
+          } else if (second == -1 || weights[i] < weights[second]) {
+            second = i;
+          }
+        }
+
+        active[first] = false;
+        active[second] = false;
+        weights[numberOfNodes] = ((weights[first] & 0xffffff00) + (weights[second] & 0xffffff00))
+            | (1 + Math.max(weights[first] & 0xff, weights[second] & 0xff));
+        parents[numberOfNodes] = -1;
+        parents[first] = numberOfNodes;
+        parents[second] = numberOfNodes;
+        active[numberOfNodes] = true;
+        numberOfNodes++;
+      }
+
+      boolean tooLong = false;
+      for (int i = 0; i < alphaSize; i++) {
+        int depth = 0;
+        int node = i;
+        while (parents[node] >= 0) {
+          node = parents[node];
+          depth++;
+        }
+        lengths[i] = depth;
+        if (depth > MAX_CODE_LENGTH_FOR_ENCODING) {
+          tooLong = true;
+        }
+      }
+
+      if (!tooLong) {
+        return;
+      }
+
+      for (int i = 0; i < alphaSize; i++) {
+        int weight = weights[i] >> 8;
+        weights[i] = (1 + weight / 2) << 8;
+      }
+    }
+  }
+
+  private void assignCodes(int[] codes, int[] lengths, int alphaSize) {
+    int minLength = 32;
+    int maxLength = 0;
+    for (int i = 0; i < alphaSize; i++) {
+      minLength = Math.min(minLength, lengths[i]);
+      maxLength = Math.max(maxLength, lengths[i]);
+    }
+
+    int code = 0;
+    for (int length = minLength; length <= maxLength; length++) {
+      for (int i = 0; i < alphaSize; i++) {
+        if (lengths[i] == length) {
+          codes[i] = code++;
+        }
+      }
+      code <<= 1;
+    }
+  }
+
+  private void writeSelectors(byte[] selectors, int numberOfSelectors, int numberOfGroups) throws IOException {
+    byte[] order = new byte[numberOfGroups];
+    for (int i = 0; i < numberOfGroups; i++) {
+      order[i] = (byte) i;
+    }
+
+    for (int i = 0; i < numberOfSelectors; i++) {
+      byte selector = selectors[i];
+      int j = 0;
+      byte previous = order[0];
+      while (previous != selector) {
+        j++;
+        byte swap = order[j];
+        order[j] = previous;
+        previous = swap;
+      }
+      order[0] = selector;
+
+      for (int k = 0; k < j; k++) {
+        writeBits(1, 1);
+      }
+      writeBits(1, 0);
+    }
+  }
+
+  private void writeCodeLengths(int[][] lengths, int numberOfGroups, int alphaSize) throws IOException {
+    for (int t = 0; t < numberOfGroups; t++) {
+      int current = lengths[t][0];
+      writeBits(5, current);
+      for (int i = 0; i < alphaSize; i++) {
+        int length = lengths[t][i];
+        while (current < length) {
+          writeBits(2, 2);
+          current++;
+        }
+        while (current > length) {
+          writeBits(2, 3);
+          current--;
+        }
+        writeBits(1, 0);
+      }
+    }
+  }
+
+  private void writeInt(int value) throws IOException {
+    writeBits(16, value >>> 16);
+    writeBits(16, value & 0xffff);
+  }
+
+  private void writeBits(int numberOfBits, int value) throws IOException {
+    while (bitsInBuffer >= 8) {
+      writeByte(bitBuffer >>> 24);
+      bitBuffer <<= 8;
+      bitsInBuffer -= 8;
+    }
+    bitBuffer |= value << (32 - bitsInBuffer - numberOfBits);
+    bitsInBuffer += numberOfBits;
+  }
+
+  private void flushBits() throws IOException {
+    while (bitsInBuffer > 0) {
+      writeByte(bitBuffer >>> 24);
+      bitBuffer <<= 8;
+      bitsInBuffer -= 8;
+    }
+    bitsInBuffer = 0;
+
+    if (outputBufferLength > 0) {
+      outputStream.write(outputBuffer, 0, outputBufferLength);
+      outputBufferLength = 0;
+    }
+  }
+
+  private void writeByte(int b) throws IOException {
+    if (outputBufferLength == outputBuffer.length) {
+      outputStream.write(outputBuffer, 0, outputBufferLength);
+      outputBufferLength = 0;
+    }
+    outputBuffer[outputBufferLength++] = (byte) b;
+  }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2010 Srikanth Reddy Lingala
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.lingala.zip4j.io.codec;
+
+final class BZip2Constants {
+
+  static final int BLOCK_SIZE_UNIT = 100000;
+  static final long BLOCK_MAGIC = 0x314159265359L;
+  static final long END_OF_STREAM_MAGIC = 0x177245385090L;
+
+  static final int RUNA = 0;
+  static final int RUNB = 1;
+  static final int GROUP_SIZE = 50;
+  static final int MIN_GROUPS = 2;
+  static final int MAX_GROUPS = 6;
+  static final int MAX_ALPHA_SIZE = 258;
+  static final int MAX_CODE_LENGTH = 20;
+  static final int MAX_SELECTORS = 18002;
+
+  /**
+   * CRC-32 lookup table of bzip2, which unlike the zip format processes bits from the most significant one
+   */
+  static final int[] CRC_TABLE = new int[256];
+
+  static {
+    for (int i = 0; i < 256; i++) {
+      int crc = i << 24;
+      for (int j = 0; j < 8; j++) {
+        crc = (crc & 0x80000000) != 0 ? (crc << 1) ^ 0x04c11db7 : crc << 1;
+      }
+      CRC_TABLE[i] = crc;
+    }
+  }
+
+  private BZip2Constants() {
+  }
+
+  static int updateCrc(int crc, int b) {
+    return (crc << 8) ^ CRC_TABLE[((crc >>> 24) ^ b) & 0xff];
+  }
+
+  static int combineCrc(int combinedCrc, int blockCrc) {
+    return ((combinedCrc << 1) | (combinedCrc >>> 31)) ^ blockCrc;
+  }
+}
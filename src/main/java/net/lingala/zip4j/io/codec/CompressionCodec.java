@@ -0,0 +1,61 @@
+/*
+ * Copyright 2010 Srikanth Reddy Lingala
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.lingala.zip4j.io.codec;
+
+import net.lingala.zip4j.model.ZipParameters;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Compression and decompression of entry data for a zip compression method other than STORE and DEFLATE, which are
+ * built in. Codecs are registered in the {@link CompressionCodecRegistry}, either programmatically or as service
+ * provider in META-INF/services/net.lingala.zip4j.io.codec.CompressionCodec. Encryption is applied to the
+ * compressed data by zip4j, so codecs only deal with plain data
+ */
+public interface CompressionCodec {
+
+  /**
+   * @return method id of the zip format handled by this codec, which does not have to be listed in
+   * {@link net.lingala.zip4j.zip.CompressionMethod}
+   */
+  int getMethodId();
+
+  /**
+   * Returns a stream which compresses the data written to it to the output stream. Closing the returned stream has
+   * to write all remaining compressed data. The output stream is not closed by zip4j when the returned stream is
+   * closed
+   *
+   * @param outputStream
+   * @param zipParameters parameters of the entry, for example to read the compression level
+   * @return compressing output stream
+   * @throws IOException
+   */
+  OutputStream createCompressingStream(OutputStream outputStream, ZipParameters zipParameters) throws IOException;
+
+  /**
+   * Returns a stream which decompresses the data read from the input stream. The returned stream must not read
+   * beyond the end of the compressed data, as the size of the compressed data is not always known in advance and
+   * the data of the next entry follows directly
+   *
+   * @param inputStream
+   * @return decompressing input stream
+   * @throws IOException
+   */
+  InputStream createDecompressingStream(InputStream inputStream) throws IOException;
+}
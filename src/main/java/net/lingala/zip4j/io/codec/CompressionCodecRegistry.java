@@ -0,0 +1,66 @@
+/*
+ * Copyright 2010 Srikanth Reddy Lingala
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.lingala.zip4j.io.codec;
+
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Process wide registry of compression codecs keyed by the method id of the zip format. The BZip2 codec is
+ * registered by default, and codecs found with {@link ServiceLoader} are registered when this class is loaded,
+ * replacing default codecs for the same method id. STORE and DEFLATE are built into zip4j and are not looked up in
+ * this registry
+ */
+public final class CompressionCodecRegistry {
+
+  private static final Map<Integer, CompressionCodec> CODECS = new ConcurrentHashMap<>();
+
+  static {
+    register(new BZip2Codec());
+
+    for (CompressionCodec compressionCodec : ServiceLoader.load(CompressionCodec.class)) {
+      register(compressionCodec);
+    }
+  }
+
+  private CompressionCodecRegistry() {
+  }
+
+  /**
+   * Registers the codec for its method id, replacing any codec registered before for the same method id
+   *
+   * @param compressionCodec
+   */
+  public static void register(CompressionCodec compressionCodec) {
+    CODECS.put(compressionCodec.getMethodId(), compressionCodec);
+  }
+
+  public static void unregister(int methodId) {
+    CODECS.remove(methodId);
+  }
+
+  /**
+   * Returns the codec registered for the method id, or null if there is none
+   *
+   * @param methodId
+   * @return CompressionCodec or null
+   */
+  public static CompressionCodec getCodec(int methodId) {
+    return CODECS.get(methodId);
+  }
+}
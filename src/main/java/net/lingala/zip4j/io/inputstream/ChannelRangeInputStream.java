@@ -0,0 +1,87 @@
+/*
+ * Copyright 2010 Srikanth Reddy Lingala
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.lingala.zip4j.io.inputstream;
+
+import net.lingala.zip4j.util.Zip4jUtil;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
+
+/**
+ * Buffered input stream over a byte range of a channel. Reads are done with {@link Zip4jUtil#readFromChannel}, so
+ * that several streams can read from the same channel. The channel is not closed when this stream is closed
+ */
+public class ChannelRangeInputStream extends InputStream {
+
+  private static final int BUFFER_SIZE = 1 << 14;
+
+  private SeekableByteChannel channel;
+  private long position;
+  private long end;
+  private ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+  public ChannelRangeInputStream(SeekableByteChannel channel, long start, long end) {
+    this.channel = channel;
+    this.position = start;
+    this.end = end;
+    buffer.flip();
+  }
+
+  @Override
+  public int read() throws IOException {
+    if (!buffer.hasRemaining() && !fillBuffer()) {
+      return -1;
+    }
+
+    return buffer.get() & 0xff;
+  }
+
+  @Override
+  public int read(byte[] b, int off, int len) throws IOException {
+    if (len == 0) {
+      return 0;
+    }
+
+    if (!buffer.hasRemaining() && !fillBuffer()) {
+      return -1;
+    }
+
+    int readLen = Math.min(len, buffer.remaining());
+    buffer.get(b, off, readLen);
+    return readLen;
+  }
+
+  private boolean fillBuffer() throws IOException {
+    if (position >= end) {
+      return false;
+    }
+
+    buffer.clear();
+    buffer.limit((int) Math.min(buffer.capacity(), end - position));
+    int readLen = Zip4jUtil.readFromChannel(channel, buffer, position);
+    buffer.flip();
+
+    if (readLen <= 0) {
+      return false;
+    }
+
+    position += readLen;
+    return true;
+  }
+}
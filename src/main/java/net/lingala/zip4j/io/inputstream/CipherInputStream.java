@@ -19,7 +19,8 @@ abstract class CipherInputStream extends InputStream {
     this.zipEntryInputStream = zipEntryInputStream;
     this.decrypter = initializeDecrypter(localFileHeader, password);
 
-    if (getCompressionMethod(localFileHeader) == CompressionMethod.DEFLATE) {
+    // Decompressors other than store can read beyond the end of the entry and need the raw data to push it back
+    if (getCompressionMethod(localFileHeader) != CompressionMethod.STORE) {
       lastReadRawDataCache = new byte[512];
     }
   }
@@ -64,7 +65,7 @@ abstract class CipherInputStream extends InputStream {
   }
 
   private void cacheRawData(byte[] b, int len) {
-    if (lastReadRawDataCache != null) {
+    if (lastReadRawDataCache != null && len > 0) {
       System.arraycopy(b, 0, lastReadRawDataCache, 0, len);
     }
   }
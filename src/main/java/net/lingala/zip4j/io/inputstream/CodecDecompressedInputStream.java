@@ -0,0 +1,117 @@
+/*
+ * Copyright 2010 Srikanth Reddy Lingala
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.lingala.zip4j.io.inputstream;
+
+import net.lingala.zip4j.io.codec.CompressionCodec;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+
+/**
+ * Decompresses entry data with a codec from the codec registry. Like the inflater, the codec is fed from a buffer
+ * which can hold data beyond the end of the entry, and the unused part of the buffer is pushed back at the end of
+ * the entry
+ */
+class CodecDecompressedInputStream extends DecompressedInputStream {
+
+  private InputStream decompressingInputStream;
+  private byte[] buff = new byte[512];
+  private int len;
+  private int position;
+
+  public CodecDecompressedInputStream(CipherInputStream cipherInputStream, CompressionCodec compressionCodec)
+      throws IOException {
+    super(cipherInputStream);
+    decompressingInputStream = compressionCodec.createDecompressingStream(new CompressedDataInputStream());
+  }
+
+  @Override
+  public int read() throws IOException {
+    int readLen = read(oneByteBuffer);
+
+    if (readLen == -1) {
+      return -1;
+    }
+
+    return oneByteBuffer[0] & 0xff;
+  }
+
+  @Override
+  public int read(byte[] b) throws IOException {
+    return read(b, 0, b.length);
+  }
+
+  @Override
+  public int read(byte[] b, int off, int len) throws IOException {
+    if (len == 0) {
+      return 0;
+    }
+
+    return decompressingInputStream.read(b, off, len);
+  }
+
+  @Override
+  public void pushBackInputStreamIfNecessary(PushbackInputStream pushbackInputStream) throws IOException {
+    int remaining = len - position;
+    if (remaining > 0) {
+      pushbackInputStream.unread(getLastReadRawDataCache(), position, remaining);
+      position = len;
+    }
+  }
+
+  private void fill() throws IOException {
+    // Data is always read to the start of the buffer, as the raw data cache of the cipher stream is filled from there
+    do {
+      len = super.read(buff, 0, buff.length);
+    } while (len == 0);
+    position = 0;
+    if (len == -1) {
+      len = 0;
+      throw new EOFException("Unexpected end of compressed data");
+    }
+  }
+
+  private class CompressedDataInputStream extends InputStream {
+
+    @Override
+    public int read() throws IOException {
+      if (position == len) {
+        fill();
+      }
+
+      return buff[position++] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int length) throws IOException {
+      if (length == 0) {
+        return 0;
+      }
+
+      if (position == len) {
+        fill();
+      }
+
+      int readLen = Math.min(length, len - position);
+      System.arraycopy(buff, position, b, off, readLen);
+      position += readLen;
+      return readLen;
+    }
+  }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2010 Srikanth Reddy Lingala
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.lingala.zip4j.io.inputstream;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+
+/**
+ * Decompresses Deflate64 entries (method 9) with the Java deflate decoder. The decoder reads the compressed data in
+ * chunks of up to 512 bytes, and the bytes it read beyond the end of the entry are pushed back at the end of the
+ * entry. As the decoder can hold a few bytes of the previous chunk in its bit buffer, the end of the previous chunk
+ * is kept as well
+ */
+class Deflate64InputStream extends DecompressedInputStream {
+
+  private static final int MAX_READ_LENGTH = 512;
+  private static final int TAIL_LENGTH = 8;
+
+  private DeflateDecoder decoder;
+  private int lastReadLength;
+  private byte[] previousTail = new byte[TAIL_LENGTH];
+  private byte[] nextTail = new byte[TAIL_LENGTH];
+  private int previousTailLength;
+
+  public Deflate64InputStream(CipherInputStream cipherInputStream) {
+    super(cipherInputStream);
+    decoder = new DeflateDecoder(new CompressedDataInputStream(), true);
+  }
+
+  @Override
+  public int read() throws IOException {
+    int readLen = read(oneByteBuffer);
+
+    if (readLen == -1) {
+      return -1;
+    }
+
+    return oneByteBuffer[0] & 0xff;
+  }
+
+  @Override
+  public int read(byte[] b) throws IOException {
+    return read(b, 0, b.length);
+  }
+
+  @Override
+  public int read(byte[] b, int off, int len) throws IOException {
+    if (len == 0) {
+      return 0;
+    }
+
+    // The decoder returns 0 at block boundaries
+    int readLen;
+    do {
+      readLen = decoder.read(b, off, len);
+    } while (readLen == 0);
+
+    return readLen;
+  }
+
+  @Override
+  public void pushBackInputStreamIfNecessary(PushbackInputStream pushbackInputStream) throws IOException {
+    int remaining = decoder.getRemaining();
+    if (remaining <= 0) {
+      return;
+    }
+
+    byte[] rawDataCache = getLastReadRawDataCache();
+    if (remaining <= lastReadLength) {
+      pushbackInputStream.unread(rawDataCache, lastReadLength - remaining, remaining);
+      return;
+    }
+
+    int lengthFromPreviousTail = Math.min(remaining - lastReadLength, previousTailLength);
+    byte[] unusedData = new byte[lengthFromPreviousTail + lastReadLength];
+    System.arraycopy(previousTail, previousTailLength - lengthFromPreviousTail, unusedData, 0,
+        lengthFromPreviousTail);
+    System.arraycopy(rawDataCache, 0, unusedData, lengthFromPreviousTail, lastReadLength);
+    pushbackInputStream.unread(unusedData);
+  }
+
+  private int readCompressedData(byte[] b, int len) throws IOException {
+    int tailLength = Math.min(lastReadLength, TAIL_LENGTH);
+    if (tailLength > 0) {
+      System.arraycopy(getLastReadRawDataCache(), lastReadLength - tailLength, nextTail, 0, tailLength);
+    }
+
+    // Data is always read to the start of the array, as the raw data cache of the cipher stream is filled from there
+    int readLen = super.read(b, 0, Math.min(len, MAX_READ_LENGTH));
+    if (readLen > 0) {
+      byte[] swap = previousTail;
+      previousTail = nextTail;
+      nextTail = swap;
+      previousTailLength = tailLength;
+      lastReadLength = readLen;
+    }
+    return readLen;
+  }
+
+  private class CompressedDataInputStream extends InputStream {
+
+    private byte[] singleByteBuffer = new byte[1];
+
+    @Override
+    public int read() throws IOException {
+      int readLen = read(singleByteBuffer, 0, 1);
+      if (readLen == -1) {
+        return -1;
+      }
+
+      return singleByteBuffer[0] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      if (off != 0) {
+        throw new IllegalArgumentException("compressed data has to be read to the start of the array");
+      }
+
+      return readCompressedData(b, len);
+    }
+  }
+}
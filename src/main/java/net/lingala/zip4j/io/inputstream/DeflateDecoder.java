@@ -0,0 +1,494 @@
+/*
+ * Copyright 2010 Srikanth Reddy Lingala
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.lingala.zip4j.io.inputstream;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * Decoder of raw DEFLATE data (RFC 1951) implemented in Java, which can also decode Deflate64 data with its 64KB
+ * window, 16 bit lengths for the last length symbol and the two additional distance codes. Unlike java.util.zip.Inflater, the state of this
+ * decoder at the boundary of two deflate blocks is fully described by the bit position in the compressed data and
+ * the last 32KB of decompressed data. This state can be captured while decoding, and a new decoder can later resume
+ * decompression from it, which allows random access into deflated entries.<br>
+ * Reads stop at the end of every block, so that callers can check {@link #isAtBlockBoundary()} after every read.
+ */
+public class DeflateDecoder {
+
+  public static final int WINDOW_SIZE = 1 << 15;
+  public static final int DEFLATE64_WINDOW_SIZE = 1 << 16;
+
+  private static final int MAX_CODE_LENGTH = 15;
+  private static final int END_OF_BLOCK = 256;
+
+  private static final int[] LENGTH_BASE = {3, 4, 5, 6, 7, 8, 9, 10, 11, 13, 15, 17, 19, 23, 27, 31, 35, 43, 51, 59, 67,
+      83, 99, 115, 131, 163, 195, 227, 258};
+  private static final int[] LENGTH_EXTRA_BITS = {0, 0, 0, 0, 0, 0, 0, 0, 1, 1, 1, 1, 2, 2, 2, 2, 3, 3, 3, 3, 4, 4, 4, 4,
+      5, 5, 5, 5, 0};
+  private static final int[] DISTANCE_BASE = {1, 2, 3, 4, 5, 7, 9, 13, 17, 25, 33, 49, 65, 97, 129, 193, 257, 385, 513,
+      769, 1025, 1537, 2049, 3073, 4097, 6145, 8193, 12289, 16385, 24577};
+  private static final int[] DISTANCE_EXTRA_BITS = {0, 0, 0, 0, 1, 1, 2, 2, 3, 3, 4, 4, 5, 5, 6, 6, 7, 7, 8, 8, 9, 9, 10,
+      10, 11, 11, 12, 12, 13, 13};
+  private static final int[] DEFLATE64_LENGTH_BASE = Arrays.copyOf(LENGTH_BASE, LENGTH_BASE.length);
+  private static final int[] DEFLATE64_LENGTH_EXTRA_BITS = Arrays.copyOf(LENGTH_EXTRA_BITS, LENGTH_EXTRA_BITS.length);
+  private static final int[] DEFLATE64_DISTANCE_BASE = Arrays.copyOf(DISTANCE_BASE, DISTANCE_BASE.length + 2);
+  private static final int[] DEFLATE64_DISTANCE_EXTRA_BITS = Arrays.copyOf(DISTANCE_EXTRA_BITS,
+      DISTANCE_EXTRA_BITS.length + 2);
+  private static final int[] CODE_LENGTH_ORDER = {16, 17, 18, 0, 8, 7, 9, 6, 10, 5, 11, 4, 12, 3, 13, 2, 14, 1, 15};
+
+  private static final HuffmanTable FIXED_LITERAL_TABLE;
+  private static final HuffmanTable FIXED_DISTANCE_TABLE;
+
+  static {
+    // Deflate64 uses the last length symbol for lengths of 3 to 65538, and adds distances up to 64KB
+    DEFLATE64_LENGTH_BASE[28] = 3;
+    DEFLATE64_LENGTH_EXTRA_BITS[28] = 16;
+    DEFLATE64_DISTANCE_BASE[30] = 32769;
+    DEFLATE64_DISTANCE_BASE[31] = 49153;
+    DEFLATE64_DISTANCE_EXTRA_BITS[30] = 14;
+    DEFLATE64_DISTANCE_EXTRA_BITS[31] = 14;
+
+    int[] literalLengths = new int[288];
+    Arrays.fill(literalLengths, 0, 144, 8);
+    Arrays.fill(literalLengths, 144, 256, 9);
+    Arrays.fill(literalLengths, 256, 280, 7);
+    Arrays.fill(literalLengths, 280, 288, 8);
+    int[] distanceLengths = new int[32];
+    Arrays.fill(distanceLengths, 5);
+
+    try {
+      FIXED_LITERAL_TABLE = new HuffmanTable(literalLengths);
+      FIXED_DISTANCE_TABLE = new HuffmanTable(distanceLengths);
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private enum State {
+    BLOCK_HEADER, STORED, HUFFMAN, END
+  }
+
+  private InputStream inputStream;
+  private byte[] inputBuffer = new byte[4096];
+  private int inputPosition;
+  private int inputLength;
+  private long bitBuffer;
+  private int bitCount;
+  private long bytesConsumed;
+
+  private byte[] window;
+  private int windowMask;
+  private long totalOut;
+  private int[] lengthBase;
+  private int[] lengthExtraBits;
+  private int[] distanceBase;
+  private int[] distanceExtraBits;
+
+  private State state = State.BLOCK_HEADER;
+  private boolean lastBlock;
+  private int storedBytesRemaining;
+  private HuffmanTable literalTable;
+  private HuffmanTable distanceTable;
+  private int copyLength;
+  private int copyDistance;
+
+  /**
+   * Creates a decoder for deflate data starting at the current position of the input stream
+   *
+   * @param inputStream
+   */
+  public DeflateDecoder(InputStream inputStream) {
+    this(inputStream, false);
+  }
+
+  /**
+   * Creates a decoder for deflate or Deflate64 data starting at the current position of the input stream
+   *
+   * @param inputStream
+   * @param deflate64 true to decode Deflate64 data
+   */
+  public DeflateDecoder(InputStream inputStream, boolean deflate64) {
+    this.inputStream = inputStream;
+    this.window = new byte[deflate64 ? DEFLATE64_WINDOW_SIZE : WINDOW_SIZE];
+    this.windowMask = window.length - 1;
+    this.lengthBase = deflate64 ? DEFLATE64_LENGTH_BASE : LENGTH_BASE;
+    this.lengthExtraBits = deflate64 ? DEFLATE64_LENGTH_EXTRA_BITS : LENGTH_EXTRA_BITS;
+    this.distanceBase = deflate64 ? DEFLATE64_DISTANCE_BASE : DISTANCE_BASE;
+    this.distanceExtraBits = deflate64 ? DEFLATE64_DISTANCE_EXTRA_BITS : DISTANCE_EXTRA_BITS;
+  }
+
+  /**
+   * Creates a decoder resuming decompression at a block boundary. The input stream has to be positioned at the byte
+   * containing the first bit of the block
+   *
+   * @param inputStream
+   * @param bitsToSkip number of bits of the first byte belonging to the previous block
+   * @param window     up to 32KB of data decompressed before the block
+   * @throws IOException
+   */
+  public DeflateDecoder(InputStream inputStream, int bitsToSkip, byte[] window) throws IOException {
+    this(inputStream);
+    readBits(bitsToSkip);
+
+    int windowLength = Math.min(window.length, WINDOW_SIZE);
+    System.arraycopy(window, window.length - windowLength, this.window, 0, windowLength);
+    totalOut = windowLength;
+  }
+
+  /**
+   * Reads decompressed data into the input array. Returns the number of bytes read, which is 0 if the end of a block
+   * was reached before any data was read, or -1 if the end of the deflate data was reached
+   *
+   * @param b
+   * @param off
+   * @param len
+   * @return number of bytes read
+   * @throws IOException
+   */
+  public int read(byte[] b, int off, int len) throws IOException {
+    int n = 0;
+
+    while (n < len) {
+      if (copyLength > 0) {
+        int count = Math.min(copyLength, len - n);
+        for (int i = 0; i < count; i++) {
+          byte value = window[(int) ((totalOut - copyDistance) & windowMask)];
+          window[(int) (totalOut & windowMask)] = value;
+          b[off + n++] = value;
+          totalOut++;
+        }
+        copyLength -= count;
+        continue;
+      }
+
+      switch (state) {
+        case BLOCK_HEADER:
+          if (lastBlock) {
+            state = State.END;
+          } else {
+            readBlockHeader();
+          }
+          break;
+        case STORED:
+          if (storedBytesRemaining == 0) {
+            state = State.BLOCK_HEADER;
+            return n;
+          }
+          int storedLength = readStoredBytes(b, off + n, Math.min(storedBytesRemaining, len - n));
+          n += storedLength;
+          storedBytesRemaining -= storedLength;
+          break;
+        case HUFFMAN:
+          int symbol = decodeSymbol(literalTable);
+          if (symbol < END_OF_BLOCK) {
+            window[(int) (totalOut & windowMask)] = (byte) symbol;
+            b[off + n++] = (byte) symbol;
+            totalOut++;
+          } else if (symbol == END_OF_BLOCK) {
+            // Return at block boundaries, so that the caller can capture the state of the decoder
+            state = State.BLOCK_HEADER;
+            return n;
+          } else {
+            readBackReference(symbol);
+          }
+          break;
+        case END:
+        default:
+          return n == 0 ? -1 : n;
+      }
+    }
+
+    return n;
+  }
+
+  /**
+   * Returns true if all data of the previous block was read and the next block was not started yet. The state of
+   * the decoder can then be captured with {@link #getBitPosition()} and {@link #getWindow()}
+   *
+   * @return true if at a block boundary
+   */
+  public boolean isAtBlockBoundary() {
+    return state == State.BLOCK_HEADER && copyLength == 0 && !lastBlock;
+  }
+
+  public boolean isFinished() {
+    return state == State.END;
+  }
+
+  /**
+   * Returns the number of bits consumed from the input stream since the creation of this decoder
+   *
+   * @return number of bits consumed
+   */
+  public long getBitPosition() {
+    return bytesConsumed * 8 - bitCount;
+  }
+
+  /**
+   * Returns the number of bytes read from the input stream which were not used for decoding yet. After the end of
+   * the deflate data, this is the number of bytes read beyond its end
+   *
+   * @return number of unused bytes
+   */
+  public int getRemaining() {
+    return inputLength - inputPosition + bitCount / 8;
+  }
+
+  /**
+   * Returns the last decompressed bytes, up to the window size, in their original order
+   *
+   * @return window
+   */
+  public byte[] getWindow() {
+    int windowLength = (int) Math.min(totalOut, window.length);
+    byte[] linearWindow = new byte[windowLength];
+    int windowEnd = (int) (totalOut & windowMask);
+
+    if (windowLength <= windowEnd) {
+      System.arraycopy(window, windowEnd - windowLength, linearWindow, 0, windowLength);
+    } else {
+      int tailLength = windowLength - windowEnd;
+      System.arraycopy(window, window.length - tailLength, linearWindow, 0, tailLength);
+      System.arraycopy(window, 0, linearWindow, tailLength, windowEnd);
+    }
+
+    return linearWindow;
+  }
+
+  private void readBlockHeader() throws IOException {
+    lastBlock = readBits(1) == 1;
+    int blockType = readBits(2);
+
+    switch (blockType) {
+      case 0:
+        readBits(bitCount % 8);
+        int length = readBits(16);
+        int complementOfLength = readBits(16);
+        if (length != (~complementOfLength & 0xffff)) {
+          throw new IOException("invalid deflate data: stored block length mismatch");
+        }
+        storedBytesRemaining = length;
+        state = State.STORED;
+        break;
+      case 1:
+        literalTable = FIXED_LITERAL_TABLE;
+        distanceTable = FIXED_DISTANCE_TABLE;
+        state = State.HUFFMAN;
+        break;
+      case 2:
+        readDynamicTables();
+        state = State.HUFFMAN;
+        break;
+      default:
+        throw new IOException("invalid deflate data: invalid block type");
+    }
+  }
+
+  private void readDynamicTables() throws IOException {
+    int numberOfLiteralCodes = readBits(5) + 257;
+    int numberOfDistanceCodes = readBits(5) + 1;
+    int numberOfCodeLengthCodes = readBits(4) + 4;
+
+    int[] codeLengthCodeLengths = new int[CODE_LENGTH_ORDER.length];
+    for (int i = 0; i < numberOfCodeLengthCodes; i++) {
+      codeLengthCodeLengths[CODE_LENGTH_ORDER[i]] = readBits(3);
+    }
+    HuffmanTable codeLengthTable = new HuffmanTable(codeLengthCodeLengths);
+
+    int[] codeLengths = new int[numberOfLiteralCodes + numberOfDistanceCodes];
+    int index = 0;
+    while (index < codeLengths.length) {
+      int symbol = decodeSymbol(codeLengthTable);
+      if (symbol < 16) {
+        codeLengths[index++] = symbol;
+        continue;
+      }
+
+      int repeatedLength = 0;
+      int repeatCount;
+      if (symbol == 16) {
+        if (index == 0) {
+          throw new IOException("invalid deflate data: repeated code length without previous length");
+        }
+        repeatedLength = codeLengths[index - 1];
+        repeatCount = 3 + readBits(2);
+      } else if (symbol == 17) {
+        repeatCount = 3 + readBits(3);
+      } else {
+        repeatCount = 11 + readBits(7);
+      }
+
+      if (index + repeatCount > codeLengths.length) {
+        throw new IOException("invalid deflate data: too many code lengths");
+      }
+      Arrays.fill(codeLengths, index, index + repeatCount, repeatedLength);
+      index += repeatCount;
+    }
+
+    if (codeLengths[END_OF_BLOCK] == 0) {
+      throw new IOException("invalid deflate data: missing end of block code");
+    }
+
+    literalTable = new HuffmanTable(Arrays.copyOfRange(codeLengths, 0, numberOfLiteralCodes));
+    distanceTable = new HuffmanTable(Arrays.copyOfRange(codeLengths, numberOfLiteralCodes, codeLengths.length));
+  }
+
+  private void readBackReference(int symbol) throws IOException {
+    int lengthIndex = symbol - 257;
+    if (lengthIndex >= lengthBase.length) {
+      throw new IOException("invalid deflate data: invalid length symbol");
+    }
+    int length = lengthBase[lengthIndex] + readBits(lengthExtraBits[lengthIndex]);
+
+    int distanceSymbol = decodeSymbol(distanceTable);
+    if (distanceSymbol >= distanceBase.length) {
+      throw new IOException("invalid deflate data: invalid distance symbol");
+    }
+    int distance = distanceBase[distanceSymbol] + readBits(distanceExtraBits[distanceSymbol]);
+    if (distance > totalOut) {
+      throw new IOException("invalid deflate data: distance too far back");
+    }
+
+    copyLength = length;
+    copyDistance = distance;
+  }
+
+  private int decodeSymbol(HuffmanTable huffmanTable) throws IOException {
+    fillBits(huffmanTable.maxCodeLength);
+    int entry = huffmanTable.entries[(int) (bitBuffer & ((1 << huffmanTable.maxCodeLength) - 1))];
+    int codeLength = entry & 0xf;
+
+    if (codeLength == 0 || codeLength > bitCount) {
+      if (codeLength > bitCount) {
+        throw new EOFException("unexpected end of deflate data");
+      }
+      throw new IOException("invalid deflate data: invalid huffman code");
+    }
+
+    bitBuffer >>>= codeLength;
+    bitCount -= codeLength;
+    return entry >>> 4;
+  }
+
+  private int readBits(int numberOfBits) throws IOException {
+    fillBits(numberOfBits);
+    if (bitCount < numberOfBits) {
+      throw new EOFException("unexpected end of deflate data");
+    }
+
+    int value = (int) (bitBuffer & ((1L << numberOfBits) - 1));
+    bitBuffer >>>= numberOfBits;
+    bitCount -= numberOfBits;
+    return value;
+  }
+
+  /**
+   * Copies data of a stored block, which starts at a byte boundary. Whole bytes left in the bit buffer are used
+   * first, the rest is copied from the input buffer in bulk
+   */
+  private int readStoredBytes(byte[] b, int off, int len) throws IOException {
+    int n = 0;
+    while (n < len && bitCount >= 8) {
+      b[off + n++] = (byte) readBits(8);
+    }
+
+    while (n < len) {
+      if (inputPosition == inputLength && !fillInputBuffer()) {
+        throw new EOFException("unexpected end of deflate data");
+      }
+
+      int count = Math.min(len - n, inputLength - inputPosition);
+      System.arraycopy(inputBuffer, inputPosition, b, off + n, count);
+      inputPosition += count;
+      bytesConsumed += count;
+      n += count;
+    }
+
+    for (int i = 0; i < len; i++) {
+      window[(int) (totalOut & windowMask)] = b[off + i];
+      totalOut++;
+    }
+    return len;
+  }
+
+  private void fillBits(int numberOfBits) throws IOException {
+    while (bitCount < numberOfBits) {
+      if (inputPosition == inputLength && !fillInputBuffer()) {
+        return;
+      }
+
+      bitBuffer |= (long) (inputBuffer[inputPosition++] & 0xff) << bitCount;
+      bitCount += 8;
+      bytesConsumed++;
+    }
+  }
+
+  private boolean fillInputBuffer() throws IOException {
+    int readLen;
+    do {
+      readLen = inputStream.read(inputBuffer, 0, inputBuffer.length);
+    } while (readLen == 0);
+
+    inputPosition = 0;
+    inputLength = Math.max(readLen, 0);
+    return readLen > 0;
+  }
+
+  /**
+   * Lookup table of a canonical huffman code, indexed by the next maxCodeLength bits of input. Each entry holds the
+   * decoded symbol in the upper bits and the length of its code in the lowest 4 bits
+   */
+  private static class HuffmanTable {
+
+    private int maxCodeLength;
+    private int[] entries;
+
+    HuffmanTable(int[] codeLengths) throws IOException {
+      int[] numberOfCodes = new int[MAX_CODE_LENGTH + 1];
+      for (int codeLength : codeLengths) {
+        numberOfCodes[codeLength]++;
+        maxCodeLength = Math.max(maxCodeLength, codeLength);
+      }
+      maxCodeLength = Math.max(maxCodeLength, 1);
+
+      int codesLeft = 1;
+      int[] nextCode = new int[MAX_CODE_LENGTH + 2];
+      for (int codeLength = 1; codeLength <= MAX_CODE_LENGTH; codeLength++) {
+        codesLeft = (codesLeft << 1) - numberOfCodes[codeLength];
+        if (codesLeft < 0) {
+          throw new IOException("invalid deflate data: over-subscribed huffman code");
+        }
+        nextCode[codeLength + 1] = (nextCode[codeLength] + numberOfCodes[codeLength]) << 1;
+      }
+
+      entries = new int[1 << maxCodeLength];
+      for (int symbol = 0; symbol < codeLengths.length; symbol++) {
+        int codeLength = codeLengths[symbol];
+        if (codeLength == 0) {
+          continue;
+        }
+
+        int reversedCode = Integer.reverse(nextCode[codeLength]++) >>> (32 - codeLength);
+        for (int i = reversedCode; i < entries.length; i += 1 << codeLength) {
+          entries[i] = symbol << 4 | codeLength;
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,218 @@
+/*
+ * Copyright 2010 Srikanth Reddy Lingala
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.lingala.zip4j.io.inputstream;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads ahead of the consumer on a thread of the executor service. The reader thread fills a fixed number of
+ * buffers and hands them over through a bounded queue, so that reading the next buffer from disk overlaps with the
+ * processing of the current one, and the memory in use stays bounded by the number of buffers. Closing this stream
+ * stops the reader thread, which does not read beyond the buffer it is currently filling
+ */
+public class ReadAheadInputStream extends InputStream {
+
+  private static final int POLL_TIMEOUT_MILLIS = 10;
+
+  private InputStream inputStream;
+  private boolean closeInputStream;
+  private BlockingQueue<byte[]> freeBuffers;
+  private BlockingQueue<Chunk> filledChunks;
+  private Future<?> readerTask;
+  private volatile boolean stopped;
+  private Chunk currentChunk;
+  private int currentPosition;
+  private byte[] singleByteBuffer = new byte[1];
+
+  /**
+   * @param inputStream      stream to read ahead from
+   * @param executorService  executor service to run the reader on
+   * @param bufferSize       size of each buffer
+   * @param bufferCount      number of buffers, at least 2 so that reading and processing can overlap
+   * @param closeInputStream whether the input stream is closed when this stream is closed
+   */
+  public ReadAheadInputStream(InputStream inputStream, ExecutorService executorService, int bufferSize,
+                              int bufferCount, boolean closeInputStream) {
+    this.inputStream = inputStream;
+    this.closeInputStream = closeInputStream;
+    this.freeBuffers = new ArrayBlockingQueue<>(bufferCount);
+    // one more than the number of buffers, so that the end of stream marker never blocks the reader
+    this.filledChunks = new ArrayBlockingQueue<>(bufferCount + 1);
+
+    for (int i = 0; i < bufferCount; i++) {
+      freeBuffers.add(new byte[bufferSize]);
+    }
+
+    readerTask = executorService.submit(new Runnable() {
+      @Override
+      public void run() {
+        readAhead();
+      }
+    });
+  }
+
+  @Override
+  public int read() throws IOException {
+    int readLen = read(singleByteBuffer, 0, 1);
+    if (readLen == -1) {
+      return -1;
+    }
+
+    return singleByteBuffer[0] & 0xff;
+  }
+
+  @Override
+  public int read(byte[] b) throws IOException {
+    return read(b, 0, b.length);
+  }
+
+  @Override
+  public int read(byte[] b, int off, int len) throws IOException {
+    if (len == 0) {
+      return 0;
+    }
+
+    if (currentChunk == null || currentPosition == currentChunk.length) {
+      if (!nextChunk()) {
+        return -1;
+      }
+    }
+
+    int readLen = Math.min(len, currentChunk.length - currentPosition);
+    System.arraycopy(currentChunk.buffer, currentPosition, b, off, readLen);
+    currentPosition += readLen;
+    return readLen;
+  }
+
+  @Override
+  public int available() {
+    if (currentChunk == null) {
+      return 0;
+    }
+
+    return currentChunk.length - currentPosition;
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (stopped) {
+      return;
+    }
+
+    stopped = true;
+    try {
+      readerTask.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (ExecutionException e) {
+      // errors of the reader are handed over as chunks and are thrown by read
+    }
+
+    if (closeInputStream) {
+      inputStream.close();
+    }
+  }
+
+  private boolean nextChunk() throws IOException {
+    if (stopped) {
+      throw new IOException("stream closed");
+    }
+
+    if (currentChunk != null) {
+      if (currentChunk.exception != null) {
+        throw currentChunk.exception;
+      }
+
+      if (currentChunk.buffer == null) {
+        return false;
+      }
+
+      freeBuffers.add(currentChunk.buffer);
+    }
+
+    try {
+      currentChunk = filledChunks.take();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("interrupted while waiting for data read ahead");
+    }
+    currentPosition = 0;
+
+    if (currentChunk.exception != null) {
+      throw currentChunk.exception;
+    }
+
+    return currentChunk.buffer != null;
+  }
+
+  private void readAhead() {
+    try {
+      while (!stopped) {
+        byte[] buffer = freeBuffers.poll(POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        if (buffer == null) {
+          continue;
+        }
+
+        int length = readFully(buffer);
+        if (length > 0) {
+          filledChunks.add(new Chunk(buffer, length, null));
+        }
+
+        if (length < buffer.length) {
+          filledChunks.add(new Chunk(null, 0, null));
+          return;
+        }
+      }
+    } catch (IOException e) {
+      filledChunks.add(new Chunk(null, 0, e));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private int readFully(byte[] buffer) throws IOException {
+    int length = 0;
+    while (length < buffer.length) {
+      int readLen = inputStream.read(buffer, length, buffer.length - length);
+      if (readLen == -1) {
+        break;
+      }
+      length += readLen;
+    }
+    return length;
+  }
+
+  private static class Chunk {
+
+    private final byte[] buffer;
+    private final int length;
+    private final IOException exception;
+
+    private Chunk(byte[] buffer, int length, IOException exception) {
+      this.buffer = buffer;
+      this.length = length;
+      this.exception = exception;
+    }
+  }
+}
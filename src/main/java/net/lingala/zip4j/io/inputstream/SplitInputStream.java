@@ -1,6 +1,7 @@
 package net.lingala.zip4j.io.inputstream;
 
 import net.lingala.zip4j.model.FileHeader;
+import net.lingala.zip4j.util.Zip4jUtil;
 import net.lingala.zip4j.util.enums.RandomAccessFileMode;
 
 import java.io.File;
@@ -8,10 +9,14 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
 
 public class SplitInputStream extends InputStream {
 
   private RandomAccessFile randomAccessFile;
+  private SeekableByteChannel zipFileChannel;
+  private long zipFileChannelPosition;
   private File zipFile;
   private int lastSplitZipFileNumber;
   private boolean isSplitZipArchive;
@@ -23,6 +28,20 @@ public class SplitInputStream extends InputStream {
     this.zipFile = zipFile;
     this.isSplitZipArchive = isSplitZipArchive;
     this.lastSplitZipFileNumber = lastSplitZipFileNumber;
+    // the zip file itself is the last split file
+    this.currentSplitFileCounter = isSplitZipArchive ? lastSplitZipFileNumber : 0;
+  }
+
+  /**
+   * Creates a stream reading a non-split zip file from the input channel. The stream keeps track of its own position,
+   * so that multiple streams can share the same channel. Reads from a FileChannel are positional reads, reads from
+   * any other channel are done while holding the lock of the channel. The channel is not closed when this stream is
+   * closed
+   *
+   * @param zipFileChannel
+   */
+  public SplitInputStream(SeekableByteChannel zipFileChannel) {
+    this.zipFileChannel = zipFileChannel;
   }
 
   @Override
@@ -32,7 +51,7 @@ public class SplitInputStream extends InputStream {
       return -1;
     }
 
-    return singleByteArray[0];
+    return singleByteArray[0] & 0xff;
   }
 
   @Override
@@ -48,23 +67,40 @@ public class SplitInputStream extends InputStream {
 
   public void prepareExtractionForFileHeader(FileHeader fileHeader) throws IOException {
 
-    if (isSplitZipArchive && currentSplitFileCounter != fileHeader.getDiskNumberStart() - 1) {
+    if (zipFileChannel != null) {
+      zipFileChannelPosition = fileHeader.getOffsetLocalHeader();
+      return;
+    }
+
+    if (isSplitZipArchive && currentSplitFileCounter != fileHeader.getDiskNumberStart()) {
       openRandomAccessFileForIndex(fileHeader.getDiskNumberStart());
+      currentSplitFileCounter = fileHeader.getDiskNumberStart();
     }
 
     randomAccessFile.seek(fileHeader.getOffsetLocalHeader());
   }
 
   private int readDataFromStream(byte[] b, int off, int len) throws IOException {
+    if (zipFileChannel != null) {
+      return readDataFromChannel(b, off, len);
+    }
+
     int readLen = randomAccessFile.read(b, off, len);
 
-    if (readLen == -1 && isSplitZipArchive) {
-      openRandomAccessFileForIndex(currentSplitFileCounter);
+    if (readLen == -1 && isSplitZipArchive && currentSplitFileCounter < lastSplitZipFileNumber) {
       currentSplitFileCounter++;
+      openRandomAccessFileForIndex(currentSplitFileCounter);
+      readLen = randomAccessFile.read(b, off, len);
+    }
+
+    return readLen;
+  }
+
+  private int readDataFromChannel(byte[] b, int off, int len) throws IOException {
+    int readLen = Zip4jUtil.readFromChannel(zipFileChannel, ByteBuffer.wrap(b, off, len), zipFileChannelPosition);
 
-      if (readLen < 0) readLen = 0;
-      int newlyRead = randomAccessFile.read(b, readLen, len - readLen);
-      if (newlyRead > 0) readLen += newlyRead;
+    if (readLen > 0) {
+      zipFileChannelPosition += readLen;
     }
 
     return readLen;
@@ -18,6 +18,8 @@ package net.lingala.zip4j.io.inputstream;
 
 import net.lingala.zip4j.exception.ZipException;
 import net.lingala.zip4j.headers.HeaderReader;
+import net.lingala.zip4j.io.codec.CompressionCodec;
+import net.lingala.zip4j.io.codec.CompressionCodecRegistry;
 import net.lingala.zip4j.model.LocalFileHeader;
 import net.lingala.zip4j.zip.CompressionMethod;
 import net.lingala.zip4j.zip.EncryptionMethod;
@@ -116,26 +118,39 @@ public class ZipInputStream extends InputStream {
     }
   }
 
-  private DecompressedInputStream initializeDecompressorForThisEntry(CipherInputStream cipherInputStream, LocalFileHeader localFileHeader) throws ZipException {
-    CompressionMethod compressionMethod = getCompressionMethod(localFileHeader);
+  private DecompressedInputStream initializeDecompressorForThisEntry(CipherInputStream cipherInputStream, LocalFileHeader localFileHeader) throws IOException, ZipException {
+    int compressionMethodId = getCompressionMethodId(localFileHeader);
 
-    if (compressionMethod == CompressionMethod.DEFLATE) {
+    if (compressionMethodId == CompressionMethod.DEFLATE.getCode()) {
       return new InflaterInputStream(cipherInputStream);
     }
 
+    if (compressionMethodId == CompressionMethod.DEFLATE64.getCode()) {
+      return new Deflate64InputStream(cipherInputStream);
+    }
+
+    CompressionCodec compressionCodec = CompressionCodecRegistry.getCodec(compressionMethodId);
+    if (compressionCodec != null) {
+      return new CodecDecompressedInputStream(cipherInputStream, compressionCodec);
+    }
+
+    if (compressionMethodId != CompressionMethod.STORE.getCode()) {
+      throw new ZipException("unsupported compression method for entry: " + localFileHeader.getFileName());
+    }
+
     return new StoreInputStream(cipherInputStream, localFileHeader.getUncompressedSize());
   }
 
-  private CompressionMethod getCompressionMethod(LocalFileHeader localFileHeader) throws ZipException {
+  private int getCompressionMethodId(LocalFileHeader localFileHeader) throws ZipException {
     if (localFileHeader.getCompressionMethod() != CompressionMethod.AES_INTERNAL_ONLY) {
-      return localFileHeader.getCompressionMethod();
+      return localFileHeader.getCompressionMethodId();
     }
 
     if (localFileHeader.getAesExtraDataRecord() == null) {
       throw new ZipException("AesExtraDataRecord not present in localheader for aes encrypted data");
     }
 
-    return localFileHeader.getAesExtraDataRecord().getCompressionMethod();
+    return localFileHeader.getAesExtraDataRecord().getCompressionMethodId();
   }
 
   private LocalFileHeader readExtendedLocalFileHeaderIfPresent() throws IOException {
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2010 Srikanth Reddy Lingala
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.lingala.zip4j.io.outputstream;
+
+import net.lingala.zip4j.model.CompressionStatistics;
+import net.lingala.zip4j.zip.CompressionLevel;
+import net.lingala.zip4j.zip.CompressionStrategy;
+
+import java.io.IOException;
+import java.util.zip.Deflater;
+
+/**
+ * Deflater output stream which adjusts the deflate level to reach a target throughput. The time spent compressing
+ * is measured for every window of 1MB of input. If the throughput of a window is below the target, the level is
+ * lowered for the next window, and if it is well above the target, the level is raised, between the levels of
+ * FASTEST and ULTRA
+ */
+class AdaptiveDeflaterOutputStream extends DeflaterOutputStream {
+
+  private static final int WINDOW_SIZE = 1024 * 1024;
+  private static final double RAISE_LEVEL_FACTOR = 1.3;
+
+  private long targetThroughput;
+  private int level;
+  private long[] bytesPerLevel = new long[Deflater.BEST_COMPRESSION + 1];
+  private long windowBytes;
+  private long windowNanos;
+  private long totalBytes;
+  private long totalNanos;
+
+  public AdaptiveDeflaterOutputStream(CipherOutputStream cipherOutputStream, CompressionLevel compressionLevel,
+                                      CompressionStrategy compressionStrategy, long targetThroughput) {
+    super(cipherOutputStream, compressionLevel, compressionStrategy);
+    this.targetThroughput = targetThroughput;
+    this.level = compressionLevel.getLevel();
+  }
+
+  @Override
+  public void write(byte[] buf, int off, int len) throws IOException {
+    while (len > 0) {
+      int writeLength = (int) Math.min(len, WINDOW_SIZE - windowBytes);
+      long start = System.nanoTime();
+      super.write(buf, off, writeLength);
+      windowNanos += System.nanoTime() - start;
+      windowBytes += writeLength;
+      bytesPerLevel[level] += writeLength;
+      off += writeLength;
+      len -= writeLength;
+
+      if (windowBytes == WINDOW_SIZE) {
+        adjustLevel();
+      }
+    }
+  }
+
+  @Override
+  public void closeEntry() throws IOException {
+    long start = System.nanoTime();
+    super.closeEntry();
+    windowNanos += System.nanoTime() - start;
+    totalBytes += windowBytes;
+    totalNanos += windowNanos;
+  }
+
+  CompressionStatistics getCompressionStatistics(String fileNameInZip) {
+    return new CompressionStatistics(fileNameInZip, totalBytes, getCompressedSize(), totalNanos,
+        bytesPerLevel.clone(), level);
+  }
+
+  private void adjustLevel() {
+    double throughput = windowNanos == 0 ? Double.MAX_VALUE : windowBytes * 1e9 / windowNanos;
+    totalBytes += windowBytes;
+    totalNanos += windowNanos;
+    windowBytes = 0;
+    windowNanos = 0;
+
+    int newLevel = level;
+    if (throughput < targetThroughput && level > CompressionLevel.FASTEST.getLevel()) {
+      newLevel = level - 1;
+    } else if (throughput > targetThroughput * RAISE_LEVEL_FACTOR && level < CompressionLevel.ULTRA.getLevel()) {
+      newLevel = level + 1;
+    }
+
+    if (newLevel != level) {
+      level = newLevel;
+      deflater.setLevel(level);
+    }
+  }
+}
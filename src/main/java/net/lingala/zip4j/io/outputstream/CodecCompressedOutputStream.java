@@ -0,0 +1,71 @@
+/*
+ * Copyright 2010 Srikanth Reddy Lingala
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.lingala.zip4j.io.outputstream;
+
+import net.lingala.zip4j.io.codec.CompressionCodec;
+import net.lingala.zip4j.model.ZipParameters;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Compresses entry data with a codec from the codec registry. The codec writes its compressed data through this
+ * stream into the cipher output stream, and the compressing stream of the codec is closed when the entry is closed
+ */
+class CodecCompressedOutputStream extends CompressedOutputStream {
+
+  private OutputStream compressingOutputStream;
+
+  public CodecCompressedOutputStream(CipherOutputStream cipherOutputStream, CompressionCodec compressionCodec,
+                                     ZipParameters zipParameters) throws IOException {
+    super(cipherOutputStream);
+    compressingOutputStream = compressionCodec.createCompressingStream(new CompressedDataOutputStream(),
+        zipParameters);
+  }
+
+  @Override
+  public void write(byte[] b, int off, int len) throws IOException {
+    compressingOutputStream.write(b, off, len);
+  }
+
+  @Override
+  public void closeEntry() throws IOException {
+    compressingOutputStream.close();
+    super.closeEntry();
+  }
+
+  private void writeCompressedData(byte[] b, int off, int len) throws IOException {
+    super.write(b, off, len);
+  }
+
+  /**
+   * View of the cipher output stream for the codec, which ignores close so that codecs can close the stream they
+   * write to
+   */
+  private class CompressedDataOutputStream extends OutputStream {
+
+    @Override
+    public void write(int b) throws IOException {
+      writeCompressedData(new byte[] {(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      writeCompressedData(b, off, len);
+    }
+  }
+}
@@ -39,6 +39,20 @@ abstract class CompressedOutputStream extends OutputStream {
     cipherOutputStream.close();
   }
 
+  /**
+   * Returns true if this stream computes the CRC32 of the uncompressed data itself, which is then returned by
+   * {@link #getCrc32()} after the entry is closed
+   *
+   * @return true if the CRC32 is computed by this stream
+   */
+  protected boolean isCrc32Computed() {
+    return false;
+  }
+
+  protected long getCrc32() {
+    return 0;
+  }
+
   public long getCompressedSize() {
     return cipherOutputStream.getNumberOfBytesWrittenForThisEntry();
   }
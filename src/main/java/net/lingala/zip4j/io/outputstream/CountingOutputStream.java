@@ -39,7 +39,7 @@ public class CountingOutputStream extends OutputStream {
   }
 
   public long getOffsetForNextEntry() throws IOException {
-    if (isSplitOutputStream()) {
+    if (outputStream instanceof SplitOutputStream) {
       return ((SplitOutputStream) outputStream).getFilePointer();
     }
 
@@ -60,7 +60,7 @@ public class CountingOutputStream extends OutputStream {
   }
 
   public long getNumberOfBytesWritten() throws IOException {
-    if (isSplitOutputStream()) {
+    if (outputStream instanceof SplitOutputStream) {
       return ((SplitOutputStream) outputStream).getFilePointer();
     }
 
@@ -76,10 +76,20 @@ public class CountingOutputStream extends OutputStream {
   }
 
   public long getFilePointer() throws IOException {
-    if (isSplitOutputStream()) {
+    if (outputStream instanceof SplitOutputStream) {
       return ((SplitOutputStream) outputStream).getFilePointer();
     }
 
     return numberOfBytesWritten;
   }
+
+  @Override
+  public void flush() throws IOException {
+    outputStream.flush();
+  }
+
+  @Override
+  public void close() throws IOException {
+    outputStream.close();
+  }
 }
@@ -17,6 +17,7 @@
 package net.lingala.zip4j.io.outputstream;
 
 import net.lingala.zip4j.zip.CompressionLevel;
+import net.lingala.zip4j.zip.CompressionStrategy;
 
 import java.io.IOException;
 import java.util.zip.Deflater;
@@ -30,9 +31,15 @@ class DeflaterOutputStream extends CompressedOutputStream {
   private boolean firstBytesRead;
 
   public DeflaterOutputStream(CipherOutputStream cipherOutputStream, CompressionLevel compressionLevel) {
+    this(cipherOutputStream, compressionLevel, CompressionStrategy.DEFAULT);
+  }
+
+  public DeflaterOutputStream(CipherOutputStream cipherOutputStream, CompressionLevel compressionLevel,
+                              CompressionStrategy compressionStrategy) {
     super(cipherOutputStream);
     deflater = new Deflater();
     deflater.setLevel(compressionLevel.getLevel());
+    deflater.setStrategy(compressionStrategy.getStrategy());
     firstBytesRead = false;
   }
 
@@ -0,0 +1,203 @@
+/*
+ * Copyright 2010 Srikanth Reddy Lingala
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.lingala.zip4j.io.outputstream;
+
+import net.lingala.zip4j.model.ZipParameters;
+import net.lingala.zip4j.util.CRCUtil;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Deflates entry data in blocks on several threads. Each block is deflated independently with the last 32KB of the
+ * previous block as dictionary, so that matches can still reach back into the previous block. All blocks except the
+ * last one end with a sync flush, which ends them on a byte boundary without ending the deflate stream, so that the
+ * compressed blocks joined in order form a single deflate stream. The CRC32 of each block is computed with its
+ * block and combined with the CRC32 of the previous blocks
+ */
+class ParallelDeflaterOutputStream extends CompressedOutputStream {
+
+  private static final int DICTIONARY_SIZE = 32 * 1024;
+
+  private ExecutorService executorService;
+  private int compressionLevel;
+  private int compressionStrategy;
+  private int blockSize;
+  private int maxPendingBlocks;
+
+  private byte[] block;
+  private int blockLength;
+  private byte[] previousBlock;
+  private Deque<Future<CompressedBlock>> pendingBlocks = new ArrayDeque<>();
+  private long crc32;
+
+  public ParallelDeflaterOutputStream(CipherOutputStream cipherOutputStream, ZipParameters zipParameters,
+                                      ExecutorService executorService) {
+    super(cipherOutputStream);
+    this.executorService = executorService;
+    this.compressionLevel = zipParameters.getCompressionLevel().getLevel();
+    this.compressionStrategy = zipParameters.getCompressionStrategy().getStrategy();
+    this.blockSize = Math.max(zipParameters.getParallelCompressionBlockSize(), DICTIONARY_SIZE);
+    this.maxPendingBlocks = zipParameters.getParallelCompressionThreads() * 2;
+    this.block = new byte[blockSize];
+  }
+
+  @Override
+  public void write(int b) throws IOException {
+    write(new byte[] {(byte) b}, 0, 1);
+  }
+
+  @Override
+  public void write(byte[] b) throws IOException {
+    write(b, 0, b.length);
+  }
+
+  @Override
+  public void write(byte[] b, int off, int len) throws IOException {
+    while (len > 0) {
+      int copyLength = Math.min(len, blockSize - blockLength);
+      System.arraycopy(b, off, block, blockLength, copyLength);
+      blockLength += copyLength;
+      off += copyLength;
+      len -= copyLength;
+
+      if (blockLength == blockSize) {
+        submitBlock(false);
+      }
+    }
+  }
+
+  @Override
+  public void closeEntry() throws IOException {
+    submitBlock(true);
+    while (!pendingBlocks.isEmpty()) {
+      writeNextCompressedBlock();
+    }
+
+    super.closeEntry();
+  }
+
+  @Override
+  protected boolean isCrc32Computed() {
+    return true;
+  }
+
+  @Override
+  protected long getCrc32() {
+    return crc32;
+  }
+
+  private void submitBlock(final boolean lastBlock) throws IOException {
+    final byte[] data = block;
+    final int length = blockLength;
+    final byte[] dictionary = previousBlock;
+
+    pendingBlocks.add(executorService.submit(new Callable<CompressedBlock>() {
+      @Override
+      public CompressedBlock call() {
+        return compressBlock(data, length, dictionary, lastBlock);
+      }
+    }));
+
+    previousBlock = data;
+    block = new byte[blockSize];
+    blockLength = 0;
+
+    while (pendingBlocks.size() > maxPendingBlocks) {
+      writeNextCompressedBlock();
+    }
+  }
+
+  private void writeNextCompressedBlock() throws IOException {
+    CompressedBlock compressedBlock;
+    try {
+      compressedBlock = pendingBlocks.removeFirst().get();
+    } catch (InterruptedException e) {
+      cancelPendingBlocks();
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("interrupted while waiting for compressed data");
+    } catch (ExecutionException e) {
+      cancelPendingBlocks();
+      throw new IOException(e.getCause());
+    }
+
+    super.write(compressedBlock.compressedData, 0, compressedBlock.compressedData.length);
+    crc32 = CRCUtil.combineCRC(crc32, compressedBlock.crc32, compressedBlock.uncompressedLength);
+  }
+
+  private void cancelPendingBlocks() {
+    for (Future<CompressedBlock> pendingBlock : pendingBlocks) {
+      pendingBlock.cancel(true);
+    }
+    pendingBlocks.clear();
+  }
+
+  private CompressedBlock compressBlock(byte[] data, int length, byte[] dictionary, boolean lastBlock) {
+    Deflater deflater = new Deflater(compressionLevel, true);
+    try {
+      deflater.setStrategy(compressionStrategy);
+      if (dictionary != null) {
+        deflater.setDictionary(dictionary, dictionary.length - DICTIONARY_SIZE, DICTIONARY_SIZE);
+      }
+      deflater.setInput(data, 0, length);
+
+      ByteArrayOutputStream compressedData = new ByteArrayOutputStream(length / 2 + 64);
+      byte[] buff = new byte[16 * 1024];
+      if (lastBlock) {
+        deflater.finish();
+        while (!deflater.finished()) {
+          int compressedLength = deflater.deflate(buff);
+          compressedData.write(buff, 0, compressedLength);
+        }
+      } else {
+        int compressedLength;
+        do {
+          compressedLength = deflater.deflate(buff, 0, buff.length, Deflater.SYNC_FLUSH);
+          compressedData.write(buff, 0, compressedLength);
+        } while (compressedLength == buff.length);
+      }
+
+      CRC32 crc = new CRC32();
+      crc.update(data, 0, length);
+      return new CompressedBlock(compressedData.toByteArray(), crc.getValue(), length);
+    } finally {
+      deflater.end();
+    }
+  }
+
+  private static class CompressedBlock {
+
+    private byte[] compressedData;
+    private long crc32;
+    private int uncompressedLength;
+
+    CompressedBlock(byte[] compressedData, long crc32, int uncompressedLength) {
+      this.compressedData = compressedData;
+      this.crc32 = crc32;
+      this.uncompressedLength = uncompressedLength;
+    }
+  }
+}
@@ -25,37 +25,117 @@ import net.lingala.zip4j.util.enums.RandomAccessFileMode;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
 import java.io.RandomAccessFile;
-
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import static net.lingala.zip4j.util.InternalZipConstants.DEFAULT_OUTPUT_BUFF_SIZE;
 import static net.lingala.zip4j.util.InternalZipConstants.MIN_SPLIT_LENGTH;
 
+/**
+ * Writes the zip file, and starts a new split file whenever the split length is reached. Headers are never split
+ * across split files. Data is collected in a buffer and written to the file channel when the buffer is full, when
+ * seeking, when starting the next split file and when closing, so that small writes like headers and single bytes
+ * do not each cost a system call.
+ * <br>
+ * Split files are written directly under their final names .z01, .z02 and so on, replacing stale files of the same
+ * name. Only the last split file is renamed to the name of the zip file when the stream is closed. Split files can be
+ * preallocated to the split length, and truncated to their actual length when they are complete. Completed split
+ * files can be closed on a separate thread, so that writing continues while they are truncated and closed
+ */
 public class SplitOutputStream extends OutputStream {
 
+  private static final int[] HEADER_SIGNATURES = getHeaderSignatures();
+
   private RandomAccessFile raf;
+  private FileChannel fileChannel;
+  private ByteBuffer buffer;
   private long splitLength;
   private File zipFile;
   private int currSplitFileCounter;
   private long bytesWrittenForThisPart;
+  private File currSplitFile;
+  private long endOfDataInThisPart;
+  private boolean preallocateSplitFiles;
+  private ExecutorService splitFileCloseExecutor;
+  private List<Future<Void>> pendingSplitFileCloses = new ArrayList<>();
+  private boolean closed;
 
   public SplitOutputStream(File file) throws FileNotFoundException, ZipException {
     this(file, -1);
   }
 
   public SplitOutputStream(File file, long splitLength) throws FileNotFoundException, ZipException {
+    this(file, splitLength, DEFAULT_OUTPUT_BUFF_SIZE);
+  }
+
+  public SplitOutputStream(File file, long splitLength, int bufferSize) throws FileNotFoundException, ZipException {
+    this(file, splitLength, bufferSize, false, false);
+  }
+
+  /**
+   * @param file                  zip file
+   * @param splitLength           length of each split file, or -1 for a zip file which is not split
+   * @param bufferSize            size of the write buffer
+   * @param preallocateSplitFiles whether each split file is preallocated to the split length
+   * @param closeSplitFilesAsync  whether completed split files are truncated and closed on a separate thread
+   * @throws FileNotFoundException
+   * @throws ZipException
+   */
+  public SplitOutputStream(File file, long splitLength, int bufferSize, boolean preallocateSplitFiles,
+                           boolean closeSplitFilesAsync) throws FileNotFoundException, ZipException {
     if (splitLength >= 0 && splitLength < MIN_SPLIT_LENGTH) {
       throw new ZipException("split length less than minimum allowed split length of " + MIN_SPLIT_LENGTH + " Bytes");
     }
 
-    this.raf = new RandomAccessFile(file, RandomAccessFileMode.WRITE.getValue());
+    if (bufferSize <= 0) {
+      throw new ZipException("buffer size should be greater than 0");
+    }
+
+    this.buffer = ByteBuffer.allocate(bufferSize);
     this.splitLength = splitLength;
     this.zipFile = file;
     this.currSplitFileCounter = 0;
     this.bytesWrittenForThisPart = 0;
+    this.preallocateSplitFiles = preallocateSplitFiles;
+
+    if (isSplitZipFile()) {
+      if (closeSplitFilesAsync) {
+        splitFileCloseExecutor = Zip4jUtil.createDaemonThreadPool(1);
+      }
+
+      try {
+        openSplitFile();
+      } catch (IOException e) {
+        throw new ZipException(e);
+      }
+    } else {
+      this.raf = new RandomAccessFile(file, RandomAccessFileMode.WRITE.getValue());
+      this.fileChannel = raf.getChannel();
+    }
   }
 
   public void write(int b) throws IOException {
-    write(new byte[] {(byte) b});
+    if (splitLength != -1 && bytesWrittenForThisPart >= splitLength) {
+      write(new byte[] {(byte) b});
+      return;
+    }
+
+    if (!buffer.hasRemaining()) {
+      flushBuffer();
+    }
+    buffer.put((byte) b);
+    bytesWrittenForThisPart++;
   }
 
   public void write(byte[] b) throws IOException {
@@ -68,69 +148,141 @@ public class SplitOutputStream extends OutputStream {
     }
 
     if (splitLength == -1) {
-      raf.write(b, off, len);
+      writeToBuffer(b, off, len);
       bytesWrittenForThisPart += len;
       return;
     }
 
     if (bytesWrittenForThisPart >= splitLength) {
       startNextSplitFile();
-      raf.write(b, off, len);
+      writeToBuffer(b, off, len);
       bytesWrittenForThisPart = len;
     } else if (bytesWrittenForThisPart + len > splitLength) {
-      if (isHeaderData(b)) {
+      if (isHeaderData(b, off, len)) {
         startNextSplitFile();
-        raf.write(b, off, len);
+        writeToBuffer(b, off, len);
         bytesWrittenForThisPart = len;
       } else {
-        raf.write(b, off, (int) (splitLength - bytesWrittenForThisPart));
+        writeToBuffer(b, off, (int) (splitLength - bytesWrittenForThisPart));
         startNextSplitFile();
-        raf.write(b, off + (int) (splitLength - bytesWrittenForThisPart), (int) (len - (splitLength - bytesWrittenForThisPart)));
+        writeToBuffer(b, off + (int) (splitLength - bytesWrittenForThisPart), (int) (len - (splitLength - bytesWrittenForThisPart)));
         bytesWrittenForThisPart = len - (splitLength - bytesWrittenForThisPart);
       }
     } else {
-      raf.write(b, off, len);
+      writeToBuffer(b, off, len);
       bytesWrittenForThisPart += len;
     }
   }
 
   private void startNextSplitFile() throws IOException {
-    try {
-      String zipFileWithoutExt = Zip4jUtil.getZipFileNameWithoutExt(zipFile.getName());
-      String zipFileName = zipFile.getAbsolutePath();
-      String parentPath = (zipFile.getParent() == null) ? "" : zipFile.getParent() + System.getProperty("file.separator");
+    flushBuffer();
+    closeSplitFile(raf, endOfDataInThisPart);
+    currSplitFileCounter++;
+    openSplitFile();
+  }
 
-      String fileExtension = ".z0" + (currSplitFileCounter + 1);
-      if (currSplitFileCounter > 9) {
-        fileExtension = ".z" + (currSplitFileCounter + 1);
-      }
+  private void openSplitFile() throws IOException {
+    currSplitFile = getSplitFile(currSplitFileCounter);
+    raf = new RandomAccessFile(currSplitFile, RandomAccessFileMode.WRITE.getValue());
+    // setting the length also truncates a stale split file of the same name
+    raf.setLength(preallocateSplitFiles ? splitLength : 0);
+    fileChannel = raf.getChannel();
+    endOfDataInThisPart = 0;
+  }
 
-      File currSplitFile = new File(parentPath + zipFileWithoutExt + fileExtension);
+  private void closeSplitFile(final RandomAccessFile splitFile, final long length) throws IOException {
+    if (splitFileCloseExecutor == null) {
+      truncateAndClose(splitFile, length);
+      return;
+    }
 
-      raf.close();
+    pendingSplitFileCloses.add(splitFileCloseExecutor.submit(new Callable<Void>() {
+      @Override
+      public Void call() throws IOException {
+        truncateAndClose(splitFile, length);
+        return null;
+      }
+    }));
+  }
 
-      if (currSplitFile.exists()) {
-        throw new IOException("split file: " + currSplitFile.getName() + " already exists in the current directory, cannot rename this file");
+  private void truncateAndClose(RandomAccessFile splitFile, long length) throws IOException {
+    try {
+      if (preallocateSplitFiles) {
+        splitFile.setLength(length);
       }
+    } finally {
+      splitFile.close();
+    }
+  }
 
-      if (!zipFile.renameTo(currSplitFile)) {
-        throw new IOException("cannot rename newly created split file");
+  private void waitForPendingSplitFileCloses() throws IOException {
+    try {
+      for (Future<Void> pendingSplitFileClose : pendingSplitFileCloses) {
+        pendingSplitFileClose.get();
       }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("interrupted while waiting for split files to be closed");
+    } catch (ExecutionException e) {
+      throw new IOException(e.getCause());
+    } finally {
+      pendingSplitFileCloses.clear();
+    }
+  }
 
-      zipFile = new File(zipFileName);
-      raf = new RandomAccessFile(zipFile, RandomAccessFileMode.WRITE.getValue());
-      currSplitFileCounter++;
+  private File getSplitFile(int splitFileCounter) throws IOException {
+    try {
+      String zipFileWithoutExt = Zip4jUtil.getZipFileNameWithoutExt(zipFile.getName());
+      String parentPath = (zipFile.getParent() == null) ? "" : zipFile.getParent() + System.getProperty("file.separator");
+
+      String fileExtension = ".z0" + (splitFileCounter + 1);
+      if (splitFileCounter >= 9) {
+        fileExtension = ".z" + (splitFileCounter + 1);
+      }
+
+      return new File(parentPath + zipFileWithoutExt + fileExtension);
     } catch (ZipException e) {
       throw new IOException(e);
     }
   }
 
-  private boolean isHeaderData(byte[] buff) {
-    int signature = Raw.readIntLittleEndian(buff, 0);
-    for (HeaderSignature headerSignature : HeaderSignature.values()) {
-      //Ignore split signature
-      if (headerSignature != HeaderSignature.SPLIT_ZIP &&
-          headerSignature.getValue() == signature) {
+  private void writeToBuffer(byte[] b, int off, int len) throws IOException {
+    if (len > buffer.remaining()) {
+      flushBuffer();
+    }
+
+    if (len >= buffer.capacity()) {
+      writeFully(ByteBuffer.wrap(b, off, len));
+    } else {
+      buffer.put(b, off, len);
+    }
+  }
+
+  private void flushBuffer() throws IOException {
+    if (buffer.position() == 0) {
+      return;
+    }
+
+    buffer.flip();
+    writeFully(buffer);
+    buffer.clear();
+  }
+
+  private void writeFully(ByteBuffer byteBuffer) throws IOException {
+    while (byteBuffer.hasRemaining()) {
+      fileChannel.write(byteBuffer);
+    }
+    endOfDataInThisPart = Math.max(endOfDataInThisPart, fileChannel.position());
+  }
+
+  private boolean isHeaderData(byte[] buff, int off, int len) {
+    if (len < 4) {
+      return false;
+    }
+
+    int signature = Raw.readIntLittleEndian(buff, off);
+    for (int headerSignature : HEADER_SIGNATURES) {
+      if (headerSignature == signature) {
         return true;
       }
     }
@@ -138,6 +290,19 @@ public class SplitOutputStream extends OutputStream {
     return false;
   }
 
+  private static int[] getHeaderSignatures() {
+    HeaderSignature[] headerSignatures = HeaderSignature.values();
+    int[] signatures = new int[headerSignatures.length - 1];
+    int i = 0;
+    for (HeaderSignature headerSignature : headerSignatures) {
+      //Ignore split signature
+      if (headerSignature != HeaderSignature.SPLIT_ZIP) {
+        signatures[i++] = (int) headerSignature.getValue();
+      }
+    }
+    return signatures;
+  }
+
   /**
    * Checks if the buffer size is sufficient for the current split file. If not
    * a new split file will be started.
@@ -182,15 +347,48 @@ public class SplitOutputStream extends OutputStream {
   }
 
   public void seek(long pos) throws IOException {
-    raf.seek(pos);
+    flushBuffer();
+    fileChannel.position(pos);
+  }
+
+  @Override
+  public void flush() throws IOException {
+    flushBuffer();
   }
 
   public void close() throws IOException {
-    raf.close();
+    if (closed) {
+      return;
+    }
+
+    closed = true;
+    if (!isSplitZipFile()) {
+      try {
+        flushBuffer();
+      } finally {
+        raf.close();
+      }
+      return;
+    }
+
+    try {
+      try {
+        flushBuffer();
+      } finally {
+        truncateAndClose(raf, endOfDataInThisPart);
+      }
+      waitForPendingSplitFileCloses();
+    } finally {
+      if (splitFileCloseExecutor != null) {
+        splitFileCloseExecutor.shutdown();
+      }
+    }
+
+    Files.move(currSplitFile.toPath(), zipFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
   }
 
   public long getFilePointer() throws IOException {
-    return raf.getFilePointer();
+    return fileChannel.position() + buffer.position();
   }
 
   public boolean isSplitZipFile() {
@@ -0,0 +1,190 @@
+/*
+ * Copyright 2010 Srikanth Reddy Lingala
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.lingala.zip4j.io.outputstream;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Writes behind the producer on a thread of the executor service. Data is collected in one of a fixed number of
+ * buffers, and full buffers are handed over to the writer thread through a bounded queue, so that writing to disk
+ * overlaps with producing the next buffer. A write error of the writer thread is thrown by the next write or by
+ * close. Closing this stream waits until all data is written and closes the output stream
+ */
+public class WriteBehindOutputStream extends OutputStream {
+
+  private OutputStream outputStream;
+  private BlockingQueue<byte[]> freeBuffers;
+  private BlockingQueue<Chunk> filledChunks;
+  private Future<?> writerTask;
+  private volatile IOException writeException;
+  private byte[] buffer;
+  private int bufferLength;
+  private boolean closed;
+
+  /**
+   * @param outputStream    stream to write to
+   * @param executorService executor service to run the writer on
+   * @param bufferSize      size of each buffer
+   * @param bufferCount     number of buffers, at least 2 so that producing and writing can overlap
+   */
+  public WriteBehindOutputStream(OutputStream outputStream, ExecutorService executorService, int bufferSize,
+                                 int bufferCount) {
+    this.outputStream = outputStream;
+    this.freeBuffers = new ArrayBlockingQueue<>(bufferCount);
+    // one more than the number of buffers, so that the end of stream marker never blocks the producer
+    this.filledChunks = new ArrayBlockingQueue<>(bufferCount + 1);
+
+    for (int i = 0; i < bufferCount - 1; i++) {
+      freeBuffers.add(new byte[bufferSize]);
+    }
+    buffer = new byte[bufferSize];
+
+    writerTask = executorService.submit(new Runnable() {
+      @Override
+      public void run() {
+        writeBehind();
+      }
+    });
+  }
+
+  @Override
+  public void write(int b) throws IOException {
+    write(new byte[] {(byte) b}, 0, 1);
+  }
+
+  @Override
+  public void write(byte[] b) throws IOException {
+    write(b, 0, b.length);
+  }
+
+  @Override
+  public void write(byte[] b, int off, int len) throws IOException {
+    checkWriteException();
+
+    while (len > 0) {
+      int copyLength = Math.min(len, buffer.length - bufferLength);
+      System.arraycopy(b, off, buffer, bufferLength, copyLength);
+      bufferLength += copyLength;
+      off += copyLength;
+      len -= copyLength;
+
+      if (bufferLength == buffer.length) {
+        handOverBuffer();
+      }
+    }
+  }
+
+  /**
+   * Hands the buffered data over to the writer thread without waiting for it to be written
+   *
+   * @throws IOException
+   */
+  @Override
+  public void flush() throws IOException {
+    checkWriteException();
+
+    if (bufferLength > 0) {
+      handOverBuffer();
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (closed) {
+      return;
+    }
+
+    closed = true;
+    try {
+      if (bufferLength > 0 && writeException == null) {
+        filledChunks.put(new Chunk(buffer, bufferLength));
+      }
+      filledChunks.put(new Chunk(null, 0));
+      writerTask.get();
+    } catch (InterruptedException e) {
+      writerTask.cancel(true);
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("interrupted while waiting for data to be written");
+    } catch (ExecutionException e) {
+      throw new IOException(e.getCause());
+    } finally {
+      outputStream.close();
+    }
+
+    checkWriteException();
+  }
+
+  private void handOverBuffer() throws IOException {
+    try {
+      filledChunks.put(new Chunk(buffer, bufferLength));
+      buffer = freeBuffers.take();
+      bufferLength = 0;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("interrupted while waiting for a free buffer");
+    }
+
+    checkWriteException();
+  }
+
+  private void checkWriteException() throws IOException {
+    if (writeException != null) {
+      throw writeException;
+    }
+  }
+
+  private void writeBehind() {
+    try {
+      while (true) {
+        Chunk chunk = filledChunks.take();
+        if (chunk.buffer == null) {
+          return;
+        }
+
+        // after a write error the remaining chunks are only taken to give their buffers back to the producer
+        if (writeException == null) {
+          try {
+            outputStream.write(chunk.buffer, 0, chunk.length);
+          } catch (IOException e) {
+            writeException = e;
+          }
+        }
+
+        freeBuffers.add(chunk.buffer);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static class Chunk {
+
+    private final byte[] buffer;
+    private final int length;
+
+    private Chunk(byte[] buffer, int length) {
+      this.buffer = buffer;
+      this.length = length;
+    }
+  }
+}
@@ -50,8 +50,11 @@ class ZipEntryOutputStream extends OutputStream {
     }
   }
 
+  /**
+   * Does not close the output stream below, which is shared by all entries and is closed when the zip output stream
+   * is closed
+   */
   @Override
-  public void close() throws IOException {
-    outputStream.close();
+  public void close() {
   }
 }
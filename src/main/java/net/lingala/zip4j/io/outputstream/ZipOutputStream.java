@@ -4,16 +4,23 @@ import net.lingala.zip4j.exception.ZipException;
 import net.lingala.zip4j.headers.FileHeaderFactory;
 import net.lingala.zip4j.headers.HeaderSignature;
 import net.lingala.zip4j.headers.HeaderWriter;
+import net.lingala.zip4j.io.codec.CompressionCodec;
+import net.lingala.zip4j.io.codec.CompressionCodecRegistry;
+import net.lingala.zip4j.model.CompressionStatistics;
 import net.lingala.zip4j.model.FileHeader;
 import net.lingala.zip4j.model.LocalFileHeader;
 import net.lingala.zip4j.model.ZipModel;
 import net.lingala.zip4j.model.ZipParameters;
 import net.lingala.zip4j.util.Raw;
+import net.lingala.zip4j.util.Zip4jUtil;
 import net.lingala.zip4j.zip.CompressionMethod;
 import net.lingala.zip4j.zip.EncryptionMethod;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
 import java.util.zip.CRC32;
 
 public class ZipOutputStream extends OutputStream {
@@ -29,6 +36,9 @@ public class ZipOutputStream extends OutputStream {
   private CRC32 crc32 = new CRC32();
   private long uncompressedSizeForThisEntry = 0;
   private boolean writeCrc32 = true;
+  private ExecutorService compressionExecutor;
+  private int compressionExecutorThreads;
+  private List<CompressionStatistics> compressionStatistics = new ArrayList<>();
 
   public ZipOutputStream(OutputStream outputStream) throws IOException {
     this(outputStream, null);
@@ -74,7 +84,9 @@ public class ZipOutputStream extends OutputStream {
   }
 
   public void write(byte[] b, int off, int len) throws IOException {
-    crc32.update(b, off, len);
+    if (!compressedOutputStream.isCrc32Computed()) {
+      crc32.update(b, off, len);
+    }
     compressedOutputStream.write(b, off, len);
     uncompressedSizeForThisEntry += len;
   }
@@ -91,13 +103,19 @@ public class ZipOutputStream extends OutputStream {
       localFileHeader.setUncompressedSize(uncompressedSizeForThisEntry);
 
       if (writeCrc32) {
-        fileHeader.setCrc32(crc32.getValue());
-        localFileHeader.setCrc32(crc32.getValue());
+        long crc = compressedOutputStream.isCrc32Computed() ? compressedOutputStream.getCrc32() : crc32.getValue();
+        fileHeader.setCrc32(crc);
+        localFileHeader.setCrc32(crc);
       }
 
       zipModel.getLocalFileHeaders().add(localFileHeader);
       zipModel.getCentralDirectory().getFileHeaders().add(fileHeader);
 
+      if (compressedOutputStream instanceof AdaptiveDeflaterOutputStream) {
+        compressionStatistics.add(((AdaptiveDeflaterOutputStream) compressedOutputStream)
+            .getCompressionStatistics(fileHeader.getFileName()));
+      }
+
       headerWriter.writeExtendedLocalHeader(localFileHeader, countingOutputStream);
 
       reset();
@@ -106,6 +124,15 @@ public class ZipOutputStream extends OutputStream {
     }
   }
 
+  /**
+   * Returns the statistics of all entries written so far which were compressed with a target throughput
+   *
+   * @return list of compression statistics
+   */
+  public List<CompressionStatistics> getCompressionStatistics() {
+    return compressionStatistics;
+  }
+
   @Override
   public void close() throws IOException {
     try {
@@ -115,6 +142,10 @@ public class ZipOutputStream extends OutputStream {
       throw new IOException(e);
     }
 
+    if (compressionExecutor != null) {
+      compressionExecutor.shutdown();
+    }
+
     countingOutputStream.close();
   }
 
@@ -137,7 +168,14 @@ public class ZipOutputStream extends OutputStream {
     fileHeader.setOffsetLocalHeader(countingOutputStream.getOffsetForNextEntry());
 
     localFileHeader = fileHeaderFactory.generateLocalFileHeader(fileHeader);
-    headerWriter.writeLocalFileHeader(zipModel, localFileHeader, countingOutputStream);
+
+    int dataAlignment = 0;
+    if (zipParameters.getCompressionMethod() == CompressionMethod.STORE && !zipParameters.isEncryptFiles()
+        && !fileHeader.isDirectory()) {
+      dataAlignment = zipParameters.getStoredEntryDataAlignment();
+    }
+    headerWriter.writeLocalFileHeader(zipModel, localFileHeader, countingOutputStream,
+        fileHeader.getOffsetLocalHeader(), dataAlignment);
   }
 
   private void reset() throws IOException {
@@ -180,20 +218,63 @@ public class ZipOutputStream extends OutputStream {
     }
   }
 
-  private CompressedOutputStream initializeCompressedOutputStream(CipherOutputStream cipherOutputStream, ZipParameters zipParameters) {
+  private CompressedOutputStream initializeCompressedOutputStream(CipherOutputStream cipherOutputStream, ZipParameters zipParameters) throws IOException, ZipException {
     if (zipParameters.getCompressionMethod() == CompressionMethod.DEFLATE) {
-      return new DeflaterOutputStream(cipherOutputStream, zipParameters.getCompressionLevel());
+      if (zipParameters.getParallelCompressionThreads() > 1) {
+        return new ParallelDeflaterOutputStream(cipherOutputStream, zipParameters,
+            getCompressionExecutor(zipParameters.getParallelCompressionThreads()));
+      }
+      if (zipParameters.getTargetCompressionThroughput() > 0) {
+        return new AdaptiveDeflaterOutputStream(cipherOutputStream, zipParameters.getCompressionLevel(),
+            zipParameters.getCompressionStrategy(), zipParameters.getTargetCompressionThroughput());
+      }
+      return new DeflaterOutputStream(cipherOutputStream, zipParameters.getCompressionLevel(),
+          zipParameters.getCompressionStrategy());
+    }
+
+    CompressionCodec compressionCodec = CompressionCodecRegistry.getCodec(zipParameters.getCompressionMethodId());
+    if (compressionCodec != null) {
+      return new CodecCompressedOutputStream(cipherOutputStream, compressionCodec, zipParameters);
+    }
+
+    if (zipParameters.getCompressionMethodId() != CompressionMethod.STORE.getCode()) {
+      throw new ZipException("unsupported compression method: " + zipParameters.getCompressionMethodId());
     }
 
     return new StoreOutputStream(cipherOutputStream);
   }
 
+  /**
+   * Returns the executor for parallel compression, which is shared by all entries compressed with the same number of
+   * threads and shut down when this stream is closed
+   */
+  private ExecutorService getCompressionExecutor(int threads) {
+    if (compressionExecutor != null && compressionExecutorThreads == threads) {
+      return compressionExecutor;
+    }
+
+    if (compressionExecutor != null) {
+      compressionExecutor.shutdown();
+    }
+
+    compressionExecutor = Zip4jUtil.createDaemonThreadPool(threads);
+    compressionExecutorThreads = threads;
+    return compressionExecutor;
+  }
+
   private void verifyZipParameters(ZipParameters zipParameters) {
     if (zipParameters.getCompressionMethod() == CompressionMethod.STORE
         && zipParameters.getUncompressedSize() == 0
         && !isEntryDirectory(zipParameters.getFileNameInZip())) {
       throw new IllegalArgumentException("uncompressed size should be set for zip entries of compression type store");
     }
+
+    // Blocks deflated in parallel all use the configured compression level, which a target throughput would adapt
+    if (zipParameters.getParallelCompressionThreads() > 1
+        && (zipParameters.getTargetCompressionThroughput() > 0 || zipParameters.getCompressionDeadline() > 0)) {
+      throw new IllegalArgumentException("parallel compression cannot be combined with a target compression "
+          + "throughput or a compression deadline");
+    }
   }
 
   private boolean isEntryDirectory(String entryName) {
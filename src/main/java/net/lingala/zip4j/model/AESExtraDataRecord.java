@@ -27,6 +27,7 @@ public class AESExtraDataRecord extends ZipHeader {
   private String vendorID;
   private AesKeyStrength aesKeyStrength;
   private CompressionMethod compressionMethod;
+  private int compressionMethodId;
 
   public AESExtraDataRecord() {
     setSignature(HeaderSignature.AES_EXTRA_DATA_RECORD);
@@ -35,6 +36,7 @@ public class AESExtraDataRecord extends ZipHeader {
     vendorID = null;
     aesKeyStrength = AesKeyStrength.KEY_STRENGTH_256;
     compressionMethod = CompressionMethod.DEFLATE;
+    compressionMethodId = CompressionMethod.DEFLATE.getCode();
   }
 
   public int getDataSize() {
@@ -81,5 +83,23 @@ public class AESExtraDataRecord extends ZipHeader {
 
   public void setCompressionMethod(CompressionMethod compressionMethod) {
     this.compressionMethod = compressionMethod;
+    if (compressionMethod != null) {
+      this.compressionMethodId = compressionMethod.getCode();
+    }
+  }
+
+  public int getCompressionMethodId() {
+    return compressionMethodId;
+  }
+
+  /**
+   * Sets the method id of the compression method, and the compression method to the matching one of
+   * {@link CompressionMethod}, or null if the method id is not listed there
+   *
+   * @param compressionMethodId
+   */
+  public void setCompressionMethodId(int compressionMethodId) {
+    this.compressionMethodId = compressionMethodId;
+    this.compressionMethod = CompressionMethod.getCompressionMethodFromCode(compressionMethodId);
   }
 }
@@ -10,6 +10,7 @@ public abstract class AbstractFileHeader extends ZipHeader {
   private int versionNeededToExtract;
   private byte[] generalPurposeFlag;
   private CompressionMethod compressionMethod;
+  private int compressionMethodId;
   private int lastModifiedTime;
   private long crc32 = 0;
   private byte[] crcRawData;
@@ -48,6 +49,28 @@ public abstract class AbstractFileHeader extends ZipHeader {
 
   public void setCompressionMethod(CompressionMethod compressionMethod) {
     this.compressionMethod = compressionMethod;
+    if (compressionMethod != null) {
+      this.compressionMethodId = compressionMethod.getCode();
+    }
+  }
+
+  /**
+   * @return method id of the compression method as stored in the header, also for methods which are not listed in
+   * {@link CompressionMethod}
+   */
+  public int getCompressionMethodId() {
+    return compressionMethodId;
+  }
+
+  /**
+   * Sets the method id of the compression method, and the compression method to the matching one of
+   * {@link CompressionMethod}, or null if the method id is not listed there
+   *
+   * @param compressionMethodId
+   */
+  public void setCompressionMethodId(int compressionMethodId) {
+    this.compressionMethodId = compressionMethodId;
+    this.compressionMethod = CompressionMethod.getCompressionMethodFromCode(compressionMethodId);
   }
 
   public int getLastModifiedTime() {
@@ -169,4 +192,16 @@ public abstract class AbstractFileHeader extends ZipHeader {
   public void setExtraDataRecords(List<ExtraDataRecord> extraDataRecords) {
     this.extraDataRecords = extraDataRecords;
   }
+
+  /**
+   * Returns a copy of this header whose Zip64 extended info is copied as well, as it is modified when entries are
+   * moved. Other extra data records are shared by the copy
+   */
+  public Object clone() throws CloneNotSupportedException {
+    AbstractFileHeader clone = (AbstractFileHeader) super.clone();
+    if (zip64ExtendedInfo != null) {
+      clone.zip64ExtendedInfo = (Zip64ExtendedInfo) zip64ExtendedInfo.clone();
+    }
+    return clone;
+  }
 }
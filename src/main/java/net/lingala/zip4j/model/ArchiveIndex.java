@@ -0,0 +1,351 @@
+/*
+ * Copyright 2010 Srikanth Reddy Lingala
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.lingala.zip4j.model;
+
+import net.lingala.zip4j.exception.ZipException;
+import net.lingala.zip4j.headers.HeaderSignature;
+import net.lingala.zip4j.util.InternalZipConstants;
+import net.lingala.zip4j.util.enums.RandomAccessFileMode;
+import net.lingala.zip4j.zip.AesKeyStrength;
+import net.lingala.zip4j.zip.EncryptionMethod;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Compact index of the entries of a zip file, persisted in a sidecar file. Entries are stored as fixed length records
+ * sorted by file name, followed by a table of the file names. The index file is memory mapped when loaded, and
+ * lookups are binary searches over the records, so that an entry can be found without reading the central directory.
+ * The index identifies the zip file by its length, its last modified time and the bytes of its end of central
+ * directory record, and is not used for a zip file which was modified after the index was written.
+ * <br><br>
+ * File headers returned by the index contain what is needed to read the entry, but no comments, version fields or
+ * extra data records other than the AES extra data record
+ */
+public class ArchiveIndex {
+
+  private static final int INDEX_SIGNATURE = 0x5a34ca02;
+  private static final int RECORD_LENGTH = 55;
+
+  private ByteBuffer buffer;
+  private long zipFileLength;
+  private long zipFileLastModified;
+  private boolean splitArchive;
+  private int numberOfThisDisk;
+  private int numberOfEntries;
+  private int offsetRecords;
+  private int offsetNameTable;
+
+  private ArchiveIndex(ByteBuffer buffer) {
+    this.buffer = buffer;
+  }
+
+  /**
+   * Writes the index of the zip model to the index file. The zip file of the model must not be modified after its
+   * headers were read
+   *
+   * @param zipModel
+   * @param indexFile
+   * @throws ZipException
+   */
+  public static void write(ZipModel zipModel, File indexFile) throws ZipException {
+    if (zipModel == null || zipModel.getZipFile() == null || zipModel.getCentralDirectory() == null) {
+      throw new ZipException("zip model of a zip file is needed to write an archive index");
+    }
+
+    File zipFile = zipModel.getZipFile();
+    List<FileHeader> fileHeaders = new ArrayList<>();
+    for (FileHeader fileHeader : zipModel.getCentralDirectory().getFileHeaders()) {
+      if (fileHeader.getFileName() != null) {
+        fileHeaders.add(fileHeader);
+      }
+    }
+
+    Collections.sort(fileHeaders, new Comparator<FileHeader>() {
+      @Override
+      public int compare(FileHeader o1, FileHeader o2) {
+        return o1.getFileName().compareTo(o2.getFileName());
+      }
+    });
+
+    try (DataOutputStream outputStream = new DataOutputStream(new BufferedOutputStream(
+        new FileOutputStream(indexFile)))) {
+      byte[] endOfCentralDirectory = readEndOfCentralDirectory(zipFile, zipModel);
+      if (endOfCentralDirectory == null) {
+        throw new ZipException("end of central directory record not found, cannot write archive index");
+      }
+
+      outputStream.writeInt(INDEX_SIGNATURE);
+      outputStream.writeLong(zipFile.length());
+      outputStream.writeLong(zipFile.lastModified());
+      outputStream.writeBoolean(zipModel.isSplitArchive());
+      outputStream.writeInt(zipModel.getEndOfCentralDirectoryRecord().getNumberOfThisDisk());
+      outputStream.writeInt(endOfCentralDirectory.length);
+      outputStream.write(endOfCentralDirectory);
+      outputStream.writeInt(fileHeaders.size());
+
+      ByteArrayOutputStream nameTable = new ByteArrayOutputStream();
+      for (FileHeader fileHeader : fileHeaders) {
+        byte[] fileName = fileHeader.getFileName().getBytes(StandardCharsets.UTF_8);
+        writeRecord(outputStream, fileHeader, nameTable.size(), fileName.length);
+        nameTable.write(fileName);
+      }
+
+      nameTable.writeTo(outputStream);
+    } catch (IOException e) {
+      throw new ZipException(e);
+    }
+  }
+
+  private static void writeRecord(DataOutputStream outputStream, FileHeader fileHeader, int nameOffset,
+                                  int nameLength) throws IOException {
+    AESExtraDataRecord aesExtraDataRecord = fileHeader.getAesExtraDataRecord();
+
+    outputStream.writeInt(nameOffset);
+    outputStream.writeShort(nameLength);
+    outputStream.writeLong(fileHeader.getOffsetLocalHeader());
+    outputStream.writeLong(fileHeader.getCompressedSize());
+    outputStream.writeLong(fileHeader.getUncompressedSize());
+    outputStream.writeInt((int) fileHeader.getCrc32());
+    outputStream.writeShort(fileHeader.getCompressionMethodId());
+    outputStream.write(getGeneralPurposeFlag(fileHeader));
+    outputStream.writeInt(fileHeader.getLastModifiedTime());
+    outputStream.write(fileHeader.getExternalFileAttributes() == null ? new byte[4]
+        : fileHeader.getExternalFileAttributes());
+    outputStream.writeShort(fileHeader.getDiskNumberStart());
+    outputStream.writeByte(fileHeader.getEncryptionMethod().ordinal());
+    outputStream.writeByte(aesExtraDataRecord == null ? 0 : aesExtraDataRecord.getAesKeyStrength().getRawCode());
+    outputStream.writeShort(aesExtraDataRecord == null ? 0 : aesExtraDataRecord.getCompressionMethodId());
+    outputStream.writeShort(aesExtraDataRecord == null ? 0 : aesExtraDataRecord.getVersionNumber());
+    outputStream.writeBoolean(fileHeader.isDirectory());
+  }
+
+  private static byte[] getGeneralPurposeFlag(FileHeader fileHeader) {
+    byte[] generalPurposeFlag = fileHeader.getGeneralPurposeFlag();
+    return generalPurposeFlag == null ? new byte[2] : Arrays.copyOf(generalPurposeFlag, 2);
+  }
+
+  private static byte[] readEndOfCentralDirectory(File zipFile, ZipModel zipModel) throws IOException {
+    int length = InternalZipConstants.ENDHDR + zipModel.getEndOfCentralDirectoryRecord().getCommentLength();
+    return readEndOfZipFile(zipFile, length);
+  }
+
+  private static byte[] readEndOfZipFile(File zipFile, int length) throws IOException {
+    try (RandomAccessFile randomAccessFile = new RandomAccessFile(zipFile, RandomAccessFileMode.READ.getValue())) {
+      if (randomAccessFile.length() < length) {
+        return null;
+      }
+
+      byte[] b = new byte[length];
+      randomAccessFile.seek(randomAccessFile.length() - length);
+      randomAccessFile.readFully(b);
+      return b;
+    }
+  }
+
+  /**
+   * Loads the index file by mapping it into memory. Returns null if the index file does not exist or if the zip file
+   * was modified after the index was written
+   *
+   * @param indexFile
+   * @param zipFile
+   * @return index or null
+   * @throws ZipException if the index file is not an archive index
+   */
+  public static ArchiveIndex load(File indexFile, File zipFile) throws ZipException {
+    if (!indexFile.exists() || !zipFile.exists()) {
+      return null;
+    }
+
+    try (FileChannel fileChannel = FileChannel.open(indexFile.toPath(), StandardOpenOption.READ)) {
+      if (fileChannel.size() > Integer.MAX_VALUE) {
+        throw new ZipException("invalid archive index: index file is too large");
+      }
+
+      ArchiveIndex index = new ArchiveIndex(fileChannel.map(FileChannel.MapMode.READ_ONLY, 0, fileChannel.size()));
+      byte[] endOfCentralDirectory = index.readHeader();
+
+      if (!index.isIndexOf(zipFile)
+          || !Arrays.equals(endOfCentralDirectory, readEndOfZipFile(zipFile, endOfCentralDirectory.length))) {
+        return null;
+      }
+
+      return index;
+    } catch (IOException e) {
+      throw new ZipException(e);
+    }
+  }
+
+  private byte[] readHeader() throws ZipException {
+    try {
+      ByteBuffer header = buffer.duplicate();
+      if (header.getInt() != INDEX_SIGNATURE) {
+        throw new ZipException("invalid archive index");
+      }
+
+      zipFileLength = header.getLong();
+      zipFileLastModified = header.getLong();
+      splitArchive = header.get() != 0;
+      numberOfThisDisk = header.getInt();
+      byte[] endOfCentralDirectory = new byte[header.getInt()];
+      header.get(endOfCentralDirectory);
+      numberOfEntries = header.getInt();
+      offsetRecords = header.position();
+      offsetNameTable = offsetRecords + numberOfEntries * RECORD_LENGTH;
+
+      if (numberOfEntries < 0 || offsetNameTable < offsetRecords || offsetNameTable > buffer.limit()) {
+        throw new ZipException("invalid archive index: truncated index file");
+      }
+
+      return endOfCentralDirectory;
+    } catch (RuntimeException e) {
+      throw new ZipException("invalid archive index: " + e.getMessage());
+    }
+  }
+
+  /**
+   * Checks if the length and the last modified time of the zip file are still the ones of the indexed zip file
+   *
+   * @param zipFile
+   * @return true if the index can be used for the zip file
+   */
+  public boolean isIndexOf(File zipFile) {
+    return zipFile.length() == zipFileLength && zipFile.lastModified() == zipFileLastModified;
+  }
+
+  /**
+   * Returns the file header of the entry with the given file name, or null if there is no such entry
+   *
+   * @param fileName
+   * @return FileHeader or null
+   */
+  public FileHeader getFileHeader(String fileName) {
+    int low = 0;
+    int high = numberOfEntries - 1;
+
+    while (low <= high) {
+      int middle = (low + high) >>> 1;
+      int result = getFileName(middle).compareTo(fileName);
+
+      if (result < 0) {
+        low = middle + 1;
+      } else if (result > 0) {
+        high = middle - 1;
+      } else {
+        return getFileHeader(middle);
+      }
+    }
+
+    return null;
+  }
+
+  /**
+   * Returns the file header of the entry at the given position in the order of the file names
+   *
+   * @param index
+   * @return FileHeader
+   */
+  public FileHeader getFileHeader(int index) {
+    if (index < 0 || index >= numberOfEntries) {
+      throw new IndexOutOfBoundsException("no entry at index " + index);
+    }
+
+    ByteBuffer record = buffer.duplicate();
+    record.position(offsetRecords + index * RECORD_LENGTH + 6);
+
+    FileHeader fileHeader = new FileHeader();
+    fileHeader.setSignature(HeaderSignature.CENTRAL_DIRECTORY);
+    fileHeader.setFileName(getFileName(index));
+    fileHeader.setOffsetLocalHeader(record.getLong());
+    fileHeader.setCompressedSize(record.getLong());
+    fileHeader.setUncompressedSize(record.getLong());
+    fileHeader.setCrc32(record.getInt() & 0xffffffffL);
+
+    fileHeader.setCompressionMethodId(record.getShort() & 0xffff);
+
+    byte[] generalPurposeFlag = new byte[2];
+    record.get(generalPurposeFlag);
+    fileHeader.setGeneralPurposeFlag(generalPurposeFlag);
+    fileHeader.setEncrypted((generalPurposeFlag[0] & 1) != 0);
+    fileHeader.setDataDescriptorExists((generalPurposeFlag[0] & 8) != 0);
+    fileHeader.setFileNameUTF8Encoded((generalPurposeFlag[1] & 8) != 0);
+
+    fileHeader.setLastModifiedTime(record.getInt());
+    byte[] externalFileAttributes = new byte[4];
+    record.get(externalFileAttributes);
+    fileHeader.setExternalFileAttributes(externalFileAttributes);
+    fileHeader.setDiskNumberStart(record.getShort() & 0xffff);
+    fileHeader.setEncryptionMethod(EncryptionMethod.values()[record.get()]);
+
+    int aesKeyStrengthCode = record.get();
+    int aesCompressionMethodCode = record.getShort() & 0xffff;
+    int aesVersionNumber = record.getShort() & 0xffff;
+    if (aesKeyStrengthCode != 0) {
+      AESExtraDataRecord aesExtraDataRecord = new AESExtraDataRecord();
+      aesExtraDataRecord.setDataSize(7);
+      aesExtraDataRecord.setVersionNumber(aesVersionNumber);
+      aesExtraDataRecord.setVendorID("AE");
+      aesExtraDataRecord.setAesKeyStrength(AesKeyStrength.getAesKeyStrengthFromRawCode(aesKeyStrengthCode));
+      aesExtraDataRecord.setCompressionMethodId(aesCompressionMethodCode);
+      fileHeader.setAesExtraDataRecord(aesExtraDataRecord);
+    }
+
+    fileHeader.setDirectory(record.get() != 0);
+    return fileHeader;
+  }
+
+  private String getFileName(int index) {
+    int offsetRecord = offsetRecords + index * RECORD_LENGTH;
+    ByteBuffer fileName = buffer.duplicate();
+    fileName.position(offsetNameTable + buffer.getInt(offsetRecord));
+    fileName.limit(fileName.position() + (buffer.getShort(offsetRecord + 4) & 0xffff));
+    return StandardCharsets.UTF_8.decode(fileName).toString();
+  }
+
+  /**
+   * Creates a zip model with the information needed to read entries of the indexed zip file. The central directory
+   * of the model is empty
+   *
+   * @param zipFile
+   * @return zip model
+   */
+  public ZipModel createZipModel(File zipFile) {
+    ZipModel zipModel = new ZipModel();
+    zipModel.setZipFile(zipFile);
+    zipModel.setSplitArchive(splitArchive);
+    zipModel.getEndOfCentralDirectoryRecord().setNumberOfThisDisk(numberOfThisDisk);
+    return zipModel;
+  }
+
+  public int getNumberOfEntries() {
+    return numberOfEntries;
+  }
+}
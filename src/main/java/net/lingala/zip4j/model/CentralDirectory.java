@@ -19,7 +19,7 @@ package net.lingala.zip4j.model;
 import java.util.ArrayList;
 import java.util.List;
 
-public class CentralDirectory {
+public class CentralDirectory implements Cloneable {
 
   private List<FileHeader> fileHeaders = new ArrayList<>();
   private DigitalSignature digitalSignature = new DigitalSignature();
@@ -40,5 +40,17 @@ public class CentralDirectory {
     this.digitalSignature = digitalSignature;
   }
 
-
+  /**
+   * Returns a copy of this central directory with copies of its file headers
+   */
+  public Object clone() throws CloneNotSupportedException {
+    CentralDirectory clone = (CentralDirectory) super.clone();
+    if (fileHeaders != null) {
+      clone.fileHeaders = new ArrayList<>(fileHeaders.size());
+      for (FileHeader fileHeader : fileHeaders) {
+        clone.fileHeaders.add((FileHeader) fileHeader.clone());
+      }
+    }
+    return clone;
+  }
 }
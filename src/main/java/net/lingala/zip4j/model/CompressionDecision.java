@@ -0,0 +1,83 @@
+/*
+ * Copyright 2010 Srikanth Reddy Lingala
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.lingala.zip4j.model;
+
+import net.lingala.zip4j.zip.CompressionMethod;
+
+/**
+ * Compression method chosen for an entry by adaptive compression, together with the data the choice was based on
+ */
+public class CompressionDecision {
+
+  private String fileNameInZip;
+  private CompressionMethod compressionMethod;
+  private boolean decidedByFileExtension;
+  private long sampledBytes;
+  private long compressedSampleBytes;
+
+  public CompressionDecision(String fileNameInZip, CompressionMethod compressionMethod, boolean decidedByFileExtension,
+                             long sampledBytes, long compressedSampleBytes) {
+    this.fileNameInZip = fileNameInZip;
+    this.compressionMethod = compressionMethod;
+    this.decidedByFileExtension = decidedByFileExtension;
+    this.sampledBytes = sampledBytes;
+    this.compressedSampleBytes = compressedSampleBytes;
+  }
+
+  public String getFileNameInZip() {
+    return fileNameInZip;
+  }
+
+  public CompressionMethod getCompressionMethod() {
+    return compressionMethod;
+  }
+
+  /**
+   * @return true if the file was stored because of its file extension, without sampling its content
+   */
+  public boolean isDecidedByFileExtension() {
+    return decidedByFileExtension;
+  }
+
+  public long getSampledBytes() {
+    return sampledBytes;
+  }
+
+  public long getCompressedSampleBytes() {
+    return compressedSampleBytes;
+  }
+
+  /**
+   * Returns the fraction of the sample saved by compressing it, which is negative if compressed data is larger, or
+   * 0 if no sample was taken
+   *
+   * @return estimated savings
+   */
+  public double getEstimatedSavings() {
+    if (sampledBytes == 0) {
+      return 0;
+    }
+
+    return 1 - (double) compressedSampleBytes / sampledBytes;
+  }
+
+  @Override
+  public String toString() {
+    return fileNameInZip + ": " + compressionMethod + (decidedByFileExtension ? " (file extension)"
+        : String.format(" (estimated savings %.1f%%)", getEstimatedSavings() * 100));
+  }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2010 Srikanth Reddy Lingala
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.lingala.zip4j.model;
+
+/**
+ * Statistics of an entry compressed with a target throughput: the achieved throughput and ratio, and how much of the
+ * data was compressed at each deflate level
+ */
+public class CompressionStatistics {
+
+  private String fileNameInZip;
+  private long uncompressedSize;
+  private long compressedSize;
+  private long compressionTimeNanos;
+  private long[] bytesPerLevel;
+  private int finalLevel;
+
+  public CompressionStatistics(String fileNameInZip, long uncompressedSize, long compressedSize,
+                               long compressionTimeNanos, long[] bytesPerLevel, int finalLevel) {
+    this.fileNameInZip = fileNameInZip;
+    this.uncompressedSize = uncompressedSize;
+    this.compressedSize = compressedSize;
+    this.compressionTimeNanos = compressionTimeNanos;
+    this.bytesPerLevel = bytesPerLevel;
+    this.finalLevel = finalLevel;
+  }
+
+  public String getFileNameInZip() {
+    return fileNameInZip;
+  }
+
+  public long getUncompressedSize() {
+    return uncompressedSize;
+  }
+
+  public long getCompressedSize() {
+    return compressedSize;
+  }
+
+  public long getCompressionTimeNanos() {
+    return compressionTimeNanos;
+  }
+
+  /**
+   * @return uncompressed bytes compressed per second
+   */
+  public double getThroughput() {
+    if (compressionTimeNanos == 0) {
+      return 0;
+    }
+
+    return uncompressedSize * 1e9 / compressionTimeNanos;
+  }
+
+  /**
+   * @return compressed size divided by uncompressed size
+   */
+  public double getRatio() {
+    if (uncompressedSize == 0) {
+      return 1;
+    }
+
+    return (double) compressedSize / uncompressedSize;
+  }
+
+  /**
+   * Returns the number of uncompressed bytes which were compressed with the deflate level
+   *
+   * @param level deflate level from 1 to 9
+   * @return number of bytes
+   */
+  public long getBytesCompressedAtLevel(int level) {
+    return bytesPerLevel[level];
+  }
+
+  public int getFinalLevel() {
+    return finalLevel;
+  }
+}
@@ -0,0 +1,193 @@
+/*
+ * Copyright 2010 Srikanth Reddy Lingala
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.lingala.zip4j.model;
+
+import net.lingala.zip4j.exception.ZipException;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Index of access points into a deflated entry. Each checkpoint holds the offset in the decompressed data, the bit
+ * offset of the deflate block starting there and the 32KB of data decompressed before it, which is all that is
+ * needed to resume decompression at this point. The index identifies the entry by its CRC and sizes, so that an
+ * index persisted with {@link #write(OutputStream)} is not used for a different entry.
+ */
+public class DeflateCheckpointIndex {
+
+  private static final int INDEX_SIGNATURE = 0x5a34ca01;
+
+  private long crc;
+  private long compressedSize;
+  private long uncompressedSize;
+  private List<Checkpoint> checkpoints = new ArrayList<>();
+
+  public DeflateCheckpointIndex(long crc, long compressedSize, long uncompressedSize) {
+    this.crc = crc;
+    this.compressedSize = compressedSize;
+    this.uncompressedSize = uncompressedSize;
+  }
+
+  public void addCheckpoint(Checkpoint checkpoint) {
+    checkpoints.add(checkpoint);
+  }
+
+  /**
+   * Returns the last checkpoint at or before the input offset in the decompressed data
+   *
+   * @param uncompressedOffset
+   * @return checkpoint
+   */
+  public Checkpoint getCheckpointFor(long uncompressedOffset) {
+    int low = 0;
+    int high = checkpoints.size() - 1;
+
+    while (low < high) {
+      int middle = (low + high + 1) >>> 1;
+      if (checkpoints.get(middle).getUncompressedOffset() <= uncompressedOffset) {
+        low = middle;
+      } else {
+        high = middle - 1;
+      }
+    }
+
+    return checkpoints.get(low);
+  }
+
+  public boolean isIndexOf(long crc, long compressedSize, long uncompressedSize) {
+    return this.crc == crc && this.compressedSize == compressedSize && this.uncompressedSize == uncompressedSize;
+  }
+
+  /**
+   * Writes this index to the output stream. Windows of the checkpoints are compressed
+   *
+   * @param outputStream
+   * @throws IOException
+   */
+  public void write(OutputStream outputStream) throws IOException {
+    Deflater deflater = new Deflater();
+    try {
+      DeflaterOutputStream deflaterOutputStream = new DeflaterOutputStream(outputStream, deflater);
+      DataOutputStream dataOutputStream = new DataOutputStream(deflaterOutputStream);
+      dataOutputStream.writeInt(INDEX_SIGNATURE);
+      dataOutputStream.writeLong(crc);
+      dataOutputStream.writeLong(compressedSize);
+      dataOutputStream.writeLong(uncompressedSize);
+      dataOutputStream.writeInt(checkpoints.size());
+
+      for (Checkpoint checkpoint : checkpoints) {
+        dataOutputStream.writeLong(checkpoint.getUncompressedOffset());
+        dataOutputStream.writeLong(checkpoint.getBitOffset());
+        dataOutputStream.writeInt(checkpoint.getWindow().length);
+        dataOutputStream.write(checkpoint.getWindow());
+      }
+
+      dataOutputStream.flush();
+      deflaterOutputStream.finish();
+    } finally {
+      deflater.end();
+    }
+  }
+
+  /**
+   * Reads an index written with {@link #write(OutputStream)}
+   *
+   * @param inputStream
+   * @return index
+   * @throws IOException
+   * @throws ZipException if the input is not an index
+   */
+  public static DeflateCheckpointIndex read(InputStream inputStream) throws IOException, ZipException {
+    Inflater inflater = new Inflater();
+    try {
+      DataInputStream dataInputStream = new DataInputStream(new InflaterInputStream(inputStream, inflater));
+      if (dataInputStream.readInt() != INDEX_SIGNATURE) {
+        throw new ZipException("invalid deflate checkpoint index");
+      }
+
+      DeflateCheckpointIndex index = new DeflateCheckpointIndex(dataInputStream.readLong(),
+          dataInputStream.readLong(), dataInputStream.readLong());
+      int numberOfCheckpoints = dataInputStream.readInt();
+
+      for (int i = 0; i < numberOfCheckpoints; i++) {
+        long uncompressedOffset = dataInputStream.readLong();
+        long bitOffset = dataInputStream.readLong();
+        byte[] window = new byte[dataInputStream.readInt()];
+        dataInputStream.readFully(window);
+        index.addCheckpoint(new Checkpoint(uncompressedOffset, bitOffset, window));
+      }
+
+      if (index.checkpoints.isEmpty()) {
+        throw new ZipException("invalid deflate checkpoint index: no checkpoints");
+      }
+
+      return index;
+    } finally {
+      inflater.end();
+    }
+  }
+
+  public long getCrc() {
+    return crc;
+  }
+
+  public long getCompressedSize() {
+    return compressedSize;
+  }
+
+  public long getUncompressedSize() {
+    return uncompressedSize;
+  }
+
+  public List<Checkpoint> getCheckpoints() {
+    return checkpoints;
+  }
+
+  public static class Checkpoint {
+
+    private long uncompressedOffset;
+    private long bitOffset;
+    private byte[] window;
+
+    public Checkpoint(long uncompressedOffset, long bitOffset, byte[] window) {
+      this.uncompressedOffset = uncompressedOffset;
+      this.bitOffset = bitOffset;
+      this.window = window;
+    }
+
+    public long getUncompressedOffset() {
+      return uncompressedOffset;
+    }
+
+    public long getBitOffset() {
+      return bitOffset;
+    }
+
+    public byte[] getWindow() {
+      return window;
+    }
+  }
+}
@@ -0,0 +1,235 @@
+/*
+ * Copyright 2010 Srikanth Reddy Lingala
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.lingala.zip4j.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Index of the file headers of a zip file sorted by file name. As all entries below a folder share the folder name
+ * as prefix, they form a contiguous range of the sorted names, which is found with binary searches. Listing the
+ * entries below a folder or matching a glob pattern therefore only looks at the entries in this range, instead of
+ * at all file headers of the zip file. Folder names are separated with '/'
+ */
+public class EntryNameIndex {
+
+  private static final String SEPARATOR = "/";
+
+  private String[] fileNames;
+  private FileHeader[] fileHeaders;
+
+  public EntryNameIndex(List<FileHeader> fileHeaders) {
+    List<FileHeader> sortedFileHeaders = new ArrayList<>(fileHeaders.size());
+    for (FileHeader fileHeader : fileHeaders) {
+      if (fileHeader.getFileName() != null) {
+        sortedFileHeaders.add(fileHeader);
+      }
+    }
+
+    Collections.sort(sortedFileHeaders, new Comparator<FileHeader>() {
+      @Override
+      public int compare(FileHeader o1, FileHeader o2) {
+        return o1.getFileName().compareTo(o2.getFileName());
+      }
+    });
+
+    this.fileHeaders = sortedFileHeaders.toArray(new FileHeader[0]);
+    this.fileNames = new String[this.fileHeaders.length];
+    for (int i = 0; i < this.fileHeaders.length; i++) {
+      fileNames[i] = this.fileHeaders[i].getFileName();
+    }
+  }
+
+  /**
+   * Returns the file header with the given file name, or null if there is no such entry
+   *
+   * @param fileName
+   * @return FileHeader or null
+   */
+  public FileHeader getFileHeader(String fileName) {
+    int index = Arrays.binarySearch(fileNames, fileName);
+    return index < 0 ? null : fileHeaders[index];
+  }
+
+  /**
+   * Returns the file headers of all entries whose file name starts with the prefix, in the order of their names.
+   * With a folder name ending with '/' as prefix, this is the folder entry, if it exists, and all entries below it
+   *
+   * @param prefix
+   * @return list of file headers
+   */
+  public List<FileHeader> listPrefix(String prefix) {
+    int start = findFirst(prefix);
+    int end = findEndOfPrefix(prefix, start);
+    return new ArrayList<>(Arrays.asList(fileHeaders).subList(start, end));
+  }
+
+  /**
+   * Returns the names of the direct children of a folder, in sorted order. The names of child folders end with
+   * '/', and child folders are listed also if the zip file has no entry for them, but only for entries below them.
+   * An empty or null folder name lists the top level of the zip file
+   *
+   * @param folderName
+   * @return list of file names
+   */
+  public List<String> listChildren(String folderName) {
+    String prefix = toFolderPrefix(folderName);
+    int i = findFirst(prefix);
+    int end = findEndOfPrefix(prefix, i);
+    List<String> children = new ArrayList<>();
+
+    while (i < end) {
+      String fileName = fileNames[i];
+      int indexOfSeparator = fileName.indexOf(SEPARATOR, prefix.length());
+
+      if (fileName.length() == prefix.length()) {
+        i++;
+      } else if (indexOfSeparator < 0) {
+        children.add(fileName);
+        i++;
+      } else {
+        // Skip all entries below the child folder at once
+        String childFolderName = fileName.substring(0, indexOfSeparator + 1);
+        children.add(childFolderName);
+        i = findEndOfPrefix(childFolderName, i);
+      }
+    }
+
+    return children;
+  }
+
+  /**
+   * Returns the file headers of all entries whose file name matches the glob pattern, in the order of their names.
+   * In the pattern, '*' matches any characters except '/', '**' matches any characters including '/' and '?'
+   * matches a single character except '/'. Only the entries starting with the part of the pattern before the first
+   * wildcard are looked at
+   *
+   * @param globPattern
+   * @return list of file headers
+   */
+  public List<FileHeader> glob(String globPattern) {
+    Pattern pattern = toRegex(globPattern);
+    List<FileHeader> matchingFileHeaders = new ArrayList<>();
+
+    for (FileHeader fileHeader : listPrefix(getLiteralPrefix(globPattern))) {
+      if (pattern.matcher(fileHeader.getFileName()).matches()) {
+        matchingFileHeaders.add(fileHeader);
+      }
+    }
+
+    return matchingFileHeaders;
+  }
+
+  public int size() {
+    return fileHeaders.length;
+  }
+
+  private String toFolderPrefix(String folderName) {
+    if (folderName == null || folderName.isEmpty()) {
+      return "";
+    }
+
+    return folderName.endsWith(SEPARATOR) ? folderName : folderName + SEPARATOR;
+  }
+
+  /**
+   * Returns the index of the first file name which is not smaller than the input name
+   */
+  private int findFirst(String fileName) {
+    int low = 0;
+    int high = fileNames.length;
+
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (fileNames[middle].compareTo(fileName) < 0) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+
+    return low;
+  }
+
+  /**
+   * Returns the index after the last file name starting with the prefix, searching from the index of the first
+   * file name which is not smaller than the prefix. File names with the prefix are all sorted before the others
+   */
+  private int findEndOfPrefix(String prefix, int start) {
+    int low = start;
+    int high = fileNames.length;
+
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (fileNames[middle].startsWith(prefix)) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+
+    return low;
+  }
+
+  private String getLiteralPrefix(String globPattern) {
+    for (int i = 0; i < globPattern.length(); i++) {
+      char c = globPattern.charAt(i);
+      if (c == '*' || c == '?') {
+        return globPattern.substring(0, i);
+      }
+    }
+
+    return globPattern;
+  }
+
+  private Pattern toRegex(String globPattern) {
+    StringBuilder regex = new StringBuilder();
+    int literalStart = 0;
+
+    for (int i = 0; i < globPattern.length(); i++) {
+      char c = globPattern.charAt(i);
+      if (c != '*' && c != '?') {
+        continue;
+      }
+
+      if (literalStart < i) {
+        regex.append(Pattern.quote(globPattern.substring(literalStart, i)));
+      }
+
+      if (c == '?') {
+        regex.append("[^/]");
+      } else if (i + 1 < globPattern.length() && globPattern.charAt(i + 1) == '*') {
+        regex.append(".*");
+        i++;
+      } else {
+        regex.append("[^/]*");
+      }
+
+      literalStart = i + 1;
+    }
+
+    if (literalStart < globPattern.length()) {
+      regex.append(Pattern.quote(globPattern.substring(literalStart)));
+    }
+
+    return Pattern.compile(regex.toString(), Pattern.DOTALL);
+  }
+}
@@ -24,6 +24,8 @@ public class UnzipParameters {
   private boolean ignoreSystemFileAttribute;
   private boolean ignoreAllFileAttributes;
   private boolean ignoreDateTimeAttributes;
+  private boolean skipUnchangedFiles;
+  private boolean pipelinedIo;
 
   public boolean isIgnoreReadOnlyFileAttribute() {
     return ignoreReadOnlyFileAttribute;
@@ -73,5 +75,25 @@ public class UnzipParameters {
     this.ignoreDateTimeAttributes = ignoreDateTimeAttributes;
   }
 
+  public boolean isSkipUnchangedFiles() {
+    return skipUnchangedFiles;
+  }
+
+  public void setSkipUnchangedFiles(boolean skipUnchangedFiles) {
+    this.skipUnchangedFiles = skipUnchangedFiles;
+  }
 
+  public boolean isPipelinedIo() {
+    return pipelinedIo;
+  }
+
+  /**
+   * Sets whether extractAll and extractFiles read the zip file ahead and write the extracted files behind on
+   * separate threads, so that disk reads, decompression and disk writes of an entry overlap. Default is false
+   *
+   * @param pipelinedIo
+   */
+  public void setPipelinedIo(boolean pipelinedIo) {
+    this.pipelinedIo = pipelinedIo;
+  }
 }
@@ -2,7 +2,7 @@ package net.lingala.zip4j.model;
 
 import net.lingala.zip4j.headers.HeaderSignature;
 
-public abstract class ZipHeader {
+public abstract class ZipHeader implements Cloneable {
 
   private HeaderSignature signature;
 
@@ -13,4 +13,8 @@ public abstract class ZipHeader {
   public void setSignature(HeaderSignature signature) {
     this.signature = signature;
   }
+
+  public Object clone() throws CloneNotSupportedException {
+    return super.clone();
+  }
 }
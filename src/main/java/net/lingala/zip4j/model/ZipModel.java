@@ -17,6 +17,7 @@
 package net.lingala.zip4j.model;
 
 import java.io.File;
+import java.nio.channels.SeekableByteChannel;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -33,6 +34,7 @@ public class ZipModel implements Cloneable {
   private boolean splitArchive;
   private long splitLength;
   private File zipFile;
+  private SeekableByteChannel zipFileChannel;
   private boolean isZip64Format;
   private boolean isNestedZipFile;
   private long start;
@@ -100,6 +102,14 @@ public class ZipModel implements Cloneable {
     this.zipFile = zipFile;
   }
 
+  public SeekableByteChannel getZipFileChannel() {
+    return zipFileChannel;
+  }
+
+  public void setZipFileChannel(SeekableByteChannel zipFileChannel) {
+    this.zipFileChannel = zipFileChannel;
+  }
+
   public Zip64EndOfCentralDirectoryLocator getZip64EndOfCentralDirectoryLocator() {
     return zip64EndOfCentralDirectoryLocator;
   }
@@ -162,6 +172,39 @@ public class ZipModel implements Cloneable {
     return super.clone();
   }
 
+  /**
+   * Returns a copy of this zip model whose headers can be modified without modifying the headers of this zip model.
+   * Local file headers, data descriptors and extra data records, which are not modified when a zip file is changed,
+   * are shared by the copy
+   *
+   * @return copy of this zip model
+   * @throws CloneNotSupportedException
+   */
+  public ZipModel deepClone() throws CloneNotSupportedException {
+    ZipModel clone = (ZipModel) super.clone();
+    if (localFileHeaders != null) {
+      clone.localFileHeaders = new ArrayList<>(localFileHeaders);
+    }
+    if (dataDescriptors != null) {
+      clone.dataDescriptors = new ArrayList<>(dataDescriptors);
+    }
+    if (centralDirectory != null) {
+      clone.centralDirectory = (CentralDirectory) centralDirectory.clone();
+    }
+    if (endOfCentralDirectoryRecord != null) {
+      clone.endOfCentralDirectoryRecord = (EndOfCentralDirectoryRecord) endOfCentralDirectoryRecord.clone();
+    }
+    if (zip64EndOfCentralDirectoryLocator != null) {
+      clone.zip64EndOfCentralDirectoryLocator =
+          (Zip64EndOfCentralDirectoryLocator) zip64EndOfCentralDirectoryLocator.clone();
+    }
+    if (zip64EndOfCentralDirectoryRecord != null) {
+      clone.zip64EndOfCentralDirectoryRecord =
+          (Zip64EndOfCentralDirectoryRecord) zip64EndOfCentralDirectoryRecord.clone();
+    }
+    return clone;
+  }
+
   public String getFileNameCharset() {
     return fileNameCharset;
   }
@@ -20,16 +20,23 @@ import net.lingala.zip4j.util.Zip4jUtil;
 import net.lingala.zip4j.zip.AesKeyStrength;
 import net.lingala.zip4j.zip.CompressionLevel;
 import net.lingala.zip4j.zip.CompressionMethod;
+import net.lingala.zip4j.zip.CompressionPolicy;
+import net.lingala.zip4j.zip.CompressionStrategy;
 import net.lingala.zip4j.zip.EncryptionMethod;
 
+import java.util.Set;
 import java.util.TimeZone;
 
+import static net.lingala.zip4j.util.InternalZipConstants.DEFAULT_OUTPUT_BUFF_SIZE;
 import static net.lingala.zip4j.util.InternalZipConstants.FILE_SEPARATOR;
 
 public class ZipParameters {
 
   private CompressionMethod compressionMethod = CompressionMethod.DEFLATE;
+  private int compressionMethodId = CompressionMethod.DEFLATE.getCode();
   private CompressionLevel compressionLevel = CompressionLevel.NORMAL;
+  private CompressionStrategy compressionStrategy = CompressionStrategy.DEFAULT;
+  private CompressionPolicy compressionPolicy;
   private boolean encryptFiles = false;
   private EncryptionMethod encryptionMethod = EncryptionMethod.NONE;
   private boolean readHiddenFiles = true;
@@ -42,13 +49,29 @@ public class ZipParameters {
   private String fileNameInZip;
   private int lastModifiedFileTime;
   private long uncompressedSize;
+  private boolean compareFileCrcOnSync = false;
+  private int storedEntryDataAlignment = 0;
+  private boolean adaptiveCompression = false;
+  private double adaptiveCompressionMinimumSavings = 0.05;
+  private Set<String> storedFileExtensions;
+  private int parallelCompressionThreads = 1;
+  private int parallelCompressionBlockSize = 128 * 1024;
+  private long targetCompressionThroughput = 0;
+  private long compressionDeadline = 0;
+  private boolean pipelinedIo;
+  private int outputBufferSize = DEFAULT_OUTPUT_BUFF_SIZE;
+  private boolean preallocateSplitFiles;
+  private boolean closeSplitFilesAsync;
 
   public ZipParameters() {
   }
 
   public ZipParameters(ZipParameters zipParameters) {
     this.compressionMethod = zipParameters.getCompressionMethod();
+    this.compressionMethodId = zipParameters.getCompressionMethodId();
     this.compressionLevel = zipParameters.getCompressionLevel();
+    this.compressionStrategy = zipParameters.getCompressionStrategy();
+    this.compressionPolicy = zipParameters.getCompressionPolicy();
     this.encryptFiles = zipParameters.isEncryptFiles();
     this.encryptionMethod = zipParameters.getEncryptionMethod();
     this.readHiddenFiles = zipParameters.isReadHiddenFiles();
@@ -61,6 +84,19 @@ public class ZipParameters {
     this.fileNameInZip = zipParameters.getFileNameInZip();
     this.lastModifiedFileTime = zipParameters.getLastModifiedFileTime();
     this.uncompressedSize = zipParameters.getUncompressedSize();
+    this.compareFileCrcOnSync = zipParameters.isCompareFileCrcOnSync();
+    this.storedEntryDataAlignment = zipParameters.getStoredEntryDataAlignment();
+    this.adaptiveCompression = zipParameters.isAdaptiveCompression();
+    this.adaptiveCompressionMinimumSavings = zipParameters.getAdaptiveCompressionMinimumSavings();
+    this.storedFileExtensions = zipParameters.getStoredFileExtensions();
+    this.parallelCompressionThreads = zipParameters.getParallelCompressionThreads();
+    this.parallelCompressionBlockSize = zipParameters.getParallelCompressionBlockSize();
+    this.targetCompressionThroughput = zipParameters.getTargetCompressionThroughput();
+    this.compressionDeadline = zipParameters.getCompressionDeadline();
+    this.pipelinedIo = zipParameters.isPipelinedIo();
+    this.outputBufferSize = zipParameters.getOutputBufferSize();
+    this.preallocateSplitFiles = zipParameters.isPreallocateSplitFiles();
+    this.closeSplitFilesAsync = zipParameters.isCloseSplitFilesAsync();
   }
 
   public CompressionMethod getCompressionMethod() {
@@ -69,6 +105,52 @@ public class ZipParameters {
 
   public void setCompressionMethod(CompressionMethod compressionMethod) {
     this.compressionMethod = compressionMethod;
+    if (compressionMethod != null) {
+      this.compressionMethodId = compressionMethod.getCode();
+    }
+  }
+
+  public int getCompressionMethodId() {
+    return compressionMethodId;
+  }
+
+  /**
+   * Sets the compression method by its method id, for compression methods which are not listed in
+   * {@link CompressionMethod} but have a codec registered in the CompressionCodecRegistry. The compression method
+   * is set to the matching one of {@link CompressionMethod}, or null if the method id is not listed there
+   *
+   * @param compressionMethodId
+   */
+  public void setCompressionMethodId(int compressionMethodId) {
+    this.compressionMethodId = compressionMethodId;
+    this.compressionMethod = CompressionMethod.getCompressionMethodFromCode(compressionMethodId);
+  }
+
+  public CompressionStrategy getCompressionStrategy() {
+    return compressionStrategy;
+  }
+
+  /**
+   * Sets the deflate strategy, for example HUFFMAN_ONLY for dense data in which repeated strings are rare
+   *
+   * @param compressionStrategy
+   */
+  public void setCompressionStrategy(CompressionStrategy compressionStrategy) {
+    this.compressionStrategy = compressionStrategy;
+  }
+
+  public CompressionPolicy getCompressionPolicy() {
+    return compressionPolicy;
+  }
+
+  /**
+   * Sets a policy which chooses the compression of each file when adding files or folders, overriding the
+   * compression method, level and strategy of these parameters per file
+   *
+   * @param compressionPolicy
+   */
+  public void setCompressionPolicy(CompressionPolicy compressionPolicy) {
+    this.compressionPolicy = compressionPolicy;
   }
 
   public boolean isEncryptFiles() {
@@ -191,4 +273,189 @@ public class ZipParameters {
   public void setUncompressedSize(long uncompressedSize) {
     this.uncompressedSize = uncompressedSize;
   }
+
+  public boolean isCompareFileCrcOnSync() {
+    return compareFileCrcOnSync;
+  }
+
+  public void setCompareFileCrcOnSync(boolean compareFileCrcOnSync) {
+    this.compareFileCrcOnSync = compareFileCrcOnSync;
+  }
+
+  public int getStoredEntryDataAlignment() {
+    return storedEntryDataAlignment;
+  }
+
+  /**
+   * Aligns the start of the data of entries stored without compression and encryption to a multiple of the input
+   * number of bytes, for example 4096 to allow memory mapping entries on page boundaries. The local file header is
+   * padded with an extra data record to do so. Entries are aligned when they are written, copying them to another
+   * offset when removing or replacing other entries can break their alignment. 0 disables the alignment
+   *
+   * @param storedEntryDataAlignment
+   */
+  public void setStoredEntryDataAlignment(int storedEntryDataAlignment) {
+    this.storedEntryDataAlignment = storedEntryDataAlignment;
+  }
+
+  public boolean isAdaptiveCompression() {
+    return adaptiveCompression;
+  }
+
+  /**
+   * When set, files added with a compression method other than STORE are stored instead if their file extension is
+   * one of the stored file extensions, or if compressing the first 64KB of the file saves less than the minimum
+   * savings. The decision for each file is reported in the progress monitor
+   *
+   * @param adaptiveCompression
+   */
+  public void setAdaptiveCompression(boolean adaptiveCompression) {
+    this.adaptiveCompression = adaptiveCompression;
+  }
+
+  public double getAdaptiveCompressionMinimumSavings() {
+    return adaptiveCompressionMinimumSavings;
+  }
+
+  /**
+   * Sets the fraction of the sampled data which compression has to save for a file to be compressed with adaptive
+   * compression. Default is 0.05
+   *
+   * @param adaptiveCompressionMinimumSavings
+   */
+  public void setAdaptiveCompressionMinimumSavings(double adaptiveCompressionMinimumSavings) {
+    this.adaptiveCompressionMinimumSavings = adaptiveCompressionMinimumSavings;
+  }
+
+  public Set<String> getStoredFileExtensions() {
+    return storedFileExtensions;
+  }
+
+  /**
+   * Sets the lower case file extensions, without dot, of files which are always stored with adaptive compression.
+   * If not set, a list of common image, audio, video and archive formats is used
+   *
+   * @param storedFileExtensions
+   */
+  public void setStoredFileExtensions(Set<String> storedFileExtensions) {
+    this.storedFileExtensions = storedFileExtensions;
+  }
+
+  public int getParallelCompressionThreads() {
+    return parallelCompressionThreads;
+  }
+
+  /**
+   * Sets the number of threads deflating the data of each entry. With more than one thread, entry data is split
+   * into blocks which are deflated in parallel and joined into a single deflate stream, which any unzip tool can
+   * read. More than one thread cannot be combined with a target compression throughput or a compression deadline.
+   * Default is 1
+   *
+   * @param parallelCompressionThreads
+   */
+  public void setParallelCompressionThreads(int parallelCompressionThreads) {
+    this.parallelCompressionThreads = parallelCompressionThreads;
+  }
+
+  public int getParallelCompressionBlockSize() {
+    return parallelCompressionBlockSize;
+  }
+
+  /**
+   * Sets the size of the blocks deflated in parallel, which is at least 32KB. Default is 128KB
+   *
+   * @param parallelCompressionBlockSize
+   */
+  public void setParallelCompressionBlockSize(int parallelCompressionBlockSize) {
+    this.parallelCompressionBlockSize = parallelCompressionBlockSize;
+  }
+
+  public long getTargetCompressionThroughput() {
+    return targetCompressionThroughput;
+  }
+
+  /**
+   * Sets the throughput in uncompressed bytes per second which deflate compression should reach. When set, the
+   * compression level is only the starting level, and is lowered or raised for every MB of data to meet the target.
+   * The levels used are reported as compression statistics. Cannot be combined with parallel compression. 0 disables
+   * the adaptation, which is the default
+   *
+   * @param targetCompressionThroughput
+   */
+  public void setTargetCompressionThroughput(long targetCompressionThroughput) {
+    this.targetCompressionThroughput = targetCompressionThroughput;
+  }
+
+  public long getCompressionDeadline() {
+    return compressionDeadline;
+  }
+
+  /**
+   * Sets the time in milliseconds since the epoch by which adding files should be done. Before each file, the
+   * target compression throughput is set to the throughput needed to compress the remaining files until the
+   * deadline. Cannot be combined with parallel compression. 0 disables the deadline, which is the default
+   *
+   * @param compressionDeadline
+   */
+  public void setCompressionDeadline(long compressionDeadline) {
+    this.compressionDeadline = compressionDeadline;
+  }
+
+  public boolean isPipelinedIo() {
+    return pipelinedIo;
+  }
+
+  /**
+   * Sets whether files are read ahead on a separate thread when adding files, so that reading the next part of a
+   * file overlaps with compressing and writing the current part. Files smaller than the read ahead buffer are read
+   * directly. Default is false
+   *
+   * @param pipelinedIo
+   */
+  public void setPipelinedIo(boolean pipelinedIo) {
+    this.pipelinedIo = pipelinedIo;
+  }
+
+  public int getOutputBufferSize() {
+    return outputBufferSize;
+  }
+
+  /**
+   * Sets the size of the buffer in which the zip file is collected before it is written to disk. Larger buffers
+   * save system calls when adding many small files. Default is 64KB
+   *
+   * @param outputBufferSize
+   */
+  public void setOutputBufferSize(int outputBufferSize) {
+    this.outputBufferSize = outputBufferSize;
+  }
+
+  public boolean isPreallocateSplitFiles() {
+    return preallocateSplitFiles;
+  }
+
+  /**
+   * Sets whether each split file is preallocated to the split length when it is started, so that the file system can
+   * reserve contiguous space for it. Split files are truncated to their actual length when they are complete. Only
+   * applies to split zip files. Default is false
+   *
+   * @param preallocateSplitFiles
+   */
+  public void setPreallocateSplitFiles(boolean preallocateSplitFiles) {
+    this.preallocateSplitFiles = preallocateSplitFiles;
+  }
+
+  public boolean isCloseSplitFilesAsync() {
+    return closeSplitFilesAsync;
+  }
+
+  /**
+   * Sets whether completed split files are truncated and closed on a separate thread, so that writing the next split
+   * file does not wait for it. Only applies to split zip files. Default is false
+   *
+   * @param closeSplitFilesAsync
+   */
+  public void setCloseSplitFilesAsync(boolean closeSplitFilesAsync) {
+    this.closeSplitFilesAsync = closeSplitFilesAsync;
+  }
 }
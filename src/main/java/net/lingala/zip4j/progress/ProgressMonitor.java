@@ -17,6 +17,12 @@
 package net.lingala.zip4j.progress;
 
 import net.lingala.zip4j.exception.ZipException;
+import net.lingala.zip4j.model.CompressionDecision;
+import net.lingala.zip4j.model.CompressionStatistics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 /**
  * If Zip4j is set to run in thread mode, this class helps retrieve current progress
@@ -33,6 +39,8 @@ public class ProgressMonitor {
   private Throwable exception;
   private boolean cancelAllTasks;
   private boolean pause;
+  private List<CompressionDecision> compressionDecisions = Collections.synchronizedList(new ArrayList<>());
+  private List<CompressionStatistics> compressionStatistics = Collections.synchronizedList(new ArrayList<>());
 
   //Progress monitor States
   public static final int STATE_READY = 0;
@@ -161,6 +169,44 @@ public class ProgressMonitor {
     result = RESULT_SUCCESS;
   }
 
+  /**
+   * Returns the compression methods chosen by adaptive compression for the files of the last add operation
+   *
+   * @return list of compression decisions
+   */
+  public List<CompressionDecision> getCompressionDecisions() {
+    synchronized (compressionDecisions) {
+      return new ArrayList<>(compressionDecisions);
+    }
+  }
+
+  public void addCompressionDecision(CompressionDecision compressionDecision) {
+    compressionDecisions.add(compressionDecision);
+  }
+
+  public void clearCompressionDecisions() {
+    compressionDecisions.clear();
+  }
+
+  /**
+   * Returns the statistics of the files of the last add operation which were compressed with a target throughput
+   *
+   * @return list of compression statistics
+   */
+  public List<CompressionStatistics> getCompressionStatistics() {
+    synchronized (compressionStatistics) {
+      return new ArrayList<>(compressionStatistics);
+    }
+  }
+
+  public void addCompressionStatistics(CompressionStatistics compressionStatistics) {
+    this.compressionStatistics.add(compressionStatistics);
+  }
+
+  public void clearCompressionStatistics() {
+    compressionStatistics.clear();
+  }
+
   public boolean isCancelAllTasks() {
     return cancelAllTasks;
   }
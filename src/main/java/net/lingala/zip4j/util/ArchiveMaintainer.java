@@ -17,7 +17,6 @@
 package net.lingala.zip4j.util;
 
 import net.lingala.zip4j.exception.ZipException;
-import net.lingala.zip4j.headers.HeaderReader;
 import net.lingala.zip4j.headers.HeaderSignature;
 import net.lingala.zip4j.headers.HeaderWriter;
 import net.lingala.zip4j.io.outputstream.CountingOutputStream;
@@ -37,13 +36,24 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.io.RandomAccessFile;
 import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import static net.lingala.zip4j.util.InternalZipConstants.BUFF_SIZE;
 import static net.lingala.zip4j.util.InternalZipConstants.DEFAULT_COMMENT_CHARSET;
 import static net.lingala.zip4j.util.InternalZipConstants.MAX_ALLOWED_ZIP_COMMENT_LENGTH;
+import static net.lingala.zip4j.util.InternalZipConstants.MERGE_BUFF_SIZE;
 import static net.lingala.zip4j.util.InternalZipConstants.OFFSET_CENTRAL_DIR;
 import static net.lingala.zip4j.util.InternalZipConstants.THREAD_NAME;
 
@@ -79,7 +89,28 @@ public class ArchiveMaintainer {
       throw new ZipException("input parameters is null in maintain zip file, cannot remove file from archive");
     }
 
-    OutputStream outputStream = null;
+    return initRemoveZipFiles(zipModel, Collections.singletonList(fileHeader), progressMonitor);
+  }
+
+  /**
+   * Removes all the input file headers from the zip file by rewriting the archive once. Local file headers and
+   * data of entries which are retained are copied as-is, without decompressing or decrypting them, and only
+   * their offsets are updated in the central directory.
+   *
+   * @param zipModel
+   * @param fileHeadersToRemove
+   * @param progressMonitor
+   * @return map containing the offset of central directory of the rewritten zip file
+   * @throws ZipException
+   */
+  public HashMap initRemoveZipFiles(ZipModel zipModel, List<FileHeader> fileHeadersToRemove,
+                                    ProgressMonitor progressMonitor) throws ZipException {
+
+    if (fileHeadersToRemove == null || zipModel == null) {
+      throw new ZipException("input parameters is null in maintain zip file, cannot remove files from archive");
+    }
+
+    CountingOutputStream outputStream = null;
     File zipFile = null;
     RandomAccessFile inputStream = null;
     boolean successFlag = false;
@@ -87,16 +118,20 @@ public class ArchiveMaintainer {
     HashMap retMap = new HashMap();
 
     try {
-      int indexOfFileHeader = Zip4jUtil.getIndexOfFileHeader(zipModel, fileHeader);
-
-      if (indexOfFileHeader < 0) {
-        throw new ZipException("file header not found in zip model, cannot remove file");
-      }
-
       if (zipModel.isSplitArchive()) {
         throw new ZipException("This is a split archive. Zip file format does not allow updating split/spanned files");
       }
 
+      List<FileHeader> fileHeaders = zipModel.getCentralDirectory().getFileHeaders();
+      Set<FileHeader> headersToRemove = new HashSet<>();
+      for (FileHeader fileHeader : fileHeadersToRemove) {
+        int indexOfFileHeader = Zip4jUtil.getIndexOfFileHeader(zipModel, fileHeader);
+        if (indexOfFileHeader < 0) {
+          throw new ZipException("file header not found in zip model, cannot remove file");
+        }
+        headersToRemove.add(fileHeaders.get(indexOfFileHeader));
+      }
+
       long currTime = System.currentTimeMillis();
       tmpZipFileName = zipModel.getZipFile().getPath() + currTime % 1000;
       File tmpFile = new File(tmpZipFileName);
@@ -108,7 +143,7 @@ public class ArchiveMaintainer {
       }
 
       try {
-        outputStream = new SplitOutputStream(new File(tmpZipFileName));
+        outputStream = new CountingOutputStream(new SplitOutputStream(tmpFile));
       } catch (FileNotFoundException e1) {
         throw new ZipException(e1);
       }
@@ -117,21 +152,6 @@ public class ArchiveMaintainer {
 
       inputStream = createFileHandler(zipModel, RandomAccessFileMode.READ.getValue());
 
-      HeaderReader headerReader = new HeaderReader();
-      LocalFileHeader localFileHeader = headerReader.readLocalFileHeader(inputStream, fileHeader);
-      if (localFileHeader == null) {
-        throw new ZipException("invalid local file header, cannot remove file from archive");
-      }
-
-      long offsetLocalFileHeader = fileHeader.getOffsetLocalHeader();
-
-      if (fileHeader.getZip64ExtendedInfo() != null &&
-          fileHeader.getZip64ExtendedInfo().getOffsetLocalHeader() != -1) {
-        offsetLocalFileHeader = fileHeader.getZip64ExtendedInfo().getOffsetLocalHeader();
-      }
-
-      long offsetEndOfCompressedFile = -1;
-
       long offsetStartCentralDir = zipModel.getEndOfCentralDirectoryRecord().getOffsetOfStartOfCentralDirectory();
       if (zipModel.isZip64Format()) {
         if (zipModel.getZip64EndOfCentralDirectoryRecord() != null) {
@@ -139,64 +159,72 @@ public class ArchiveMaintainer {
         }
       }
 
-      List<FileHeader> fileHeaders = zipModel.getCentralDirectory().getFileHeaders();
+      // Entries are not necessarily in the same order in central directory as they are in the zip file. The extent of
+      // each entry is therefore determined from the offset of the entry which physically follows it
+      List<FileHeader> fileHeadersSortedByOffset = new ArrayList<>(fileHeaders);
+      Collections.sort(fileHeadersSortedByOffset, new Comparator<FileHeader>() {
+        @Override
+        public int compare(FileHeader o1, FileHeader o2) {
+          return Long.compare(getOffsetLocalHeader(o1), getOffsetLocalHeader(o2));
+        }
+      });
 
-      if (indexOfFileHeader == fileHeaders.size() - 1) {
-        offsetEndOfCompressedFile = offsetStartCentralDir - 1;
-      } else {
-        FileHeader nextFileHeader = (FileHeader) fileHeaders.get(indexOfFileHeader + 1);
-        if (nextFileHeader != null) {
-          offsetEndOfCompressedFile = nextFileHeader.getOffsetLocalHeader() - 1;
-          if (nextFileHeader.getZip64ExtendedInfo() != null &&
-              nextFileHeader.getZip64ExtendedInfo().getOffsetLocalHeader() != -1) {
-            offsetEndOfCompressedFile = nextFileHeader.getZip64ExtendedInfo().getOffsetLocalHeader() - 1;
-          }
+      long[] offsetsEndOfEntry = new long[fileHeadersSortedByOffset.size()];
+      for (int i = 0; i < fileHeadersSortedByOffset.size(); i++) {
+        if (i == fileHeadersSortedByOffset.size() - 1) {
+          offsetsEndOfEntry[i] = offsetStartCentralDir;
+        } else {
+          offsetsEndOfEntry[i] = getOffsetLocalHeader(fileHeadersSortedByOffset.get(i + 1));
         }
       }
 
-      if (offsetLocalFileHeader < 0 || offsetEndOfCompressedFile < 0) {
-        throw new ZipException("invalid offset for start and end of local file, cannot remove file");
-      }
+      // New offsets are only applied to the headers once all entries are copied, so that the zip model still matches
+      // the original zip file if the task is cancelled or fails
+      long[] newOffsetsLocalFileHeader = new long[fileHeadersSortedByOffset.size()];
+      for (int i = 0; i < fileHeadersSortedByOffset.size(); i++) {
+        FileHeader fileHeader = fileHeadersSortedByOffset.get(i);
+        long offsetLocalFileHeader = getOffsetLocalHeader(fileHeader);
+        newOffsetsLocalFileHeader[i] = -1;
 
-      if (indexOfFileHeader == 0) {
-        if (zipModel.getCentralDirectory().getFileHeaders().size() > 1) {
-          // if this is the only file and it is deleted then no need to do this
-          copyFile(inputStream, outputStream, offsetEndOfCompressedFile + 1, offsetStartCentralDir, progressMonitor);
+        if (offsetLocalFileHeader < 0 || offsetsEndOfEntry[i] < offsetLocalFileHeader) {
+          throw new ZipException("invalid offset for start and end of local file, cannot remove file");
         }
-      } else if (indexOfFileHeader == fileHeaders.size() - 1) {
-        copyFile(inputStream, outputStream, 0, offsetLocalFileHeader, progressMonitor);
-      } else {
-        copyFile(inputStream, outputStream, 0, offsetLocalFileHeader, progressMonitor);
-        copyFile(inputStream, outputStream, offsetEndOfCompressedFile + 1, offsetStartCentralDir, progressMonitor);
-      }
 
-      if (progressMonitor.isCancelAllTasks()) {
-        progressMonitor.setResult(ProgressMonitor.RESULT_CANCELLED);
-        progressMonitor.setState(ProgressMonitor.STATE_READY);
-        return null;
-      }
+        if (headersToRemove.contains(fileHeader)) {
+          continue;
+        }
 
-      zipModel.getEndOfCentralDirectoryRecord().setOffsetOfStartOfCentralDirectory(((SplitOutputStream) outputStream).getFilePointer());
-      zipModel.getEndOfCentralDirectoryRecord().setTotalNumberOfEntriesInCentralDirectory(
-          zipModel.getEndOfCentralDirectoryRecord().getTotalNumberOfEntriesInCentralDirectory() - 1);
-      zipModel.getEndOfCentralDirectoryRecord().setTotalNumberOfEntriesInCentralDirectoryOnThisDisk(
-          zipModel.getEndOfCentralDirectoryRecord().getTotalNumberOfEntriesInCentralDirectoryOnThisDisk() - 1);
+        newOffsetsLocalFileHeader[i] = outputStream.getFilePointer();
+        copyFile(inputStream, outputStream, offsetLocalFileHeader, offsetsEndOfEntry[i], progressMonitor);
 
-      zipModel.getCentralDirectory().getFileHeaders().remove(indexOfFileHeader);
+        if (progressMonitor.isCancelAllTasks()) {
+          progressMonitor.setResult(ProgressMonitor.RESULT_CANCELLED);
+          progressMonitor.setState(ProgressMonitor.STATE_READY);
+          return null;
+        }
+      }
 
-      for (int i = indexOfFileHeader; i < zipModel.getCentralDirectory().getFileHeaders().size(); i++) {
-        long offsetLocalHdr = ((FileHeader) zipModel.getCentralDirectory().getFileHeaders().get(i)).getOffsetLocalHeader();
-        if (((FileHeader) zipModel.getCentralDirectory().getFileHeaders().get(i)).getZip64ExtendedInfo() != null &&
-            ((FileHeader) zipModel.getCentralDirectory().getFileHeaders().get(i)).getZip64ExtendedInfo().getOffsetLocalHeader() != -1) {
-          offsetLocalHdr = ((FileHeader) zipModel.getCentralDirectory().getFileHeaders().get(i)).getZip64ExtendedInfo().getOffsetLocalHeader();
+      for (int i = 0; i < fileHeadersSortedByOffset.size(); i++) {
+        if (newOffsetsLocalFileHeader[i] == -1) {
+          continue;
         }
 
-        ((FileHeader) zipModel.getCentralDirectory().getFileHeaders().get(i)).setOffsetLocalHeader(
-            offsetLocalHdr - (offsetEndOfCompressedFile - offsetLocalFileHeader) - 1);
+        FileHeader fileHeader = fileHeadersSortedByOffset.get(i);
+        fileHeader.setOffsetLocalHeader(newOffsetsLocalFileHeader[i]);
+        if (fileHeader.getZip64ExtendedInfo() != null &&
+            fileHeader.getZip64ExtendedInfo().getOffsetLocalHeader() != -1) {
+          fileHeader.getZip64ExtendedInfo().setOffsetLocalHeader(newOffsetsLocalFileHeader[i]);
+        }
       }
 
+      fileHeaders.removeAll(headersToRemove);
+
+      zipModel.getEndOfCentralDirectoryRecord().setOffsetOfStartOfCentralDirectory(outputStream.getFilePointer());
+      zipModel.getEndOfCentralDirectoryRecord().setTotalNumberOfEntriesInCentralDirectory(fileHeaders.size());
+      zipModel.getEndOfCentralDirectoryRecord().setTotalNumberOfEntriesInCentralDirectoryOnThisDisk(fileHeaders.size());
+
       HeaderWriter headerWriter = new HeaderWriter();
-      headerWriter.finalizeZipFile(zipModel, (CountingOutputStream) outputStream);
+      headerWriter.finalizeZipFile(zipModel, outputStream);
 
       successFlag = true;
 
@@ -220,7 +248,7 @@ public class ArchiveMaintainer {
 
       if (successFlag) {
         restoreFileName(zipFile, tmpZipFileName);
-      } else {
+      } else if (tmpZipFileName != null) {
         File newZipFile = new File(tmpZipFileName);
         newZipFile.delete();
       }
@@ -229,6 +257,14 @@ public class ArchiveMaintainer {
     return retMap;
   }
 
+  private long getOffsetLocalHeader(FileHeader fileHeader) {
+    if (fileHeader.getZip64ExtendedInfo() != null &&
+        fileHeader.getZip64ExtendedInfo().getOffsetLocalHeader() != -1) {
+      return fileHeader.getZip64ExtendedInfo().getOffsetLocalHeader();
+    }
+    return fileHeader.getOffsetLocalHeader();
+  }
+
   private void restoreFileName(File zipFile, String tmpZipFileName) throws ZipException {
     if (zipFile.delete()) {
       File newZipFile = new File(tmpZipFileName);
@@ -324,23 +360,37 @@ public class ArchiveMaintainer {
    */
   public void mergeSplitZipFiles(final ZipModel zipModel, final File outputZipFile,
                                  final ProgressMonitor progressMonitor, boolean runInThread) throws ZipException {
+    mergeSplitZipFiles(zipModel, outputZipFile, progressMonitor, runInThread, 1);
+  }
+
+  /**
+   * Merges split Zip files into a single Zip file. With more than one thread, the split files are copied
+   * concurrently to their offsets in the preallocated output file
+   *
+   * @param zipModel
+   * @param threads number of threads copying split files
+   * @throws ZipException
+   */
+  public void mergeSplitZipFiles(final ZipModel zipModel, final File outputZipFile,
+                                 final ProgressMonitor progressMonitor, boolean runInThread, final int threads)
+      throws ZipException {
     if (runInThread) {
       Thread thread = new Thread(THREAD_NAME) {
         public void run() {
           try {
-            initMergeSplitZipFile(zipModel, outputZipFile, progressMonitor);
+            initMergeSplitZipFile(zipModel, outputZipFile, progressMonitor, threads);
           } catch (ZipException e) {
           }
         }
       };
       thread.start();
     } else {
-      initMergeSplitZipFile(zipModel, outputZipFile, progressMonitor);
+      initMergeSplitZipFile(zipModel, outputZipFile, progressMonitor, threads);
     }
   }
 
   private void initMergeSplitZipFile(ZipModel zipModel, File outputZipFile,
-                                     ProgressMonitor progressMonitor) throws ZipException {
+                                     ProgressMonitor progressMonitor, int threads) throws ZipException {
     if (zipModel == null) {
       ZipException e = new ZipException("one of the input parameters is null, cannot merge split zip file");
       progressMonitor.endProgressMonitorError(e);
@@ -354,9 +404,7 @@ public class ArchiveMaintainer {
     }
 
     OutputStream outputStream = null;
-    RandomAccessFile inputStream = null;
-    ArrayList fileSizeList = new ArrayList();
-    long totBytesWritten = 0;
+    ArrayList<Long> fileSizeList = new ArrayList<>();
     boolean splitSigRemoved = false;
     try {
 
@@ -366,10 +414,61 @@ public class ArchiveMaintainer {
         throw new ZipException("corrupt zip model, archive not a split zip file");
       }
 
-      outputStream = prepareOutputStreamForMerge(outputZipFile);
-      for (int i = 0; i <= totNoOfSplitFiles; i++) {
-        inputStream = createSplitZipFileHandler(zipModel, i);
+      if (threads > 1) {
+        splitSigRemoved = copySplitZipFilesInParallel(zipModel, outputZipFile, fileSizeList, progressMonitor, threads);
+        outputStream = new FileOutputStream(outputZipFile, true);
+      } else {
+        outputStream = prepareOutputStreamForMerge(outputZipFile);
+        splitSigRemoved = copySplitZipFiles(zipModel, outputStream, fileSizeList, progressMonitor);
+      }
+
+      if (progressMonitor.isCancelAllTasks()) {
+        progressMonitor.setResult(ProgressMonitor.RESULT_CANCELLED);
+        progressMonitor.setState(ProgressMonitor.STATE_READY);
+        return;
+      }
+
+      long totBytesWritten = outputZipFile.length();
+      ZipModel newZipModel = (ZipModel) zipModel.clone();
+      newZipModel.getEndOfCentralDirectoryRecord().setOffsetOfStartOfCentralDirectory(totBytesWritten);
+
+      updateSplitZipModel(newZipModel, fileSizeList, splitSigRemoved);
+
+      HeaderWriter headerWriter = new HeaderWriter();
+      headerWriter.finalizeZipFileWithoutValidations(newZipModel, outputStream);
 
+      progressMonitor.endProgressMonitorSuccess();
+
+    } catch (IOException e) {
+      progressMonitor.endProgressMonitorError(e);
+      throw new ZipException(e);
+    } catch (Exception e) {
+      progressMonitor.endProgressMonitorError(e);
+      throw new ZipException(e);
+    } finally {
+      if (outputStream != null) {
+        try {
+          outputStream.close();
+        } catch (IOException e) {
+          //ignore
+        }
+      }
+    }
+  }
+
+  /**
+   * Copies the data of all split files one after the other to the output stream
+   *
+   * @return true if the split zip signature was removed from the first split file
+   */
+  private boolean copySplitZipFiles(ZipModel zipModel, OutputStream outputStream, ArrayList fileSizeList,
+                                    ProgressMonitor progressMonitor) throws IOException, ZipException {
+    int totNoOfSplitFiles = zipModel.getEndOfCentralDirectoryRecord().getNumberOfThisDisk();
+    boolean splitSigRemoved = false;
+
+    for (int i = 0; i <= totNoOfSplitFiles; i++) {
+      RandomAccessFile inputStream = createSplitZipFileHandler(zipModel, i);
+      try {
         int start = 0;
         Long end = new Long(inputStream.length());
 
@@ -392,54 +491,142 @@ public class ArchiveMaintainer {
         }
 
         copyFile(inputStream, outputStream, start, end.longValue(), progressMonitor);
-        totBytesWritten += (end.longValue() - start);
         if (progressMonitor.isCancelAllTasks()) {
-          progressMonitor.setResult(ProgressMonitor.RESULT_CANCELLED);
-          progressMonitor.setState(ProgressMonitor.STATE_READY);
-          return;
+          return splitSigRemoved;
         }
 
         fileSizeList.add(end);
-
+      } finally {
         try {
           inputStream.close();
         } catch (IOException e) {
           //ignore
         }
       }
+    }
 
-      ZipModel newZipModel = (ZipModel) zipModel.clone();
-      newZipModel.getEndOfCentralDirectoryRecord().setOffsetOfStartOfCentralDirectory(totBytesWritten);
+    return splitSigRemoved;
+  }
 
-      updateSplitZipModel(newZipModel, fileSizeList, splitSigRemoved);
+  /**
+   * Copies the data of all split files to the output file, which is preallocated to the total length of the data.
+   * Each split file is copied on its own task with positional reads and writes, as its offset in the output file is
+   * known from the lengths of the preceding split files
+   *
+   * @return true if the split zip signature was removed from the first split file
+   */
+  private boolean copySplitZipFilesInParallel(final ZipModel zipModel, File outputZipFile, List<Long> fileSizeList,
+                                              final ProgressMonitor progressMonitor, int threads)
+      throws IOException, ZipException {
+    int totNoOfSplitFiles = zipModel.getEndOfCentralDirectoryRecord().getNumberOfThisDisk();
+    long[] starts = new long[totNoOfSplitFiles + 1];
+    long[] ends = new long[totNoOfSplitFiles + 1];
+    long[] outputOffsets = new long[totNoOfSplitFiles + 1];
+    boolean splitSigRemoved = false;
+    long outputLength = 0;
 
-      HeaderWriter headerWriter = new HeaderWriter();
-      headerWriter.finalizeZipFileWithoutValidations(newZipModel, outputStream);
+    for (int i = 0; i <= totNoOfSplitFiles; i++) {
+      RandomAccessFile inputStream = createSplitZipFileHandler(zipModel, i);
+      try {
+        ends[i] = inputStream.length();
+
+        if (i == 0 && zipModel.getCentralDirectory() != null
+            && zipModel.getCentralDirectory().getFileHeaders() != null
+            && zipModel.getCentralDirectory().getFileHeaders().size() > 0) {
+          byte[] buff = new byte[4];
+          inputStream.seek(0);
+          inputStream.readFully(buff);
+          if (Raw.readIntLittleEndian(buff, 0) == HeaderSignature.SPLIT_ZIP.getValue()) {
+            starts[i] = 4;
+            splitSigRemoved = true;
+          }
+        }
+      } finally {
+        inputStream.close();
+      }
 
-      progressMonitor.endProgressMonitorSuccess();
+      if (i == totNoOfSplitFiles) {
+        ends[i] = zipModel.getEndOfCentralDirectoryRecord().getOffsetOfStartOfCentralDirectory();
+      }
 
-    } catch (IOException e) {
-      progressMonitor.endProgressMonitorError(e);
+      outputOffsets[i] = outputLength;
+      outputLength += ends[i] - starts[i];
+      fileSizeList.add(ends[i]);
+    }
+
+    ExecutorService executor = Zip4jUtil.createDaemonThreadPool(threads);
+    RandomAccessFile outputStream = new RandomAccessFile(outputZipFile, RandomAccessFileMode.WRITE.getValue());
+    try {
+      outputStream.setLength(outputLength);
+      final FileChannel outputChannel = outputStream.getChannel();
+
+      List<Future<Void>> copyTasks = new ArrayList<>();
+      for (int i = 0; i <= totNoOfSplitFiles; i++) {
+        final int partNumber = i;
+        final long start = starts[i];
+        final long end = ends[i];
+        final long outputOffset = outputOffsets[i];
+        copyTasks.add(executor.submit(new Callable<Void>() {
+          @Override
+          public Void call() throws IOException, ZipException {
+            copySplitZipFile(zipModel, partNumber, start, end, outputChannel, outputOffset, progressMonitor);
+            return null;
+          }
+        }));
+      }
+
+      for (Future<Void> copyTask : copyTasks) {
+        copyTask.get();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
       throw new ZipException(e);
-    } catch (Exception e) {
-      progressMonitor.endProgressMonitorError(e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof ZipException) {
+        throw (ZipException) e.getCause();
+      }
       throw new ZipException(e);
     } finally {
-      if (outputStream != null) {
-        try {
-          outputStream.close();
-        } catch (IOException e) {
-          //ignore
+      executor.shutdownNow();
+      outputStream.close();
+    }
+
+    return splitSigRemoved;
+  }
+
+  private void copySplitZipFile(ZipModel zipModel, int partNumber, long start, long end, FileChannel outputChannel,
+                                long outputOffset, ProgressMonitor progressMonitor) throws IOException, ZipException {
+    RandomAccessFile inputStream = createSplitZipFileHandler(zipModel, partNumber);
+    try {
+      FileChannel inputChannel = inputStream.getChannel();
+      ByteBuffer buff = ByteBuffer.allocate((int) Math.min(MERGE_BUFF_SIZE, Math.max(end - start, 1)));
+      long position = start;
+
+      while (position < end) {
+        if (progressMonitor.isCancelAllTasks()) {
+          return;
         }
-      }
 
-      if (inputStream != null) {
-        try {
-          inputStream.close();
-        } catch (IOException e) {
-          // ignore
+        buff.clear();
+        buff.limit((int) Math.min(buff.capacity(), end - position));
+        int readLen = inputChannel.read(buff, position);
+        if (readLen == -1) {
+          throw new ZipException("unexpected end of split file: " + partNumber);
+        }
+
+        buff.flip();
+        long writePosition = outputOffset + (position - start);
+        while (buff.hasRemaining()) {
+          writePosition += outputChannel.write(buff, writePosition);
+        }
+
+        position += readLen;
+        synchronized (progressMonitor) {
+          progressMonitor.updateWorkCompleted(readLen);
         }
       }
+    } finally {
+      inputStream.close();
     }
   }
 
@@ -66,4 +66,73 @@ public class CRCUtil {
     }
   }
 
+  /**
+   * Combines the CRC32 values of two consecutive parts of data into the CRC32 of the whole data, without access to
+   * the data. Appending length2 zero bytes to the first part is applied to its CRC as a linear operator over GF(2),
+   * computed by repeated squaring as in zlib's crc32_combine
+   *
+   * @param crc1    CRC32 of the first part
+   * @param crc2    CRC32 of the second part
+   * @param length2 length of the second part
+   * @return CRC32 of both parts
+   */
+  public static long combineCRC(long crc1, long crc2, long length2) {
+    if (length2 <= 0) {
+      return crc1;
+    }
+
+    long[] even = new long[32];
+    long[] odd = new long[32];
+
+    // Operator for one zero bit
+    odd[0] = 0xedb88320L;
+    long row = 1;
+    for (int n = 1; n < 32; n++) {
+      odd[n] = row;
+      row <<= 1;
+    }
+
+    // Operators for two and four zero bits
+    gf2MatrixSquare(even, odd);
+    gf2MatrixSquare(odd, even);
+
+    do {
+      gf2MatrixSquare(even, odd);
+      if ((length2 & 1) != 0) {
+        crc1 = gf2MatrixTimes(even, crc1);
+      }
+      length2 >>= 1;
+
+      if (length2 == 0) {
+        break;
+      }
+
+      gf2MatrixSquare(odd, even);
+      if ((length2 & 1) != 0) {
+        crc1 = gf2MatrixTimes(odd, crc1);
+      }
+      length2 >>= 1;
+    } while (length2 != 0);
+
+    return crc1 ^ crc2;
+  }
+
+  private static long gf2MatrixTimes(long[] matrix, long vector) {
+    long sum = 0;
+    int i = 0;
+    while (vector != 0) {
+      if ((vector & 1) != 0) {
+        sum ^= matrix[i];
+      }
+      vector >>>= 1;
+      i++;
+    }
+    return sum;
+  }
+
+  private static void gf2MatrixSquare(long[] square, long[] matrix) {
+    for (int n = 0; n < 32; n++) {
+      square[n] = gf2MatrixTimes(matrix, matrix[n]);
+    }
+  }
 }
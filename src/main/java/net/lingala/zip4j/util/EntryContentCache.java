@@ -0,0 +1,196 @@
+/*
+ * Copyright 2010 Srikanth Reddy Lingala
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.lingala.zip4j.util;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Least recently used cache of decompressed content of small zip entries. Entries are keyed by the entry name and
+ * the identity of the zip file, which is made of its path, last modified time and length. When a zip file is seen
+ * with a different last modified time or length than before, all cached entries of this zip file are dropped.
+ * The cache is bounded by the total number of cached bytes, and can be shared by several ZipFile instances and
+ * threads. Callers get copies of the cached content, so that modifying them does not change what others read.
+ */
+public class EntryContentCache {
+
+  private final long maxCachedBytes;
+  private final long maxEntrySize;
+
+  private final LinkedHashMap<CacheKey, byte[]> cachedContents = new LinkedHashMap<>(16, 0.75f, true);
+  private final Map<String, CacheKey> zipFileIdentities = new HashMap<>();
+  private long cachedBytes;
+  private long hitCount;
+  private long missCount;
+
+  /**
+   * @param maxCachedBytes maximum total size of all cached entries
+   * @param maxEntrySize   entries with a larger uncompressed size are never cached
+   */
+  public EntryContentCache(long maxCachedBytes, long maxEntrySize) {
+    if (maxCachedBytes <= 0 || maxEntrySize <= 0) {
+      throw new IllegalArgumentException("cache sizes have to be positive");
+    }
+
+    this.maxCachedBytes = maxCachedBytes;
+    this.maxEntrySize = Math.min(maxEntrySize, maxCachedBytes);
+  }
+
+  public boolean isCacheable(long uncompressedSize) {
+    return uncompressedSize >= 0 && uncompressedSize <= maxEntrySize;
+  }
+
+  /**
+   * Returns a copy of the cached content of the entry or null if it is not cached
+   *
+   * @param zipFile
+   * @param entryName
+   * @return cached content or null
+   */
+  public synchronized byte[] get(File zipFile, String entryName) {
+    byte[] content = cachedContents.get(createKey(zipFile, entryName));
+
+    if (content == null) {
+      missCount++;
+    } else {
+      hitCount++;
+    }
+
+    return content == null ? null : content.clone();
+  }
+
+  /**
+   * Caches a copy of the content of the entry
+   *
+   * @param zipFile
+   * @param entryName
+   * @param content
+   */
+  public synchronized void put(File zipFile, String entryName, byte[] content) {
+    if (!isCacheable(content.length)) {
+      return;
+    }
+
+    byte[] replacedContent = cachedContents.put(createKey(zipFile, entryName), content.clone());
+    if (replacedContent != null) {
+      cachedBytes -= replacedContent.length;
+    }
+    cachedBytes += content.length;
+
+    Iterator<byte[]> iterator = cachedContents.values().iterator();
+    while (cachedBytes > maxCachedBytes && iterator.hasNext()) {
+      cachedBytes -= iterator.next().length;
+      iterator.remove();
+    }
+  }
+
+  /**
+   * Removes all cached entries of the input zip file
+   *
+   * @param zipFile
+   */
+  public synchronized void invalidate(File zipFile) {
+    String zipFilePath = zipFile.getAbsolutePath();
+    zipFileIdentities.remove(zipFilePath);
+
+    Iterator<Map.Entry<CacheKey, byte[]>> iterator = cachedContents.entrySet().iterator();
+    while (iterator.hasNext()) {
+      Map.Entry<CacheKey, byte[]> cachedContent = iterator.next();
+      if (cachedContent.getKey().zipFilePath.equals(zipFilePath)) {
+        cachedBytes -= cachedContent.getValue().length;
+        iterator.remove();
+      }
+    }
+  }
+
+  public synchronized void clear() {
+    cachedContents.clear();
+    zipFileIdentities.clear();
+    cachedBytes = 0;
+  }
+
+  public synchronized long getHitCount() {
+    return hitCount;
+  }
+
+  public synchronized long getMissCount() {
+    return missCount;
+  }
+
+  public synchronized long getCachedBytes() {
+    return cachedBytes;
+  }
+
+  public synchronized int getCachedEntryCount() {
+    return cachedContents.size();
+  }
+
+  private CacheKey createKey(File zipFile, String entryName) {
+    CacheKey zipFileIdentity = new CacheKey(zipFile.getAbsolutePath(), zipFile.lastModified(), zipFile.length(), null);
+    CacheKey knownZipFileIdentity = zipFileIdentities.get(zipFileIdentity.zipFilePath);
+
+    if (knownZipFileIdentity != null && !knownZipFileIdentity.equals(zipFileIdentity)) {
+      invalidate(zipFile);
+    }
+    zipFileIdentities.put(zipFileIdentity.zipFilePath, zipFileIdentity);
+
+    return new CacheKey(zipFileIdentity.zipFilePath, zipFileIdentity.lastModified, zipFileIdentity.length, entryName);
+  }
+
+  private static class CacheKey {
+
+    private final String zipFilePath;
+    private final long lastModified;
+    private final long length;
+    private final String entryName;
+
+    CacheKey(String zipFilePath, long lastModified, long length, String entryName) {
+      this.zipFilePath = zipFilePath;
+      this.lastModified = lastModified;
+      this.length = length;
+      this.entryName = entryName;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+
+      if (!(o instanceof CacheKey)) {
+        return false;
+      }
+
+      CacheKey cacheKey = (CacheKey) o;
+      return lastModified == cacheKey.lastModified && length == cacheKey.length
+          && zipFilePath.equals(cacheKey.zipFilePath)
+          && (entryName == null ? cacheKey.entryName == null : entryName.equals(cacheKey.entryName));
+    }
+
+    @Override
+    public int hashCode() {
+      int result = zipFilePath.hashCode();
+      result = 31 * result + (int) (lastModified ^ (lastModified >>> 32));
+      result = 31 * result + (int) (length ^ (length >>> 32));
+      result = 31 * result + (entryName == null ? 0 : entryName.hashCode());
+      return result;
+    }
+  }
+}
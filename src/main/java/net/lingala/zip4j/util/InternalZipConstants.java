@@ -23,6 +23,7 @@ public final class InternalZipConstants {
   }
 
   public static final int ENDHDR = 22;	// END header size
+  public static final int LOCAL_FILE_HEADER_FIXED_LENGTH = 30;
   public static final int STD_DEC_HDR_SIZE = 12;
 
   //AES Constants
@@ -58,4 +59,14 @@ public final class InternalZipConstants {
   public static final String THREAD_NAME = "Zip4j";
 
   public static final int MAX_ALLOWED_ZIP_COMMENT_LENGTH = 0xFFFF;
+
+  public static final long DEFAULT_CHECKPOINT_SPAN = 1024 * 1024;
+
+  public static final int PIPELINE_BUFF_SIZE = 64 * 1024;
+
+  public static final int DEFAULT_OUTPUT_BUFF_SIZE = 64 * 1024;
+
+  public static final int PIPELINE_BUFF_COUNT = 2;
+
+  public static final int MERGE_BUFF_SIZE = 256 * 1024;
 }
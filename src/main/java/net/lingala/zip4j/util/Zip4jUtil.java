@@ -21,16 +21,23 @@ import net.lingala.zip4j.model.FileHeader;
 import net.lingala.zip4j.model.ZipModel;
 
 import java.io.File;
+import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Calendar;
 import java.util.List;
 import java.util.TimeZone;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 
 import static net.lingala.zip4j.util.InternalZipConstants.CHARSET_DEFAULT;
 import static net.lingala.zip4j.util.InternalZipConstants.FILE_SEPARATOR;
+import static net.lingala.zip4j.util.InternalZipConstants.THREAD_NAME;
 import static net.lingala.zip4j.util.InternalZipConstants.ZIP_FILE_SEPARATOR;
 
 public class Zip4jUtil {
@@ -707,4 +714,45 @@ public class Zip4jUtil {
   public static boolean isZipEntryDirectory(String fileNameInZip) {
     return fileNameInZip.endsWith("/") || fileNameInZip.endsWith("\\");
   }
+
+  /**
+   * Reads from the channel at the input position without depending on the current position of the channel.
+   * FileChannels are read with positional reads, which can be done concurrently without locking. Reads from any
+   * other channel are done while holding the lock of the channel
+   *
+   * @param channel
+   * @param dst
+   * @param position
+   * @return number of bytes read or -1 at the end of the channel
+   * @throws IOException
+   */
+  public static int readFromChannel(SeekableByteChannel channel, ByteBuffer dst, long position) throws IOException {
+    if (channel instanceof FileChannel) {
+      return ((FileChannel) channel).read(dst, position);
+    }
+
+    synchronized (channel) {
+      channel.position(position);
+      return channel.read(dst);
+    }
+  }
+
+  /**
+   * Creates a thread pool with a fixed number of daemon threads, so that threads left running after an error do not
+   * keep the JVM from exiting
+   *
+   * @param threads
+   * @return executor service
+   */
+  public static ExecutorService createDaemonThreadPool(int threads) {
+    return Executors.newFixedThreadPool(threads, new ThreadFactory() {
+      @Override
+      public Thread newThread(Runnable runnable) {
+        Thread thread = new Thread(runnable, THREAD_NAME);
+        thread.setDaemon(true);
+        return thread;
+      }
+    });
+  }
+
 }
@@ -0,0 +1,229 @@
+/*
+ * Copyright 2010 Srikanth Reddy Lingala
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.lingala.zip4j.util;
+
+import net.lingala.zip4j.exception.ZipException;
+import net.lingala.zip4j.model.FileHeader;
+import net.lingala.zip4j.model.ZipModel;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Least recently used cache of the headers of zip files, which saves reading the headers again when a zip file is
+ * opened by several ZipFile instances. Zip models are keyed by the canonical path of the zip file and the charset
+ * used to decode file names, and are only returned while the last modified time and the length of the zip file
+ * are the ones at the time the headers were read. The cache holds an immutable snapshot of each zip model, whose
+ * headers are shared by all zip models returned for it, so that a cached zip file is reopened without copying its
+ * headers. ZipFile instances copy the headers before they modify their zip model. The cache is bounded by the
+ * estimated size of the cached zip models, and can be shared by several ZipFile instances and threads.
+ */
+public class ZipModelCache {
+
+  private static final int ESTIMATED_ZIP_MODEL_SIZE = 1024;
+  private static final int ESTIMATED_FILE_HEADER_SIZE = 256;
+
+  private final long maxCachedBytes;
+
+  private final LinkedHashMap<String, CachedZipModel> cachedZipModels = new LinkedHashMap<>(16, 0.75f, true);
+  private long cachedBytes;
+  private long hitCount;
+  private long missCount;
+
+  /**
+   * @param maxCachedBytes maximum total estimated size of all cached zip models
+   */
+  public ZipModelCache(long maxCachedBytes) {
+    if (maxCachedBytes <= 0) {
+      throw new IllegalArgumentException("cache size has to be positive");
+    }
+
+    this.maxCachedBytes = maxCachedBytes;
+  }
+
+  /**
+   * Returns the cached zip model of the zip file, or null if no zip model is cached for the current version of the
+   * zip file. The returned zip model shares its headers with the cached snapshot, which must not be modified
+   *
+   * @param zipFile
+   * @param fileNameCharset
+   * @return zip model or null
+   * @throws ZipException
+   */
+  public ZipModel get(File zipFile, String fileNameCharset) throws ZipException {
+    String key = createKey(zipFile, fileNameCharset);
+    long lastModified = zipFile.lastModified();
+    long length = zipFile.length();
+    CachedZipModel cachedZipModel;
+
+    synchronized (this) {
+      cachedZipModel = cachedZipModels.get(key);
+
+      if (cachedZipModel != null
+          && (cachedZipModel.lastModified != lastModified || cachedZipModel.length != length)) {
+        cachedZipModels.remove(key);
+        cachedBytes -= cachedZipModel.estimatedSize;
+        cachedZipModel = null;
+      }
+
+      if (cachedZipModel == null) {
+        missCount++;
+        return null;
+      }
+
+      hitCount++;
+    }
+
+    return shallowCopy(cachedZipModel.zipModel, zipFile);
+  }
+
+  /**
+   * Caches a snapshot of the zip model, which was read from the zip file while it had the input last modified time
+   * and length. The headers of the zip model are shared by the snapshot, so they must not be modified afterwards
+   *
+   * @param zipFile
+   * @param fileNameCharset
+   * @param zipModel
+   * @param lastModified
+   * @param length
+   * @throws ZipException
+   */
+  public void put(File zipFile, String fileNameCharset, ZipModel zipModel, long lastModified, long length)
+      throws ZipException {
+    long estimatedSize = estimateSize(zipModel);
+    if (estimatedSize > maxCachedBytes) {
+      return;
+    }
+
+    String key = createKey(zipFile, fileNameCharset);
+    CachedZipModel cachedZipModel = new CachedZipModel(shallowCopy(zipModel, zipFile), lastModified, length,
+        estimatedSize);
+
+    synchronized (this) {
+      CachedZipModel replacedZipModel = cachedZipModels.put(key, cachedZipModel);
+      if (replacedZipModel != null) {
+        cachedBytes -= replacedZipModel.estimatedSize;
+      }
+      cachedBytes += estimatedSize;
+
+      Iterator<CachedZipModel> iterator = cachedZipModels.values().iterator();
+      while (cachedBytes > maxCachedBytes && iterator.hasNext()) {
+        cachedBytes -= iterator.next().estimatedSize;
+        iterator.remove();
+      }
+    }
+  }
+
+  /**
+   * Removes the cached zip models of the input zip file
+   *
+   * @param zipFile
+   */
+  public synchronized void invalidate(File zipFile) {
+    String zipFilePath = getZipFilePath(zipFile);
+
+    Iterator<Map.Entry<String, CachedZipModel>> iterator = cachedZipModels.entrySet().iterator();
+    while (iterator.hasNext()) {
+      Map.Entry<String, CachedZipModel> cachedZipModel = iterator.next();
+      if (cachedZipModel.getKey().startsWith(zipFilePath + "|")) {
+        cachedBytes -= cachedZipModel.getValue().estimatedSize;
+        iterator.remove();
+      }
+    }
+  }
+
+  public synchronized void clear() {
+    cachedZipModels.clear();
+    cachedBytes = 0;
+  }
+
+  public synchronized long getHitCount() {
+    return hitCount;
+  }
+
+  public synchronized long getMissCount() {
+    return missCount;
+  }
+
+  public synchronized long getCachedBytes() {
+    return cachedBytes;
+  }
+
+  public synchronized int getCachedZipModelCount() {
+    return cachedZipModels.size();
+  }
+
+  private String createKey(File zipFile, String fileNameCharset) {
+    return getZipFilePath(zipFile) + "|" + (fileNameCharset == null ? "" : fileNameCharset);
+  }
+
+  private String getZipFilePath(File zipFile) {
+    try {
+      return zipFile.getCanonicalPath();
+    } catch (IOException e) {
+      return zipFile.getAbsolutePath();
+    }
+  }
+
+  private long estimateSize(ZipModel zipModel) {
+    long estimatedSize = ESTIMATED_ZIP_MODEL_SIZE;
+
+    if (zipModel.getCentralDirectory() != null && zipModel.getCentralDirectory().getFileHeaders() != null) {
+      for (FileHeader fileHeader : zipModel.getCentralDirectory().getFileHeaders()) {
+        estimatedSize += ESTIMATED_FILE_HEADER_SIZE + 2L * fileHeader.getFileNameLength()
+            + fileHeader.getExtraFieldLength();
+        if (fileHeader.getFileComment() != null) {
+          estimatedSize += 2L * fileHeader.getFileComment().length();
+        }
+      }
+    }
+
+    return estimatedSize;
+  }
+
+  /**
+   * Copies the zip model without its headers, as the zip file and its channel are set by each ZipFile instance
+   */
+  private ZipModel shallowCopy(ZipModel zipModel, File zipFile) throws ZipException {
+    try {
+      ZipModel copy = (ZipModel) zipModel.clone();
+      copy.setZipFile(zipFile);
+      copy.setZipFileChannel(null);
+      return copy;
+    } catch (CloneNotSupportedException e) {
+      throw new ZipException(e);
+    }
+  }
+
+  private static class CachedZipModel {
+
+    private final ZipModel zipModel;
+    private final long lastModified;
+    private final long length;
+    private final long estimatedSize;
+
+    CachedZipModel(ZipModel zipModel, long lastModified, long length, long estimatedSize) {
+      this.zipModel = zipModel;
+      this.lastModified = lastModified;
+      this.length = length;
+      this.estimatedSize = estimatedSize;
+    }
+  }
+}
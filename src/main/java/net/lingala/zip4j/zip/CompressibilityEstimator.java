@@ -0,0 +1,107 @@
+/*
+ * Copyright 2010 Srikanth Reddy Lingala
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.lingala.zip4j.zip;
+
+import net.lingala.zip4j.model.CompressionDecision;
+import net.lingala.zip4j.model.ZipParameters;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.zip.Deflater;
+
+/**
+ * Decides whether a file is worth compressing before it is added. Files with the extension of an already compressed
+ * format are stored right away. For other files, the start of the file is deflated with the fastest level and the
+ * file is stored if this saves less than the minimum savings of the zip parameters
+ */
+class CompressibilityEstimator {
+
+  static final Set<String> DEFAULT_STORED_FILE_EXTENSIONS = new HashSet<>(Arrays.asList(
+      "7z", "aac", "apk", "avi", "bz2", "docx", "flac", "gif", "gz", "heic", "jar", "jpeg", "jpg", "lz4", "m4a",
+      "mkv", "mov", "mp3", "mp4", "odt", "ogg", "png", "pptx", "rar", "tgz", "webm", "webp", "xlsx", "xz", "zip",
+      "zst"));
+
+  private static final int SAMPLE_SIZE = 64 * 1024;
+
+  private byte[] sample = new byte[SAMPLE_SIZE];
+  private byte[] compressedSample = new byte[SAMPLE_SIZE];
+  private Deflater deflater = new Deflater(Deflater.BEST_SPEED, true);
+
+  CompressionDecision estimate(File file, ZipParameters zipParameters) throws IOException {
+    String fileNameInZip = zipParameters.getFileNameInZip();
+    if (hasStoredFileExtension(file, zipParameters)) {
+      return new CompressionDecision(fileNameInZip, CompressionMethod.STORE, true, 0, 0);
+    }
+
+    int sampleLength = readSample(file);
+    if (sampleLength == 0) {
+      return new CompressionDecision(fileNameInZip, CompressionMethod.STORE, false, 0, 0);
+    }
+
+    long compressedLength = deflateSample(sampleLength);
+    double savings = 1 - (double) compressedLength / sampleLength;
+    CompressionMethod compressionMethod = savings < zipParameters.getAdaptiveCompressionMinimumSavings()
+        ? CompressionMethod.STORE : zipParameters.getCompressionMethod();
+    return new CompressionDecision(fileNameInZip, compressionMethod, false, sampleLength, compressedLength);
+  }
+
+  void end() {
+    deflater.end();
+  }
+
+  private boolean hasStoredFileExtension(File file, ZipParameters zipParameters) {
+    String fileName = file.getName();
+    int indexOfDot = fileName.lastIndexOf('.');
+    if (indexOfDot < 0) {
+      return false;
+    }
+
+    Set<String> storedFileExtensions = zipParameters.getStoredFileExtensions() != null
+        ? zipParameters.getStoredFileExtensions() : DEFAULT_STORED_FILE_EXTENSIONS;
+    return storedFileExtensions.contains(fileName.substring(indexOfDot + 1).toLowerCase(Locale.ROOT));
+  }
+
+  private int readSample(File file) throws IOException {
+    try (InputStream inputStream = new FileInputStream(file)) {
+      int sampleLength = 0;
+      int readLen;
+      while (sampleLength < sample.length
+          && (readLen = inputStream.read(sample, sampleLength, sample.length - sampleLength)) != -1) {
+        sampleLength += readLen;
+      }
+      return sampleLength;
+    }
+  }
+
+  private long deflateSample(int sampleLength) {
+    deflater.reset();
+    deflater.setInput(sample, 0, sampleLength);
+    deflater.finish();
+
+    long compressedLength = 0;
+    while (!deflater.finished()) {
+      compressedLength += deflater.deflate(compressedSample);
+    }
+    return compressedLength;
+  }
+}
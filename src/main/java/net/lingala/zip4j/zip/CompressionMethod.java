@@ -4,6 +4,8 @@ public enum CompressionMethod {
 
   STORE(0),
   DEFLATE(8),
+  DEFLATE64(9),
+  BZIP2(12),
   AES_INTERNAL_ONLY(99);
 
   private int code;
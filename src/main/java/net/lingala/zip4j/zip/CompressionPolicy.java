@@ -0,0 +1,36 @@
+/*
+ * Copyright 2010 Srikanth Reddy Lingala
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.lingala.zip4j.zip;
+
+import net.lingala.zip4j.model.ZipParameters;
+
+import java.io.File;
+
+/**
+ * Chooses the compression of each file added with addFiles or addFolder, for example by file size or extension
+ */
+public interface CompressionPolicy {
+
+  /**
+   * Called for every file before it is added. The zip parameters are a copy for this file only, on which the
+   * policy can set the compression method, level and strategy
+   *
+   * @param sourceFile    file to be added
+   * @param zipParameters parameters of the entry for this file
+   */
+  void apply(File sourceFile, ZipParameters zipParameters);
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2010 Srikanth Reddy Lingala
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.lingala.zip4j.zip;
+
+import net.lingala.zip4j.exception.ZipException;
+import net.lingala.zip4j.util.Zip4jUtil;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static net.lingala.zip4j.util.InternalZipConstants.FILE_SEPARATOR;
+
+/**
+ * Resolves names of zip entries to files in the output folder of an extract operation. The output folder is
+ * canonicalized only once, and entry names are then validated lexically, making sure that no entry can be
+ * extracted outside of the output folder (a.k.a zip slip). Directories created by the resolver are remembered,
+ * so that each of them is created only once for all entries of an extract operation.
+ */
+public class OutputPathResolver {
+
+  private String outputRootPath;
+  private Set<String> createdDirectories = new HashSet<>();
+
+  public OutputPathResolver(String outputPath) throws ZipException {
+    if (!Zip4jUtil.isStringNotNullAndNotEmpty(outputPath)) {
+      throw new ZipException("output path is null or empty, cannot resolve output files");
+    }
+
+    try {
+      outputRootPath = new File(outputPath).getCanonicalPath();
+    } catch (IOException e) {
+      throw new ZipException(e);
+    }
+
+    createdDirectories.add(outputRootPath);
+
+    if (!outputRootPath.endsWith(FILE_SEPARATOR)) {
+      outputRootPath += FILE_SEPARATOR;
+    }
+  }
+
+  /**
+   * Returns the output file for the input entry name. "." and ".." path elements are normalized, and an
+   * exception is thrown if the name resolves to a path outside of the output folder
+   *
+   * @param fileName
+   * @return output file for the entry name
+   * @throws ZipException
+   */
+  public File resolve(String fileName) throws ZipException {
+    if (!Zip4jUtil.isStringNotNullAndNotEmpty(fileName)) {
+      throw new ZipException("file name is null or empty, cannot resolve output file");
+    }
+
+    List<String> pathElements = new ArrayList<>();
+    for (String pathElement : fileName.split("[/\\\\]")) {
+      if (pathElement.isEmpty() || pathElement.equals(".")) {
+        continue;
+      }
+
+      if (pathElement.equals("..")) {
+        if (pathElements.isEmpty()) {
+          throw new ZipException("illegal file name that breaks out of the target directory: " + fileName);
+        }
+        pathElements.remove(pathElements.size() - 1);
+        continue;
+      }
+
+      if (Zip4jUtil.isWindows() && pathElement.indexOf(':') >= 0) {
+        throw new ZipException("illegal file name that breaks out of the target directory: " + fileName);
+      }
+
+      pathElements.add(pathElement);
+    }
+
+    if (pathElements.isEmpty()) {
+      return new File(outputRootPath);
+    }
+
+    StringBuilder outputPath = new StringBuilder(outputRootPath);
+    for (int i = 0; i < pathElements.size(); i++) {
+      if (i > 0) {
+        outputPath.append(FILE_SEPARATOR);
+      }
+      outputPath.append(pathElements.get(i));
+    }
+
+    return new File(outputPath.toString());
+  }
+
+  /**
+   * Creates the input directory and all its parent directories, unless it was already created for an earlier entry
+   *
+   * @param directory
+   * @throws ZipException
+   */
+  public void createDirectories(File directory) throws ZipException {
+    if (directory == null) {
+      return;
+    }
+
+    String directoryPath = directory.getPath();
+    if (createdDirectories.contains(directoryPath)) {
+      return;
+    }
+
+    if (!directory.mkdirs() && !directory.isDirectory()) {
+      throw new ZipException("cannot create output directory: " + directoryPath);
+    }
+
+    File parentDirectory = directory;
+    while (parentDirectory != null && createdDirectories.add(parentDirectory.getPath())) {
+      parentDirectory = parentDirectory.getParentFile();
+    }
+  }
+
+}
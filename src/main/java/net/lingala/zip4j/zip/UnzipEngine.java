@@ -17,30 +17,56 @@
 package net.lingala.zip4j.zip;
 
 import net.lingala.zip4j.exception.ZipException;
+import net.lingala.zip4j.exception.ZipExceptionType;
+import net.lingala.zip4j.headers.HeaderSignature;
+import net.lingala.zip4j.io.channel.DeflatedEntrySeekableByteChannel;
+import net.lingala.zip4j.io.channel.StoredEntrySeekableByteChannel;
+import net.lingala.zip4j.io.inputstream.ChannelRangeInputStream;
+import net.lingala.zip4j.io.inputstream.DeflateDecoder;
+import net.lingala.zip4j.io.inputstream.ReadAheadInputStream;
 import net.lingala.zip4j.io.inputstream.SplitInputStream;
 import net.lingala.zip4j.io.inputstream.ZipInputStream;
+import net.lingala.zip4j.io.outputstream.WriteBehindOutputStream;
 import net.lingala.zip4j.model.CentralDirectory;
+import net.lingala.zip4j.model.DeflateCheckpointIndex;
 import net.lingala.zip4j.model.FileHeader;
 import net.lingala.zip4j.model.UnzipParameters;
 import net.lingala.zip4j.model.ZipModel;
 import net.lingala.zip4j.progress.ProgressMonitor;
+import net.lingala.zip4j.util.CRCUtil;
 import net.lingala.zip4j.util.Zip4jUtil;
+import net.lingala.zip4j.util.enums.RandomAccessFileMode;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.StandardOpenOption;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.zip.CRC32;
 
 import static net.lingala.zip4j.util.InternalZipConstants.BUFF_SIZE;
-import static net.lingala.zip4j.util.InternalZipConstants.FILE_SEPARATOR;
+import static net.lingala.zip4j.util.InternalZipConstants.LOCAL_FILE_HEADER_FIXED_LENGTH;
+import static net.lingala.zip4j.util.InternalZipConstants.PIPELINE_BUFF_COUNT;
+import static net.lingala.zip4j.util.InternalZipConstants.PIPELINE_BUFF_SIZE;
 import static net.lingala.zip4j.util.InternalZipConstants.THREAD_NAME;
 
 public class UnzipEngine {
 
+  private static final int STORED_DATA_BUFF_SIZE = 1 << 16;
+
   private ZipModel zipModel;
   private ProgressMonitor progressMonitor;
   private byte[] buff = new byte[BUFF_SIZE];
+  private ByteBuffer storedDataBuffer;
   private char[] password;
 
   public UnzipEngine(ZipModel zipModel, ProgressMonitor progressMonitor, char[] password) {
@@ -51,36 +77,39 @@ public class UnzipEngine {
 
   public void extractAll(UnzipParameters unzipParameters, String outPath, boolean runInThread) throws ZipException {
 
-    try (ZipInputStream inputStream = createZipInputStream(password)) {
-      CentralDirectory centralDirectory = zipModel.getCentralDirectory();
+    CentralDirectory centralDirectory = zipModel.getCentralDirectory();
 
-      if (centralDirectory == null ||
-          centralDirectory.getFileHeaders() == null) {
-        throw new ZipException("invalid central directory in zipModel");
-      }
+    if (centralDirectory == null ||
+        centralDirectory.getFileHeaders() == null) {
+      throw new ZipException("invalid central directory in zipModel");
+    }
 
-      final List<FileHeader> fileHeaders = centralDirectory.getFileHeaders();
+    extractFiles(centralDirectory.getFileHeaders(), unzipParameters, outPath, runInThread);
+  }
+
+  public void extractFiles(List<FileHeader> fileHeaders, UnzipParameters unzipParameters, String outPath,
+                           boolean runInThread) throws ZipException {
+    if (fileHeaders == null) {
+      throw new ZipException("file headers to extract are null");
+    }
 
-      progressMonitor.setCurrentOperation(ProgressMonitor.OPERATION_EXTRACT);
-      progressMonitor.setTotalWork(calculateTotalWork(fileHeaders));
-      progressMonitor.setState(ProgressMonitor.STATE_BUSY);
+    progressMonitor.setCurrentOperation(ProgressMonitor.OPERATION_EXTRACT);
+    progressMonitor.setTotalWork(calculateTotalWork(fileHeaders));
+    progressMonitor.setState(ProgressMonitor.STATE_BUSY);
 
-      if (runInThread) {
-        Thread thread = new Thread(THREAD_NAME) {
-          public void run() {
-            try {
-              initExtractAll(inputStream, fileHeaders, outPath, unzipParameters);
-              progressMonitor.endProgressMonitorSuccess();
-            } catch (ZipException e) {
-            }
+    if (runInThread) {
+      Thread thread = new Thread(THREAD_NAME) {
+        public void run() {
+          try {
+            initExtractAll(fileHeaders, outPath, unzipParameters);
+            progressMonitor.endProgressMonitorSuccess();
+          } catch (ZipException e) {
           }
-        };
-        thread.start();
-      } else {
-        initExtractAll(inputStream, fileHeaders, outPath, unzipParameters);
-      }
-    } catch (IOException e) {
-      throw new ZipException(e);
+        }
+      };
+      thread.start();
+    } else {
+      initExtractAll(fileHeaders, outPath, unzipParameters);
     }
   }
 
@@ -96,43 +125,83 @@ public class UnzipEngine {
     progressMonitor.setPercentDone(0);
     progressMonitor.setFileName(fileHeader.getFileName());
 
-    try(ZipInputStream inputStream = createZipInputStream(password)) {
-      if (runInThread) {
-        Thread thread = new Thread(THREAD_NAME) {
-          public void run() {
-            try {
-              initExtractFile(inputStream, fileHeader, outPath, newFileName, unzipParameters);
-              progressMonitor.endProgressMonitorSuccess();
-            } catch (ZipException e) {
-            }
+    if (runInThread) {
+      // The streams are opened by the thread, as they have to stay open until it finished extracting
+      Thread thread = new Thread(THREAD_NAME) {
+        public void run() {
+          try {
+            initExtractFile(fileHeader, outPath, newFileName, unzipParameters);
+            progressMonitor.endProgressMonitorSuccess();
+          } catch (ZipException e) {
           }
-        };
-        thread.start();
-      } else {
-        initExtractFile(inputStream, fileHeader, outPath, newFileName, unzipParameters);
-        progressMonitor.endProgressMonitorSuccess();
-      }
+        }
+      };
+      thread.start();
+    } else {
+      initExtractFile(fileHeader, outPath, newFileName, unzipParameters);
+      progressMonitor.endProgressMonitorSuccess();
+    }
+  }
+
+  private void initExtractFile(FileHeader fileHeader, String outPath, String newFileName,
+                               UnzipParameters unzipParameters) throws ZipException {
+    try (ZipInputStream inputStream = createZipInputStreamFor(fileHeader);
+         FileChannel zipFileChannel = openZipFileChannel()) {
+      initExtractFile(inputStream, zipFileChannel, fileHeader, new OutputPathResolver(outPath), newFileName,
+          unzipParameters, null);
     } catch (IOException e) {
       throw new ZipException(e);
     }
   }
 
-  private void initExtractAll(ZipInputStream inputStream, List<FileHeader> fileHeaders, String outPath,
-                              UnzipParameters unzipParameters) throws ZipException {
+  private void initExtractAll(List<FileHeader> fileHeaders, String outPath, UnzipParameters unzipParameters)
+      throws ZipException {
 
-    for (FileHeader fileHeader : fileHeaders) {
-      initExtractFile(inputStream, fileHeader, outPath, null, unzipParameters);
+    OutputPathResolver outputPathResolver = new OutputPathResolver(outPath);
+    ExecutorService pipelineExecutor = null;
+    if (unzipParameters != null && unzipParameters.isPipelinedIo()) {
+      pipelineExecutor = Zip4jUtil.createDaemonThreadPool(2);
+    }
 
-      if (progressMonitor.isCancelAllTasks()) {
-        progressMonitor.setResult(ProgressMonitor.RESULT_CANCELLED);
-        progressMonitor.setState(ProgressMonitor.STATE_READY);
-        return;
+    try (SplitInputStream splitInputStream = createSplitInputStream();
+         FileChannel zipFileChannel = openZipFileChannel()) {
+      for (FileHeader fileHeader : fileHeaders) {
+        // Each entry is read from the offset of its local file header instead of relying on the order of entries in
+        // the zip file, so that directories and skipped entries do not have to be read through
+        splitInputStream.prepareExtractionForFileHeader(fileHeader);
+
+        if (pipelineExecutor != null && isPipelined(fileHeader)) {
+          // The read ahead is stopped before the split input stream is positioned for the next entry
+          try (ReadAheadInputStream readAheadInputStream = new ReadAheadInputStream(splitInputStream,
+              pipelineExecutor, PIPELINE_BUFF_SIZE, PIPELINE_BUFF_COUNT, false)) {
+            initExtractFile(new ZipInputStream(readAheadInputStream, password), zipFileChannel, fileHeader,
+                outputPathResolver, null, unzipParameters, pipelineExecutor);
+          }
+        } else {
+          initExtractFile(new ZipInputStream(splitInputStream, password), zipFileChannel, fileHeader,
+              outputPathResolver, null, unzipParameters, null);
+        }
+
+        if (progressMonitor.isCancelAllTasks()) {
+          progressMonitor.setResult(ProgressMonitor.RESULT_CANCELLED);
+          progressMonitor.setState(ProgressMonitor.STATE_READY);
+          return;
+        }
+      }
+    } catch (IOException e) {
+      progressMonitor.endProgressMonitorError(e);
+      throw new ZipException(e);
+    } finally {
+      if (pipelineExecutor != null) {
+        pipelineExecutor.shutdown();
       }
     }
   }
 
-  private void initExtractFile(ZipInputStream inputStream, FileHeader fileHeader, String outPath, String newFileName,
-                               UnzipParameters unzipParameters) throws ZipException {
+  private void initExtractFile(ZipInputStream inputStream, FileChannel zipFileChannel, FileHeader fileHeader,
+                               OutputPathResolver outputPathResolver, String newFileName,
+                               UnzipParameters unzipParameters, ExecutorService pipelineExecutor)
+      throws ZipException {
 
     if (fileHeader == null) {
       throw new ZipException("fileHeader is null");
@@ -141,25 +210,22 @@ public class UnzipEngine {
     try {
       progressMonitor.setFileName(fileHeader.getFileName());
 
-      if (!outPath.endsWith(FILE_SEPARATOR)) {
-        outPath += FILE_SEPARATOR;
-      }
-
       // make sure no file is extracted outside of the target directory (a.k.a zip slip)
-      String fileName = fileHeader.getFileName();
-      String completePath = outPath + fileName;
-      if (!new File(completePath).getCanonicalPath().startsWith(new File(outPath).getCanonicalPath())) {
-        throw new ZipException("illegal file name that breaks out of the target directory: " + fileHeader.getFileName());
-      }
+      String fileName = Zip4jUtil.isStringNotNullAndNotEmpty(newFileName) ? newFileName : fileHeader.getFileName();
+      File outputFile = outputPathResolver.resolve(fileName);
 
       if (fileHeader.isDirectory()) {
-          File file = new File(completePath);
-          if (!file.exists()) {
-            file.mkdirs();
-          }
+        outputPathResolver.createDirectories(outputFile);
+      } else if (unzipParameters != null && unzipParameters.isSkipUnchangedFiles()
+          && isOutputFileUnchanged(fileHeader, outputFile)) {
+        progressMonitor.updateWorkCompleted(fileHeader.getCompressedSize());
       } else {
-        checkOutputDirectoryStructure(fileHeader, outPath, newFileName);
-        unzipFile(inputStream, fileHeader, outPath, newFileName, unzipParameters);
+        outputPathResolver.createDirectories(outputFile.getParentFile());
+        if (zipFileChannel != null && isStoredWithoutEncryption(fileHeader)) {
+          unzipStoredFile(zipFileChannel, fileHeader, outputFile, unzipParameters);
+        } else {
+          unzipFile(inputStream, fileHeader, outputFile, unzipParameters, pipelineExecutor);
+        }
       }
     } catch (ZipException e) {
       progressMonitor.endProgressMonitorError(e);
@@ -170,14 +236,10 @@ public class UnzipEngine {
     }
   }
 
-  private void unzipFile(ZipInputStream inputStream, FileHeader fileHeader, String outputPath, String newFileName,
-                         UnzipParameters unzipParameters) throws ZipException {
-    String outputFileName = Zip4jUtil.isStringNotNullAndNotEmpty(newFileName) ? newFileName : fileHeader.getFileName();
-    File outputFile = new File(outputPath + System.getProperty("file.separator") + outputFileName);
-    outputPath.hashCode();
-
+  private void unzipFile(ZipInputStream inputStream, FileHeader fileHeader, File outputFile,
+                         UnzipParameters unzipParameters, ExecutorService pipelineExecutor) throws ZipException {
     int readLength;
-    try (OutputStream outputStream = new FileOutputStream(outputFile)) {
+    try (OutputStream outputStream = createOutputStream(outputFile, pipelineExecutor)) {
       inputStream.getNextEntry();
       while ((readLength = inputStream.read(buff)) != -1) {
         outputStream.write(buff, 0, readLength);
@@ -195,66 +257,392 @@ public class UnzipEngine {
     UnzipUtil.applyFileAttributes(fileHeader, outputFile, unzipParameters);
   }
 
-  public ZipInputStream createZipInputStreamFor(FileHeader fileHeader) throws ZipException {
-    try {
-      return new ZipInputStream(createSplitInputStream(fileHeader), password);
+  private OutputStream createOutputStream(File outputFile, ExecutorService pipelineExecutor) throws IOException {
+    OutputStream outputStream = new FileOutputStream(outputFile);
+    if (pipelineExecutor != null) {
+      return new WriteBehindOutputStream(outputStream, pipelineExecutor, PIPELINE_BUFF_SIZE, PIPELINE_BUFF_COUNT);
+    }
+    return outputStream;
+  }
+
+  /**
+   * Entries which are copied directly from the zip file channel, and entries which fit into a single buffer, are
+   * not worth the hand over between threads
+   */
+  private boolean isPipelined(FileHeader fileHeader) {
+    return !fileHeader.isDirectory() && !isStoredWithoutEncryption(fileHeader)
+        && getCompressedSize(fileHeader) > PIPELINE_BUFF_SIZE;
+  }
+
+  /**
+   * Extracts an entry which is neither compressed nor encrypted by copying its data directly from the zip file
+   * channel into the preallocated output file. CRC is computed on the same buffer the data is copied with, and
+   * verified against the CRC in file header
+   *
+   * @param zipFileChannel
+   * @param fileHeader
+   * @param outputFile
+   * @param unzipParameters
+   * @throws ZipException
+   */
+  private void unzipStoredFile(FileChannel zipFileChannel, FileHeader fileHeader, File outputFile,
+                               UnzipParameters unzipParameters) throws ZipException {
+    long uncompressedSize = getUncompressedSize(fileHeader);
+    CRC32 crc32 = new CRC32();
+
+    if (storedDataBuffer == null) {
+      storedDataBuffer = ByteBuffer.allocateDirect(STORED_DATA_BUFF_SIZE);
+    }
+
+    try (RandomAccessFile outputFileHandle = new RandomAccessFile(outputFile, RandomAccessFileMode.WRITE.getValue())) {
+      outputFileHandle.setLength(uncompressedSize);
+      FileChannel outputFileChannel = outputFileHandle.getChannel();
+
+      long position = getOffsetStartOfData(zipFileChannel, fileHeader);
+      long bytesRemaining = uncompressedSize;
+
+      while (bytesRemaining > 0) {
+        storedDataBuffer.clear();
+        storedDataBuffer.limit((int) Math.min(storedDataBuffer.capacity(), bytesRemaining));
+
+        int readLength = zipFileChannel.read(storedDataBuffer, position);
+        if (readLength < 0) {
+          throw new ZipException("unexpected end of zip file when extracting file: " + fileHeader.getFileName());
+        }
+
+        storedDataBuffer.flip();
+        crc32.update(storedDataBuffer);
+        storedDataBuffer.rewind();
+        while (storedDataBuffer.hasRemaining()) {
+          outputFileChannel.write(storedDataBuffer);
+        }
+
+        position += readLength;
+        bytesRemaining -= readLength;
+
+        progressMonitor.updateWorkCompleted(readLength);
+        if (progressMonitor.isCancelAllTasks()) {
+          progressMonitor.setResult(ProgressMonitor.RESULT_CANCELLED);
+          progressMonitor.setState(ProgressMonitor.STATE_READY);
+          return;
+        }
+      }
     } catch (IOException e) {
       throw new ZipException(e);
     }
+
+    if (crc32.getValue() != fileHeader.getCrc32()) {
+      throw new ZipException("invalid CRC for file: " + fileHeader.getFileName(), ZipExceptionType.CHECKSUM_MISMATCH);
+    }
+
+    UnzipUtil.applyFileAttributes(fileHeader, outputFile, unzipParameters);
+  }
+
+  private long getOffsetStartOfData(SeekableByteChannel zipFileChannel, FileHeader fileHeader) throws IOException,
+      ZipException {
+    ByteBuffer localFileHeaderBuffer = ByteBuffer.allocate(LOCAL_FILE_HEADER_FIXED_LENGTH)
+        .order(ByteOrder.LITTLE_ENDIAN);
+
+    while (localFileHeaderBuffer.hasRemaining()) {
+      if (Zip4jUtil.readFromChannel(zipFileChannel, localFileHeaderBuffer,
+          fileHeader.getOffsetLocalHeader() + localFileHeaderBuffer.position()) < 0) {
+        throw new ZipException("unexpected end of zip file when reading local file header");
+      }
+    }
+
+    if ((localFileHeaderBuffer.getInt(0) & 0xffffffffL) != HeaderSignature.LOCAL_FILE_HEADER.getValue()) {
+      throw new ZipException("invalid local file header signature for file: " + fileHeader.getFileName());
+    }
+
+    int fileNameLength = localFileHeaderBuffer.getShort(26) & 0xffff;
+    int extraFieldLength = localFileHeaderBuffer.getShort(28) & 0xffff;
+    return fileHeader.getOffsetLocalHeader() + LOCAL_FILE_HEADER_FIXED_LENGTH + fileNameLength + extraFieldLength;
   }
 
-  private ZipInputStream createZipInputStream(char[] password) throws ZipException {
+  private boolean isStoredWithoutEncryption(FileHeader fileHeader) {
+    return !fileHeader.isEncrypted() && fileHeader.getCompressionMethod() == CompressionMethod.STORE;
+  }
+
+  private FileChannel openZipFileChannel() throws IOException {
+    // Data of an entry in a split zip file can span over several files, and a zip file read from a channel has no
+    // file to open
+    if (zipModel.isSplitArchive() || zipModel.getZipFileChannel() != null) {
+      return null;
+    }
+
+    return FileChannel.open(zipModel.getZipFile().toPath(), StandardOpenOption.READ);
+  }
+
+  /**
+   * Creates a read only seekable channel over the data of an entry stored without compression and encryption
+   *
+   * @param fileHeader
+   * @return channel over the entry data
+   * @throws ZipException
+   */
+  public SeekableByteChannel createStoredEntryChannel(FileHeader fileHeader) throws ZipException {
+    if (!isStoredWithoutEncryption(fileHeader)) {
+      throw new ZipException("only entries stored without compression and encryption can be read from a "
+          + "seekable channel: " + fileHeader.getFileName());
+    }
+
+    return createEntryChannel(fileHeader, null);
+  }
+
+  /**
+   * Checks if the data of the entry starts at a multiple of the input alignment in the zip file
+   *
+   * @param fileHeader
+   * @param dataAlignment
+   * @return true if the entry data is aligned
+   * @throws ZipException
+   */
+  public boolean isEntryDataAligned(FileHeader fileHeader, int dataAlignment) throws ZipException {
+    if (dataAlignment <= 0) {
+      throw new ZipException("data alignment has to be positive");
+    }
+
+    SeekableByteChannel zipFileChannel = null;
     try {
-      return new ZipInputStream(createSplitInputStream(), password);
+      zipFileChannel = openZipFileChannelForEntry();
+      return getOffsetStartOfData(zipFileChannel, fileHeader) % dataAlignment == 0;
     } catch (IOException e) {
       throw new ZipException(e);
+    } finally {
+      closeZipFileChannelForEntry(zipFileChannel);
     }
   }
 
-  private SplitInputStream createSplitInputStream() throws IOException {
-    return createSplitInputStream(null);
+  /**
+   * Maps the data of an entry stored without compression and encryption into memory
+   *
+   * @param fileHeader
+   * @return read only buffer over the entry data
+   * @throws ZipException
+   */
+  public MappedByteBuffer mapStoredEntry(FileHeader fileHeader) throws ZipException {
+    if (!isStoredWithoutEncryption(fileHeader)) {
+      throw new ZipException("only entries stored without compression and encryption can be memory mapped: "
+          + fileHeader.getFileName());
+    }
+
+    long uncompressedSize = getUncompressedSize(fileHeader);
+    if (uncompressedSize > Integer.MAX_VALUE) {
+      throw new ZipException("entry is too large to be memory mapped: " + fileHeader.getFileName());
+    }
+
+    SeekableByteChannel zipFileChannel = null;
+    try {
+      zipFileChannel = openZipFileChannelForEntry();
+      if (!(zipFileChannel instanceof FileChannel)) {
+        throw new ZipException("only zip files read from a file can be memory mapped");
+      }
+
+      return ((FileChannel) zipFileChannel).map(FileChannel.MapMode.READ_ONLY,
+          getOffsetStartOfData(zipFileChannel, fileHeader), uncompressedSize);
+    } catch (IOException e) {
+      throw new ZipException(e);
+    } finally {
+      // A mapping stays valid after its channel is closed
+      closeZipFileChannelForEntry(zipFileChannel);
+    }
   }
 
-  private SplitInputStream createSplitInputStream(FileHeader fileHeader) throws IOException {
-    SplitInputStream splitInputStream = new SplitInputStream(zipModel.getZipFile(), zipModel.isSplitArchive(),
-        zipModel.getEndOfCentralDirectoryRecord().getNumberOfThisDisk());
+  /**
+   * Creates a read only seekable channel over the decompressed data of a deflated entry, which resumes
+   * decompression from the checkpoints of the input index
+   *
+   * @param fileHeader
+   * @param checkpointIndex
+   * @return channel over the decompressed entry data
+   * @throws ZipException
+   */
+  public SeekableByteChannel createDeflatedEntryChannel(FileHeader fileHeader, DeflateCheckpointIndex checkpointIndex)
+      throws ZipException {
+    checkDeflatedWithoutEncryption(fileHeader);
+
+    if (!checkpointIndex.isIndexOf(fileHeader.getCrc32(), getCompressedSize(fileHeader),
+        getUncompressedSize(fileHeader))) {
+      throw new ZipException("checkpoint index does not belong to entry: " + fileHeader.getFileName());
+    }
 
-    if (fileHeader != null) {
-      splitInputStream.prepareExtractionForFileHeader(fileHeader);
+    return createEntryChannel(fileHeader, checkpointIndex);
+  }
+
+  /**
+   * Decompresses the complete deflated entry and creates an index with a checkpoint at the first deflate block
+   * boundary after every checkpointSpan bytes of decompressed data. The CRC of the entry is verified while doing so
+   *
+   * @param fileHeader
+   * @param checkpointSpan
+   * @return index of the entry
+   * @throws ZipException
+   */
+  public DeflateCheckpointIndex createCheckpointIndex(FileHeader fileHeader, long checkpointSpan)
+      throws ZipException {
+    checkDeflatedWithoutEncryption(fileHeader);
+
+    if (checkpointSpan <= 0) {
+      throw new ZipException("checkpoint span has to be positive");
     }
 
-    return splitInputStream;
+    long compressedSize = getCompressedSize(fileHeader);
+    DeflateCheckpointIndex checkpointIndex = new DeflateCheckpointIndex(fileHeader.getCrc32(), compressedSize,
+        getUncompressedSize(fileHeader));
+    checkpointIndex.addCheckpoint(new DeflateCheckpointIndex.Checkpoint(0, 0, new byte[0]));
+
+    SeekableByteChannel zipFileChannel = null;
+    try {
+      zipFileChannel = openZipFileChannelForEntry();
+      long offsetStartOfData = getOffsetStartOfData(zipFileChannel, fileHeader);
+      DeflateDecoder decoder = new DeflateDecoder(new ChannelRangeInputStream(zipFileChannel, offsetStartOfData,
+          offsetStartOfData + compressedSize));
+
+      CRC32 crc32 = new CRC32();
+      long uncompressedOffset = 0;
+      long lastCheckpointOffset = 0;
+      int readLength;
+      while ((readLength = decoder.read(buff, 0, buff.length)) != -1) {
+        crc32.update(buff, 0, readLength);
+        uncompressedOffset += readLength;
+
+        if (decoder.isAtBlockBoundary() && uncompressedOffset - lastCheckpointOffset >= checkpointSpan) {
+          checkpointIndex.addCheckpoint(new DeflateCheckpointIndex.Checkpoint(uncompressedOffset,
+              decoder.getBitPosition(), decoder.getWindow()));
+          lastCheckpointOffset = uncompressedOffset;
+        }
+      }
+
+      if (crc32.getValue() != fileHeader.getCrc32()) {
+        throw new ZipException("invalid CRC for file: " + fileHeader.getFileName(),
+            ZipExceptionType.CHECKSUM_MISMATCH);
+      }
+
+      return checkpointIndex;
+    } catch (IOException e) {
+      throw new ZipException(e);
+    } finally {
+      closeZipFileChannelForEntry(zipFileChannel);
+    }
   }
 
-  private void checkOutputDirectoryStructure(FileHeader fileHeader, String outPath, String newFileName) throws ZipException {
-    if (fileHeader == null || !Zip4jUtil.isStringNotNullAndNotEmpty(outPath)) {
-      throw new ZipException("Cannot check output directory structure...one of the parameters was null");
+  private SeekableByteChannel createEntryChannel(FileHeader fileHeader, DeflateCheckpointIndex checkpointIndex)
+      throws ZipException {
+    SeekableByteChannel zipFileChannel = null;
+    SeekableByteChannel entryChannel = null;
+
+    try {
+      zipFileChannel = openZipFileChannelForEntry();
+      boolean closeZipFileChannel = zipFileChannel != zipModel.getZipFileChannel();
+      long offsetStartOfData = getOffsetStartOfData(zipFileChannel, fileHeader);
+
+      if (checkpointIndex == null) {
+        entryChannel = new StoredEntrySeekableByteChannel(zipFileChannel, offsetStartOfData,
+            getUncompressedSize(fileHeader), closeZipFileChannel);
+      } else {
+        entryChannel = new DeflatedEntrySeekableByteChannel(zipFileChannel, offsetStartOfData,
+            getCompressedSize(fileHeader), getUncompressedSize(fileHeader), checkpointIndex, closeZipFileChannel);
+      }
+
+      return entryChannel;
+    } catch (IOException e) {
+      throw new ZipException(e);
+    } finally {
+      if (entryChannel == null) {
+        closeZipFileChannelForEntry(zipFileChannel);
+      }
     }
+  }
 
-    String fileName = fileHeader.getFileName();
+  private SeekableByteChannel openZipFileChannelForEntry() throws IOException, ZipException {
+    if (zipModel.isSplitArchive()) {
+      throw new ZipException("entries of split zip files cannot be read from a seekable channel");
+    }
 
-    if (Zip4jUtil.isStringNotNullAndNotEmpty(newFileName)) {
-      fileName = newFileName;
+    if (zipModel.getZipFileChannel() != null) {
+      return zipModel.getZipFileChannel();
     }
 
-    if (!Zip4jUtil.isStringNotNullAndNotEmpty(fileName)) {
-      // Do nothing
+    return FileChannel.open(zipModel.getZipFile().toPath(), StandardOpenOption.READ);
+  }
+
+  private void closeZipFileChannelForEntry(SeekableByteChannel zipFileChannel) {
+    if (zipFileChannel == null || zipFileChannel == zipModel.getZipFileChannel()) {
       return;
     }
 
-    String compOutPath = outPath + fileName;
     try {
-      File file = new File(compOutPath);
-      String parentDir = file.getParent();
-      File parentDirFile = new File(parentDir);
-      if (!parentDirFile.exists()) {
-        parentDirFile.mkdirs();
+      zipFileChannel.close();
+    } catch (IOException e) {
+      // ignore, channel was only read from
+    }
+  }
+
+  private void checkDeflatedWithoutEncryption(FileHeader fileHeader) throws ZipException {
+    if (fileHeader.isEncrypted() || fileHeader.getCompressionMethod() != CompressionMethod.DEFLATE) {
+      throw new ZipException("only entries deflated without encryption can be read from a seekable channel: "
+          + fileHeader.getFileName());
+    }
+  }
+
+  public ZipInputStream createZipInputStreamFor(FileHeader fileHeader) throws ZipException {
+    try {
+      return new ZipInputStream(createSplitInputStream(fileHeader), password);
+    } catch (IOException e) {
+      throw new ZipException(e);
+    }
+  }
+
+  /**
+   * Reads and returns the complete decompressed content of the entry of the input file header
+   *
+   * @param fileHeader
+   * @return content of the entry
+   * @throws ZipException
+   */
+  public byte[] readFileContent(FileHeader fileHeader) throws ZipException {
+    long uncompressedSize = getUncompressedSize(fileHeader);
+    if (uncompressedSize > Integer.MAX_VALUE - 8) {
+      throw new ZipException("entry is too large to be read into memory: " + fileHeader.getFileName());
+    }
+
+    try (ZipInputStream inputStream = createZipInputStreamFor(fileHeader)) {
+      inputStream.getNextEntry();
+
+      ByteArrayOutputStream content = new ByteArrayOutputStream((int) Math.max(uncompressedSize, 32));
+      int readLength;
+      while ((readLength = inputStream.read(buff)) != -1) {
+        content.write(buff, 0, readLength);
       }
-    } catch (Exception e) {
+
+      return content.toByteArray();
+    } catch (ZipException e) {
+      throw e;
+    } catch (IOException e) {
       throw new ZipException(e);
     }
   }
 
+  private SplitInputStream createSplitInputStream() throws IOException {
+    return createSplitInputStream(null);
+  }
+
+  private SplitInputStream createSplitInputStream(FileHeader fileHeader) throws IOException {
+    SplitInputStream splitInputStream;
+    if (zipModel.getZipFileChannel() != null) {
+      splitInputStream = new SplitInputStream(zipModel.getZipFileChannel());
+    } else {
+      splitInputStream = new SplitInputStream(zipModel.getZipFile(), zipModel.isSplitArchive(),
+          zipModel.getEndOfCentralDirectoryRecord().getNumberOfThisDisk());
+    }
+
+    if (fileHeader != null) {
+      splitInputStream.prepareExtractionForFileHeader(fileHeader);
+    }
+
+    return splitInputStream;
+  }
+
   private long calculateTotalWork(List<FileHeader> fileHeaders) {
     long totalWork = 0;
 
@@ -270,12 +658,52 @@ public class UnzipEngine {
     return totalWork;
   }
 
-  private String getOutputFileNameWithPath(FileHeader fileHeader, String outputPath, String newFileName) {
-    String fileName = fileHeader.getFileName();
-    if (Zip4jUtil.isStringNotNullAndNotEmpty(newFileName)) {
-      fileName = newFileName;
+  /**
+   * Checks if the output file already has the content of this entry. Size is compared first and then the last
+   * modified time. CRC of the output file is only computed when sizes match but the last modified time does not, for
+   * example when the output file was extracted without applying date time attributes
+   *
+   * @param fileHeader
+   * @param outputFile
+   * @return true if output file does not have to be extracted again
+   * @throws ZipException
+   */
+  private boolean isOutputFileUnchanged(FileHeader fileHeader, File outputFile) throws ZipException {
+    if (!outputFile.isFile()) {
+      return false;
+    }
+
+    if (outputFile.length() != getUncompressedSize(fileHeader)) {
+      return false;
+    }
+
+    if (fileHeader.getLastModifiedTime() == (int) Zip4jUtil.javaToDosTime(outputFile.lastModified())) {
+      return true;
     }
-    return outputPath + System.getProperty("file.separator") + fileName;
+
+    // AES encrypted entries do not store CRC
+    if (fileHeader.getCompressionMethod() == CompressionMethod.AES_INTERNAL_ONLY
+        || fileHeader.getAesExtraDataRecord() != null) {
+      return false;
+    }
+
+    return fileHeader.getCrc32() == CRCUtil.computeFileCRC(outputFile.getAbsolutePath());
+  }
+
+  private long getCompressedSize(FileHeader fileHeader) {
+    if (fileHeader.getZip64ExtendedInfo() != null && fileHeader.getZip64ExtendedInfo().getCompressedSize() > 0) {
+      return fileHeader.getZip64ExtendedInfo().getCompressedSize();
+    }
+
+    return fileHeader.getCompressedSize();
+  }
+
+  private long getUncompressedSize(FileHeader fileHeader) {
+    if (fileHeader.getZip64ExtendedInfo() != null && fileHeader.getZip64ExtendedInfo().getUncompressedSize() > 0) {
+      return fileHeader.getZip64ExtendedInfo().getUncompressedSize();
+    }
+
+    return fileHeader.getUncompressedSize();
   }
 
 }
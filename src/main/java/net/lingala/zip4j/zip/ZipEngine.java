@@ -18,8 +18,12 @@ package net.lingala.zip4j.zip;
 
 import net.lingala.zip4j.exception.ZipException;
 import net.lingala.zip4j.headers.HeaderSignature;
+import net.lingala.zip4j.io.codec.CompressionCodecRegistry;
+import net.lingala.zip4j.io.inputstream.ReadAheadInputStream;
 import net.lingala.zip4j.io.outputstream.SplitOutputStream;
 import net.lingala.zip4j.io.outputstream.ZipOutputStream;
+import net.lingala.zip4j.model.CompressionDecision;
+import net.lingala.zip4j.model.CompressionStatistics;
 import net.lingala.zip4j.model.EndOfCentralDirectoryRecord;
 import net.lingala.zip4j.model.FileHeader;
 import net.lingala.zip4j.model.ZipModel;
@@ -28,20 +32,20 @@ import net.lingala.zip4j.progress.ProgressMonitor;
 import net.lingala.zip4j.util.ArchiveMaintainer;
 import net.lingala.zip4j.util.CRCUtil;
 import net.lingala.zip4j.util.Zip4jUtil;
-import net.lingala.zip4j.util.enums.RandomAccessFileMode;
 
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.RandomAccessFile;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
 
 import static net.lingala.zip4j.util.InternalZipConstants.BUFF_SIZE;
-import static net.lingala.zip4j.util.InternalZipConstants.OFFSET_CENTRAL_DIR;
+import static net.lingala.zip4j.util.InternalZipConstants.PIPELINE_BUFF_COUNT;
+import static net.lingala.zip4j.util.InternalZipConstants.PIPELINE_BUFF_SIZE;
 import static net.lingala.zip4j.util.InternalZipConstants.THREAD_NAME;
 
 public class ZipEngine {
@@ -61,6 +65,8 @@ public class ZipEngine {
     progressMonitor.setCurrentOperation(ProgressMonitor.OPERATION_ADD);
     progressMonitor.setState(ProgressMonitor.STATE_BUSY);
     progressMonitor.setResult(ProgressMonitor.RESULT_WORKING);
+    progressMonitor.clearCompressionDecisions();
+    progressMonitor.clearCompressionStatistics();
 
     if (runInThread) {
       progressMonitor.setTotalWork(calculateTotalWork(filesToAdd, parameters));
@@ -97,14 +103,21 @@ public class ZipEngine {
 
     ZipOutputStream outputStream = null;
     InputStream inputStream = null;
+    CompressibilityEstimator compressibilityEstimator = null;
+    ExecutorService readAheadExecutor = null;
     try {
       checkParameters(parameters);
 
       removeFilesIfExists(filesToAdd, parameters);
 
+      if (progressMonitor.isCancelAllTasks()) {
+        return;
+      }
+
       boolean isZipFileAlreadyExists = Zip4jUtil.checkFileExists(zipModel.getZipFile());
 
-      SplitOutputStream splitOutputStream = new SplitOutputStream(zipModel.getZipFile(), zipModel.getSplitLength());
+      SplitOutputStream splitOutputStream = new SplitOutputStream(zipModel.getZipFile(), zipModel.getSplitLength(),
+          parameters.getOutputBufferSize(), parameters.isPreallocateSplitFiles(), parameters.isCloseSplitFilesAsync());
       outputStream = new ZipOutputStream(splitOutputStream, password, this.zipModel);
 
       if (isZipFileAlreadyExists) {
@@ -115,6 +128,10 @@ public class ZipEngine {
       }
       byte[] readBuff = new byte[BUFF_SIZE];
       int readLen = -1;
+      long remainingBytes = parameters.getCompressionDeadline() > 0 ? getTotalFileLength(filesToAdd) : 0;
+      if (parameters.isPipelinedIo()) {
+        readAheadExecutor = Zip4jUtil.createDaemonThreadPool(1);
+      }
       for (int i = 0; i < filesToAdd.size(); i++) {
 
         if (progressMonitor.isCancelAllTasks()) {
@@ -126,12 +143,23 @@ public class ZipEngine {
         ZipParameters fileParameters = new ZipParameters(parameters);
         fileParameters.setLastModifiedFileTime((int) Zip4jUtil.javaToDosTime((Zip4jUtil.getLastModifiedFileTime(
             filesToAdd.get(i), parameters.getTimeZone()))));
-        fileParameters.setFileNameInZip(Zip4jUtil.getFileNameFromFilePath(filesToAdd.get(i)));
+        fileParameters.setFileNameInZip(Zip4jUtil.getRelativeFileName(filesToAdd.get(i).getAbsolutePath(),
+            parameters.getRootFolderInZip(), parameters.getDefaultFolderPath()));
+
+        if (parameters.getCompressionPolicy() != null && !filesToAdd.get(i).isDirectory()) {
+          parameters.getCompressionPolicy().apply(filesToAdd.get(i), fileParameters);
+        }
 
-        if (parameters.getCompressionMethod() == CompressionMethod.STORE) {
+        if (fileParameters.getCompressionMethod() == CompressionMethod.STORE) {
           fileParameters.setUncompressedSize(Zip4jUtil.getFileLengh(filesToAdd.get(i)));
         }
 
+        if (parameters.getCompressionDeadline() > 0) {
+          fileParameters.setTargetCompressionThroughput(getThroughputForDeadline(remainingBytes,
+              parameters.getCompressionDeadline()));
+          remainingBytes -= Zip4jUtil.getFileLengh(filesToAdd.get(i));
+        }
+
         progressMonitor.setFileName(filesToAdd.get(i).getAbsolutePath());
 
         if (!filesToAdd.get(i).isDirectory()) {
@@ -149,6 +177,19 @@ public class ZipEngine {
 
           if (Zip4jUtil.getFileLengh(filesToAdd.get(i)) == 0) {
             fileParameters.setCompressionMethod(CompressionMethod.STORE);
+          } else if (fileParameters.isAdaptiveCompression()
+              && fileParameters.getCompressionMethod() != CompressionMethod.STORE) {
+            if (compressibilityEstimator == null) {
+              compressibilityEstimator = new CompressibilityEstimator();
+            }
+
+            CompressionDecision compressionDecision = compressibilityEstimator.estimate(filesToAdd.get(i),
+                fileParameters);
+            progressMonitor.addCompressionDecision(compressionDecision);
+            if (compressionDecision.getCompressionMethod() == CompressionMethod.STORE) {
+              fileParameters.setCompressionMethod(CompressionMethod.STORE);
+              fileParameters.setUncompressedSize(Zip4jUtil.getFileLengh(filesToAdd.get(i)));
+            }
           }
         }
 
@@ -159,6 +200,10 @@ public class ZipEngine {
         }
 
         inputStream = new FileInputStream((File) filesToAdd.get(i));
+        if (readAheadExecutor != null && Zip4jUtil.getFileLengh(filesToAdd.get(i)) > PIPELINE_BUFF_SIZE) {
+          inputStream = new ReadAheadInputStream(inputStream, readAheadExecutor, PIPELINE_BUFF_SIZE,
+              PIPELINE_BUFF_COUNT, true);
+        }
 
         while ((readLen = inputStream.read(readBuff)) != -1) {
           if (progressMonitor.isCancelAllTasks()) {
@@ -178,6 +223,10 @@ public class ZipEngine {
         }
       }
 
+      for (CompressionStatistics compressionStatistics : outputStream.getCompressionStatistics()) {
+        progressMonitor.addCompressionStatistics(compressionStatistics);
+      }
+
       progressMonitor.endProgressMonitorSuccess();
     } catch (ZipException e) {
       progressMonitor.endProgressMonitorError(e);
@@ -186,6 +235,10 @@ public class ZipEngine {
       progressMonitor.endProgressMonitorError(e);
       throw new ZipException(e);
     } finally {
+      if (compressibilityEstimator != null) {
+        compressibilityEstimator.end();
+      }
+
       if (inputStream != null) {
         try {
           inputStream.close();
@@ -199,6 +252,10 @@ public class ZipEngine {
         } catch (IOException e) {
         }
       }
+
+      if (readAheadExecutor != null) {
+        readAheadExecutor.shutdown();
+      }
     }
   }
 
@@ -214,7 +271,8 @@ public class ZipEngine {
 
       boolean isZipFileAlreadExists = Zip4jUtil.checkFileExists(zipModel.getZipFile());
 
-      SplitOutputStream splitOutputStream = new SplitOutputStream(zipModel.getZipFile(), zipModel.getSplitLength());
+      SplitOutputStream splitOutputStream = new SplitOutputStream(zipModel.getZipFile(), zipModel.getSplitLength(),
+          parameters.getOutputBufferSize(), parameters.isPreallocateSplitFiles(), parameters.isCloseSplitFilesAsync());
       outputStream = new ZipOutputStream(splitOutputStream, password, this.zipModel);
 
       if (isZipFileAlreadExists) {
@@ -253,6 +311,151 @@ public class ZipEngine {
   }
 
   public void addFolderToZip(File file, ZipParameters parameters, boolean runInThread) throws ZipException {
+    addFiles(getFilesInFolder(file, parameters), parameters, runInThread);
+  }
+
+  /**
+   * Brings the zip file in sync with the input folder. Only files which are new, or whose size or last modified
+   * time (and optionally CRC) differ from the existing entry are compressed and added. Entries for files which no
+   * longer exist in the folder are removed, and all other entries are copied over as is, without recompressing them
+   *
+   * @param file
+   * @param parameters
+   * @param runInThread
+   * @throws ZipException
+   */
+  public void syncFolderToZip(File file, ZipParameters parameters, boolean runInThread) throws ZipException {
+    List<File> filesInFolder = getFilesInFolder(file, parameters);
+    String syncedFolderNameInZip = parameters.isIncludeRootFolder()
+        ? Zip4jUtil.getRelativeFileName(file.getAbsolutePath(), parameters.getRootFolderInZip(),
+        parameters.getDefaultFolderPath()) : parameters.getRootFolderInZip();
+
+    progressMonitor.setCurrentOperation(ProgressMonitor.OPERATION_ADD);
+    progressMonitor.setState(ProgressMonitor.STATE_BUSY);
+    progressMonitor.setResult(ProgressMonitor.RESULT_WORKING);
+
+    if (runInThread) {
+      progressMonitor.setFileName(file.getAbsolutePath());
+
+      Thread thread = new Thread(THREAD_NAME) {
+        public void run() {
+          try {
+            initSyncFolder(filesInFolder, syncedFolderNameInZip, parameters);
+          } catch (ZipException e) {
+          }
+        }
+      };
+      thread.start();
+    } else {
+      initSyncFolder(filesInFolder, syncedFolderNameInZip, parameters);
+    }
+  }
+
+  private void initSyncFolder(List<File> filesInFolder, String syncedFolderNameInZip, ZipParameters parameters)
+      throws ZipException {
+
+    List<File> filesToAdd = new ArrayList<>();
+    List<FileHeader> fileHeadersToRemove = new ArrayList<>();
+
+    try {
+      Map<String, FileHeader> existingFileHeaders = new HashMap<>();
+      if (zipModel.getCentralDirectory() != null && zipModel.getCentralDirectory().getFileHeaders() != null) {
+        for (FileHeader fileHeader : zipModel.getCentralDirectory().getFileHeaders()) {
+          existingFileHeaders.put(fileHeader.getFileName(), fileHeader);
+        }
+      }
+
+      long totalWork = 0;
+      for (File file : filesInFolder) {
+        String fileName = Zip4jUtil.getRelativeFileName(file.getAbsolutePath(), parameters.getRootFolderInZip(),
+            parameters.getDefaultFolderPath());
+        FileHeader fileHeader = existingFileHeaders.remove(fileName);
+
+        if (fileHeader != null && isFileUnchanged(file, fileHeader, parameters)) {
+          continue;
+        }
+
+        if (progressMonitor.isCancelAllTasks()) {
+          progressMonitor.setResult(ProgressMonitor.RESULT_CANCELLED);
+          progressMonitor.setState(ProgressMonitor.STATE_READY);
+          return;
+        }
+
+        if (fileHeader != null) {
+          fileHeadersToRemove.add(fileHeader);
+        }
+        filesToAdd.add(file);
+        totalWork += Math.max(Zip4jUtil.getFileLengh(file), 0);
+      }
+
+      // Whatever is left over within the synced folder does not exist in the source folder any more
+      for (FileHeader fileHeader : existingFileHeaders.values()) {
+        if (!Zip4jUtil.isStringNotNullAndNotEmpty(syncedFolderNameInZip)
+            || fileHeader.getFileName().startsWith(syncedFolderNameInZip)) {
+          fileHeadersToRemove.add(fileHeader);
+        }
+      }
+
+      if (fileHeadersToRemove.size() > 0) {
+        totalWork += Zip4jUtil.getFileLengh(zipModel.getZipFile());
+      }
+      progressMonitor.setTotalWork(totalWork);
+
+      if (fileHeadersToRemove.size() > 0) {
+        progressMonitor.setCurrentOperation(ProgressMonitor.OPERATION_REMOVE);
+        new ArchiveMaintainer().initRemoveZipFiles(zipModel, fileHeadersToRemove, progressMonitor);
+
+        if (progressMonitor.isCancelAllTasks()) {
+          progressMonitor.setResult(ProgressMonitor.RESULT_CANCELLED);
+          progressMonitor.setState(ProgressMonitor.STATE_READY);
+          return;
+        }
+
+        progressMonitor.setCurrentOperation(ProgressMonitor.OPERATION_ADD);
+      }
+    } catch (ZipException e) {
+      progressMonitor.endProgressMonitorError(e);
+      throw e;
+    } catch (Exception e) {
+      progressMonitor.endProgressMonitorError(e);
+      throw new ZipException(e);
+    }
+
+    if (filesToAdd.size() > 0) {
+      initAddFiles(filesToAdd, parameters);
+    } else {
+      progressMonitor.endProgressMonitorSuccess();
+    }
+  }
+
+  private boolean isFileUnchanged(File file, FileHeader fileHeader, ZipParameters parameters) throws ZipException {
+    if (file.isDirectory() || fileHeader.isDirectory()) {
+      return file.isDirectory() && fileHeader.isDirectory();
+    }
+
+    long uncompressedSize = fileHeader.getUncompressedSize();
+    if (fileHeader.getZip64ExtendedInfo() != null && fileHeader.getZip64ExtendedInfo().getUncompressedSize() > 0) {
+      uncompressedSize = fileHeader.getZip64ExtendedInfo().getUncompressedSize();
+    }
+
+    if (uncompressedSize != file.length()) {
+      return false;
+    }
+
+    if (fileHeader.getLastModifiedTime() != (int) Zip4jUtil.javaToDosTime(Zip4jUtil.getLastModifiedFileTime(file,
+        parameters.getTimeZone()))) {
+      return false;
+    }
+
+    // AES encrypted entries do not store CRC, so they can only be compared by size and last modified time
+    if (parameters.isCompareFileCrcOnSync() && fileHeader.getAesExtraDataRecord() == null) {
+      return fileHeader.getCrc32() == CRCUtil.computeFileCRC(file.getAbsolutePath());
+    }
+
+    return true;
+  }
+
+  private List<File> getFilesInFolder(File file, ZipParameters parameters) throws ZipException {
     if (file == null || parameters == null) {
       throw new ZipException("one of the input parameters is null, cannot add folder to zip");
     }
@@ -291,10 +494,9 @@ public class ZipEngine {
       fileList.add(file);
     }
 
-    addFiles(fileList, parameters, runInThread);
+    return fileList;
   }
 
-
   private void checkParameters(ZipParameters parameters) throws ZipException {
 
     if (parameters == null) {
@@ -302,7 +504,8 @@ public class ZipEngine {
     }
 
     if ((parameters.getCompressionMethod() != CompressionMethod.STORE) &&
-        parameters.getCompressionMethod() != CompressionMethod.DEFLATE) {
+        parameters.getCompressionMethod() != CompressionMethod.DEFLATE &&
+        CompressionCodecRegistry.getCodec(parameters.getCompressionMethodId()) == null) {
       throw new ZipException("unsupported compression type");
     }
 
@@ -328,87 +531,34 @@ public class ZipEngine {
       //For a new zip file, this condition satisfies, so do nothing
       return;
     }
-    RandomAccessFile outputStream = null;
 
-    try {
-      for (int i = 0; i < files.size(); i++) {
-        File file = (File) files.get(i);
-
-        String fileName = Zip4jUtil.getRelativeFileName(file.getAbsolutePath(),
-            parameters.getRootFolderInZip(), parameters.getDefaultFolderPath());
+    List<FileHeader> fileHeadersToRemove = new ArrayList<>();
+    for (File file : files) {
+      String fileName = Zip4jUtil.getRelativeFileName(file.getAbsolutePath(),
+          parameters.getRootFolderInZip(), parameters.getDefaultFolderPath());
 
-        FileHeader fileHeader = Zip4jUtil.getFileHeader(zipModel, fileName);
-        if (fileHeader != null) {
+      FileHeader fileHeader = Zip4jUtil.getFileHeader(zipModel, fileName);
+      if (fileHeader != null && !fileHeadersToRemove.contains(fileHeader)) {
+        fileHeadersToRemove.add(fileHeader);
+      }
+    }
 
-          if (outputStream != null) {
-            outputStream.close();
-            outputStream = null;
-          }
+    if (fileHeadersToRemove.isEmpty()) {
+      return;
+    }
 
-          ArchiveMaintainer archiveMaintainer = new ArchiveMaintainer();
-          progressMonitor.setCurrentOperation(ProgressMonitor.OPERATION_REMOVE);
-          HashMap retMap = archiveMaintainer.initRemoveZipFile(zipModel,
-              fileHeader, progressMonitor);
+    // All the entries to be replaced are dropped in a single rewrite of the archive, new entries are then appended
+    // at the offset of the central directory of the rewritten archive
+    progressMonitor.setCurrentOperation(ProgressMonitor.OPERATION_REMOVE);
+    new ArchiveMaintainer().initRemoveZipFiles(zipModel, fileHeadersToRemove, progressMonitor);
 
-          if (progressMonitor.isCancelAllTasks()) {
-            progressMonitor.setResult(ProgressMonitor.RESULT_CANCELLED);
-            progressMonitor.setState(ProgressMonitor.STATE_READY);
-            return;
-          }
-
-          progressMonitor
-              .setCurrentOperation(ProgressMonitor.OPERATION_ADD);
-
-          if (outputStream == null) {
-            outputStream = prepareFileOutputStream();
-
-            if (retMap != null) {
-              if (retMap.get(OFFSET_CENTRAL_DIR) != null) {
-                long offsetCentralDir = -1;
-                try {
-                  offsetCentralDir = Long
-                      .parseLong((String) retMap
-                          .get(OFFSET_CENTRAL_DIR));
-                } catch (NumberFormatException e) {
-                  throw new ZipException(
-                      "NumberFormatException while parsing offset central directory. " +
-                          "Cannot update already existing file header");
-                } catch (Exception e) {
-                  throw new ZipException(
-                      "Error while parsing offset central directory. " +
-                          "Cannot update already existing file header");
-                }
-
-                if (offsetCentralDir >= 0) {
-                  outputStream.seek(offsetCentralDir);
-                }
-              }
-            }
-          }
-        }
-      }
-    } catch (IOException e) {
-      throw new ZipException(e);
-    } finally {
-      if (outputStream != null) {
-        try {
-          outputStream.close();
-        } catch (IOException e) {
-          //ignore
-        }
-      }
+    if (progressMonitor.isCancelAllTasks()) {
+      progressMonitor.setResult(ProgressMonitor.RESULT_CANCELLED);
+      progressMonitor.setState(ProgressMonitor.STATE_READY);
+      return;
     }
-  }
 
-  private RandomAccessFile prepareFileOutputStream() throws ZipException {
-    try {
-      if (!zipModel.getZipFile().getParentFile().exists()) {
-        zipModel.getZipFile().getParentFile().mkdirs();
-      }
-      return new RandomAccessFile(zipModel.getZipFile(), RandomAccessFileMode.WRITE.getValue());
-    } catch (FileNotFoundException e) {
-      throw new ZipException(e);
-    }
+    progressMonitor.setCurrentOperation(ProgressMonitor.OPERATION_ADD);
   }
 
   private EndOfCentralDirectoryRecord createEndOfCentralDirectoryRecord() {
@@ -421,12 +571,37 @@ public class ZipEngine {
     return endOfCentralDirectoryRecord;
   }
 
+  private long getTotalFileLength(List<File> files) throws ZipException {
+    long totalFileLength = 0;
+    for (File file : files) {
+      if (!file.isDirectory()) {
+        totalFileLength += Zip4jUtil.getFileLengh(file);
+      }
+    }
+    return totalFileLength;
+  }
+
+  /**
+   * Returns the throughput needed to compress the remaining bytes until the deadline, or the highest possible
+   * throughput if the deadline has passed
+   */
+  private long getThroughputForDeadline(long remainingBytes, long deadline) {
+    long remainingMillis = deadline - System.currentTimeMillis();
+    if (remainingMillis <= 0) {
+      return Long.MAX_VALUE;
+    }
+
+    return Math.max(1, remainingBytes * 1000 / remainingMillis);
+  }
+
   private long calculateTotalWork(List<File> fileList, ZipParameters parameters) throws ZipException {
     if (fileList == null) {
       throw new ZipException("file list is null, cannot calculate total work");
     }
 
     long totalWork = 0;
+    long compressedSizeOfReplacedFiles = 0;
+    boolean replacesExistingFiles = false;
 
     for (int i = 0; i < fileList.size(); i++) {
       if (fileList.get(i) instanceof File) {
@@ -445,13 +620,19 @@ public class ZipEngine {
                 ((File) fileList.get(i)).getAbsolutePath(), parameters.getRootFolderInZip(), parameters.getDefaultFolderPath());
             FileHeader fileHeader = Zip4jUtil.getFileHeader(zipModel, relativeFileName);
             if (fileHeader != null) {
-              totalWork += (Zip4jUtil.getFileLengh(zipModel.getZipFile()) - fileHeader.getCompressedSize());
+              compressedSizeOfReplacedFiles += fileHeader.getCompressedSize();
+              replacesExistingFiles = true;
             }
           }
         }
       }
     }
 
+    if (replacesExistingFiles) {
+      // replaced files are removed in a single rewrite of the zip file
+      totalWork += (Zip4jUtil.getFileLengh(zipModel.getZipFile()) - compressedSizeOfReplacedFiles);
+    }
+
     return totalWork;
   }
 }
@@ -1,16 +1,62 @@
 package net.lingala.zip4j;
 
 import net.lingala.zip4j.exception.ZipException;
+import net.lingala.zip4j.exception.ZipExceptionType;
+import net.lingala.zip4j.io.channel.ByteBufferSeekableByteChannel;
+import net.lingala.zip4j.io.codec.BZip2Codec;
+import net.lingala.zip4j.io.codec.CompressionCodec;
+import net.lingala.zip4j.io.codec.CompressionCodecRegistry;
+import net.lingala.zip4j.io.inputstream.ZipInputStream;
+import net.lingala.zip4j.io.outputstream.SplitOutputStream;
+import net.lingala.zip4j.io.outputstream.ZipOutputStream;
+import net.lingala.zip4j.model.CompressionDecision;
+import net.lingala.zip4j.model.CompressionStatistics;
+import net.lingala.zip4j.model.DeflateCheckpointIndex;
+import net.lingala.zip4j.model.EntryNameIndex;
+import net.lingala.zip4j.model.FileHeader;
+import net.lingala.zip4j.model.UnzipParameters;
 import net.lingala.zip4j.model.ZipParameters;
+import net.lingala.zip4j.progress.ProgressMonitor;
+import net.lingala.zip4j.util.EntryContentCache;
+import net.lingala.zip4j.util.ZipModelCache;
 import net.lingala.zip4j.utils.AbstractIT;
 import net.lingala.zip4j.zip.AesKeyStrength;
+import net.lingala.zip4j.zip.CompressionLevel;
 import net.lingala.zip4j.zip.CompressionMethod;
+import net.lingala.zip4j.zip.CompressionPolicy;
+import net.lingala.zip4j.zip.CompressionStrategy;
 import net.lingala.zip4j.zip.EncryptionMethod;
 import org.junit.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
 
+import static net.lingala.zip4j.TestUtils.getFileFromResources;
+import static net.lingala.zip4j.utils.ZipVerifier.verifyFileContent;
 import static net.lingala.zip4j.utils.ZipVerifier.verifyZipFile;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assert.fail;
 
 public class ZipFileIT extends AbstractIT {
   
@@ -205,4 +251,937 @@ public class ZipFileIT extends AbstractIT {
     verifyZipFile(generatedZipFile, temporaryFolder, PASSWORD);
   }
 
+  @Test
+  public void testAddFilesReplacesExistingEntriesInSinglePass() throws ZipException, IOException {
+    ZipParameters zipParameters = new ZipParameters();
+    ZipFile zipFile = new ZipFile(generatedZipFile);
+    zipFile.createZipFile(FILES_TO_ADD, zipParameters);
+
+    zipParameters.setCompressionMethod(CompressionMethod.STORE);
+    zipFile = new ZipFile(generatedZipFile);
+    zipFile.addFiles(Arrays.asList(FILES_TO_ADD.get(0), FILES_TO_ADD.get(2)), zipParameters);
+
+    zipFile = new ZipFile(generatedZipFile);
+    assertThat(zipFile.getFileHeaders()).hasSize(3);
+    assertThat(zipFile.getFileHeader(FILES_TO_ADD.get(0).getName()).getCompressionMethod())
+        .isEqualTo(CompressionMethod.STORE);
+    verifyZipFile(generatedZipFile, temporaryFolder);
+  }
+
+  @Test
+  public void testRemoveFile() throws ZipException, IOException {
+    ZipFile zipFile = new ZipFile(generatedZipFile);
+    zipFile.createZipFile(FILES_TO_ADD, new ZipParameters());
+
+    zipFile = new ZipFile(generatedZipFile);
+    zipFile.removeFile(FILES_TO_ADD.get(1).getName());
+
+    zipFile = new ZipFile(generatedZipFile);
+    assertThat(zipFile.getFileHeaders()).hasSize(2);
+    assertThat(zipFile.getFileHeader(FILES_TO_ADD.get(1).getName())).isNull();
+    verifyZipFile(generatedZipFile, temporaryFolder);
+  }
+
+  @Test
+  public void testSyncFolderOnlyRewritesChangedEntries() throws ZipException, IOException {
+    File folderToSync = temporaryFolder.newFolder("sync-source");
+    for (File fileToAdd : FILES_TO_ADD) {
+      Files.copy(fileToAdd.toPath(), new File(folderToSync, fileToAdd.getName()).toPath());
+    }
+
+    ZipFile zipFile = new ZipFile(generatedZipFile);
+    zipFile.syncFolder(folderToSync, new ZipParameters());
+
+    File modifiedFile = new File(folderToSync, "sample_text1.txt");
+    Files.write(modifiedFile.toPath(), "modified content".getBytes(), StandardOpenOption.APPEND);
+    Files.delete(new File(folderToSync, "sample.pdf").toPath());
+    Files.write(new File(folderToSync, "new_file.txt").toPath(), "new file".getBytes());
+
+    ZipParameters zipParameters = new ZipParameters();
+    zipParameters.setCompressionMethod(CompressionMethod.STORE);
+    zipFile = new ZipFile(generatedZipFile);
+    zipFile.syncFolder(folderToSync, zipParameters);
+
+    zipFile = new ZipFile(generatedZipFile);
+    assertThat(zipFile.getFileHeaders()).extracting("fileName").containsExactlyInAnyOrder("sync-source/",
+        "sync-source/sample_text1.txt", "sync-source/sample_text_large.txt", "sync-source/new_file.txt");
+    assertThat(zipFile.getFileHeader("sync-source/sample_text_large.txt").getCompressionMethod())
+        .isEqualTo(CompressionMethod.DEFLATE);
+    assertThat(zipFile.getFileHeader("sync-source/sample_text1.txt").getCompressionMethod())
+        .isEqualTo(CompressionMethod.STORE);
+    assertThat(zipFile.getFileHeader("sync-source/new_file.txt").getCompressionMethod())
+        .isEqualTo(CompressionMethod.STORE);
+
+    File extractedFolder = temporaryFolder.newFolder();
+    zipFile.extractFile("sync-source/sample_text1.txt", extractedFolder.getPath());
+    verifyFileContent(modifiedFile, new File(extractedFolder, "sync-source/sample_text1.txt"));
+  }
+
+  @Test
+  public void testExtractAllSkipsUnchangedFiles() throws ZipException, IOException {
+    File folderToAdd = temporaryFolder.newFolder("source");
+    for (File fileToAdd : FILES_TO_ADD) {
+      Files.copy(fileToAdd.toPath(), new File(folderToAdd, fileToAdd.getName()).toPath());
+    }
+    ZipFile zipFile = new ZipFile(generatedZipFile);
+    zipFile.createZipFileFromFolder(folderToAdd, new ZipParameters(), false, -1);
+
+    File extractedFolder = temporaryFolder.newFolder();
+    zipFile = new ZipFile(generatedZipFile);
+    zipFile.extractAll(extractedFolder.getPath());
+
+    File modifiedFile = new File(extractedFolder, "source/sample_text1.txt");
+    Files.write(modifiedFile.toPath(), "modified".getBytes());
+    File fileWithSameSizeAndTime = new File(extractedFolder, "source/sample.pdf");
+    long lastModifiedTime = fileWithSameSizeAndTime.lastModified();
+    Files.write(fileWithSameSizeAndTime.toPath(), new byte[(int) fileWithSameSizeAndTime.length()]);
+    fileWithSameSizeAndTime.setLastModified(lastModifiedTime);
+
+    UnzipParameters unzipParameters = new UnzipParameters();
+    unzipParameters.setSkipUnchangedFiles(true);
+    zipFile = new ZipFile(generatedZipFile);
+    zipFile.extractAll(extractedFolder.getPath(), unzipParameters);
+
+    verifyFileContent(FILES_TO_ADD.get(0), modifiedFile);
+    verifyFileContent(FILES_TO_ADD.get(1), new File(extractedFolder, "source/sample_text_large.txt"));
+    assertThat(Files.readAllBytes(fileWithSameSizeAndTime.toPath()))
+        .containsOnly(0);
+  }
+
+  @Test
+  public void testExtractAllThrowsExceptionForEntryOutsideOfOutputFolder() throws ZipException, IOException {
+    ZipFile zipFile = new ZipFile(generatedZipFile);
+    zipFile.createZipFile(FILES_TO_ADD.get(0), new ZipParameters());
+
+    ZipParameters zipParameters = new ZipParameters();
+    zipParameters.setFileNameInZip("folder/../../evil.txt");
+    zipFile = new ZipFile(generatedZipFile);
+    zipFile.addStream(new ByteArrayInputStream("evil".getBytes()), zipParameters);
+
+    File extractedFolder = temporaryFolder.newFolder();
+    try {
+      new ZipFile(generatedZipFile).extractAll(extractedFolder.getPath());
+      fail("Should throw an exception");
+    } catch (ZipException e) {
+      assertThat(e.getMessage()).contains("illegal file name that breaks out of the target directory");
+    }
+
+    assertThat(new File(extractedFolder.getParentFile(), "evil.txt")).doesNotExist();
+  }
+
+  @Test
+  public void testExtractAllOfStoredEntryWithCorruptDataThrowsChecksumMismatch() throws ZipException, IOException {
+    ZipParameters zipParameters = new ZipParameters();
+    zipParameters.setCompressionMethod(CompressionMethod.STORE);
+    ZipFile zipFile = new ZipFile(generatedZipFile);
+    zipFile.createZipFile(FILES_TO_ADD, zipParameters);
+
+    byte[] zipFileContent = Files.readAllBytes(generatedZipFile.toPath());
+    int offsetOfStoredData = new String(zipFileContent, "ISO-8859-1").indexOf(
+        new String(Files.readAllBytes(FILES_TO_ADD.get(1).toPath()), "ISO-8859-1").substring(0, 100));
+    assertThat(offsetOfStoredData).isPositive();
+    zipFileContent[offsetOfStoredData + 10]++;
+    Files.write(generatedZipFile.toPath(), zipFileContent);
+
+    try {
+      new ZipFile(generatedZipFile).extractAll(temporaryFolder.newFolder().getPath());
+      fail("Should throw an exception");
+    } catch (ZipException e) {
+      assertThat(e.getExceptionType()).isEqualTo(ZipExceptionType.CHECKSUM_MISMATCH);
+    }
+  }
+
+  @Test
+  public void testExtractFileInThread() throws ZipException, IOException, InterruptedException {
+    byte[] content = new byte[8 * 1024 * 1024];
+    new Random(42).nextBytes(content);
+    File fileToAdd = temporaryFolder.newFile("random.bin");
+    Files.write(fileToAdd.toPath(), content);
+
+    ZipParameters zipParameters = new ZipParameters();
+    zipParameters.setCompressionMethod(CompressionMethod.STORE);
+    ZipFile zipFile = new ZipFile(generatedZipFile);
+    zipFile.createZipFile(fileToAdd, zipParameters);
+
+    File extractedFolder = temporaryFolder.newFolder();
+    zipFile = new ZipFile(generatedZipFile);
+    zipFile.setRunInThread(true);
+    zipFile.extractFile(fileToAdd.getName(), extractedFolder.getPath());
+
+    ProgressMonitor progressMonitor = zipFile.getProgressMonitor();
+    long deadline = System.currentTimeMillis() + 10000;
+    while (progressMonitor.getState() == ProgressMonitor.STATE_BUSY && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+
+    assertThat(progressMonitor.getState()).isEqualTo(ProgressMonitor.STATE_READY);
+    assertThat(progressMonitor.getException()).isNull();
+    assertThat(new File(extractedFolder, fileToAdd.getName())).hasBinaryContent(content);
+  }
+
+  @Test
+  public void testReadZipFileFromChannel() throws ZipException, IOException {
+    ZipParameters zipParameters = new ZipParameters();
+    zipParameters.setEncryptFiles(true);
+    zipParameters.setEncryptionMethod(EncryptionMethod.ZIP_STANDARD);
+    ZipFile zipFile = new ZipFile(generatedZipFile, PASSWORD);
+    zipFile.createZipFile(FILES_TO_ADD, zipParameters);
+
+    ZipFile zipFileFromChannel = new ZipFile(
+        new ByteBufferSeekableByteChannel(Files.readAllBytes(generatedZipFile.toPath())), PASSWORD);
+
+    assertThat(zipFileFromChannel.getFileHeaders()).hasSize(FILES_TO_ADD.size());
+    File extractedFolder = temporaryFolder.newFolder();
+    zipFileFromChannel.extractAll(extractedFolder.getPath());
+    for (File fileToAdd : FILES_TO_ADD) {
+      verifyFileContent(fileToAdd, new File(extractedFolder, fileToAdd.getName()));
+    }
+
+    FileHeader fileHeader = zipFileFromChannel.getFileHeader(FILES_TO_ADD.get(1).getName());
+    File streamedFile = temporaryFolder.newFile();
+    try (ZipInputStream inputStream = zipFileFromChannel.getInputStream(fileHeader)) {
+      inputStream.getNextEntry();
+      Files.copy(inputStream, streamedFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+    verifyFileContent(FILES_TO_ADD.get(1), streamedFile);
+
+    try {
+      zipFileFromChannel.removeFile(fileHeader);
+      fail("Should throw an exception");
+    } catch (ZipException e) {
+      assertThat(e.getMessage()).contains("can only be read");
+    }
+  }
+
+  @Test
+  public void testConcurrentReadsWithSharedFileChannel() throws Exception {
+    ZipFile zipFile = new ZipFile(generatedZipFile);
+    zipFile.createZipFile(FILES_TO_ADD, new ZipParameters());
+
+    final List<byte[]> expectedContents = new ArrayList<>();
+    for (File fileToAdd : FILES_TO_ADD) {
+      expectedContents.add(Files.readAllBytes(fileToAdd.toPath()));
+    }
+
+    try (final ZipFile sharedZipFile = new ZipFile(generatedZipFile)) {
+      sharedZipFile.setConcurrentReadMode(true);
+
+      ExecutorService executorService = Executors.newFixedThreadPool(16);
+      List<Future<?>> futures = new ArrayList<>();
+      for (int i = 0; i < 400; i++) {
+        final int fileIndex = i % FILES_TO_ADD.size();
+        futures.add(executorService.submit(new Callable<Void>() {
+          public Void call() throws Exception {
+            FileHeader fileHeader = sharedZipFile.getFileHeader(FILES_TO_ADD.get(fileIndex).getName());
+            ByteArrayOutputStream content = new ByteArrayOutputStream();
+            try (ZipInputStream inputStream = sharedZipFile.getInputStream(fileHeader)) {
+              inputStream.getNextEntry();
+              byte[] buffer = new byte[4096];
+              int readLen;
+              while ((readLen = inputStream.read(buffer)) != -1) {
+                content.write(buffer, 0, readLen);
+              }
+            }
+            assertThat(content.toByteArray()).isEqualTo(expectedContents.get(fileIndex));
+            return null;
+          }
+        }));
+      }
+
+      for (Future<?> future : futures) {
+        future.get();
+      }
+      executorService.shutdown();
+
+      try {
+        sharedZipFile.removeFile(FILES_TO_ADD.get(0).getName());
+        fail("Should throw an exception");
+      } catch (ZipException e) {
+        assertThat(e.getMessage()).contains("concurrent read mode");
+      }
+    }
+  }
+
+  @Test
+  public void testReadFileContentUsesEntryContentCache() throws ZipException, IOException {
+    ZipFile zipFile = new ZipFile(generatedZipFile);
+    zipFile.createZipFile(FILES_TO_ADD, new ZipParameters());
+
+    EntryContentCache entryContentCache = new EntryContentCache(1024 * 1024, 64 * 1024);
+    zipFile = new ZipFile(generatedZipFile);
+    zipFile.setEntryContentCache(entryContentCache);
+
+    byte[] expectedContent = Files.readAllBytes(FILES_TO_ADD.get(0).toPath());
+    FileHeader fileHeader = zipFile.getFileHeader(FILES_TO_ADD.get(0).getName());
+    assertThat(zipFile.readFileContent(fileHeader)).isEqualTo(expectedContent);
+    assertThat(zipFile.readFileContent(fileHeader)).isEqualTo(expectedContent);
+    assertThat(entryContentCache.getMissCount()).isEqualTo(1);
+    assertThat(entryContentCache.getHitCount()).isEqualTo(1);
+    assertThat(entryContentCache.getCachedBytes()).isEqualTo(expectedContent.length);
+
+    ZipParameters zipParameters = new ZipParameters();
+    zipParameters.setFileNameInZip(FILES_TO_ADD.get(0).getName());
+    zipFile.addStream(new ByteArrayInputStream("modified".getBytes()), zipParameters);
+    generatedZipFile.setLastModified(generatedZipFile.lastModified() + 2000);
+
+    zipFile = new ZipFile(generatedZipFile);
+    zipFile.setEntryContentCache(entryContentCache);
+    fileHeader = zipFile.getFileHeader(FILES_TO_ADD.get(0).getName());
+    assertThat(zipFile.readFileContent(fileHeader)).isEqualTo("modified".getBytes());
+    assertThat(entryContentCache.getMissCount()).isEqualTo(2);
+    assertThat(entryContentCache.getCachedEntryCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void testEntryContentCacheSkipsEncryptedEntriesAndReturnsCopies() throws ZipException, IOException {
+    ZipParameters zipParameters = new ZipParameters();
+    zipParameters.setEncryptFiles(true);
+    zipParameters.setEncryptionMethod(EncryptionMethod.AES);
+    zipParameters.setAesKeyStrength(AesKeyStrength.KEY_STRENGTH_256);
+    ZipFile zipFile = new ZipFile(generatedZipFile, PASSWORD);
+    zipFile.createZipFile(FILES_TO_ADD.get(0), zipParameters);
+    zipParameters = new ZipParameters();
+    zipParameters.setFileNameInZip("plain.txt");
+    zipFile = new ZipFile(generatedZipFile);
+    zipFile.addStream(new ByteArrayInputStream("plain".getBytes()), zipParameters);
+
+    EntryContentCache entryContentCache = new EntryContentCache(1024 * 1024, 64 * 1024);
+    zipFile = new ZipFile(generatedZipFile, PASSWORD);
+    zipFile.setEntryContentCache(entryContentCache);
+    FileHeader encryptedFileHeader = zipFile.getFileHeader(FILES_TO_ADD.get(0).getName());
+    assertThat(encryptedFileHeader.isEncrypted()).isTrue();
+    zipFile.readFileContent(encryptedFileHeader);
+    assertThat(entryContentCache.getCachedEntryCount()).isZero();
+
+    zipFile = new ZipFile(generatedZipFile, "wrong".toCharArray());
+    zipFile.setEntryContentCache(entryContentCache);
+    try {
+      zipFile.readFileContent(zipFile.getFileHeader(FILES_TO_ADD.get(0).getName()));
+      fail("Should throw an exception");
+    } catch (ZipException e) {
+      assertThat(e.getMessage()).contains("Wrong Password");
+    }
+
+    byte[] content = zipFile.readFileContent(zipFile.getFileHeader("plain.txt"));
+    content[0] = 'X';
+    assertThat(zipFile.readFileContent(zipFile.getFileHeader("plain.txt"))).isEqualTo("plain".getBytes());
+    assertThat(entryContentCache.getHitCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void testGetStoredEntryChannelReadsFromArbitraryPosition() throws ZipException, IOException {
+    ZipParameters zipParameters = new ZipParameters();
+    zipParameters.setCompressionMethod(CompressionMethod.STORE);
+    ZipFile zipFile = new ZipFile(generatedZipFile);
+    zipFile.createZipFile(FILES_TO_ADD, zipParameters);
+
+    byte[] expectedContent = Files.readAllBytes(FILES_TO_ADD.get(1).toPath());
+    zipFile = new ZipFile(generatedZipFile);
+    FileHeader fileHeader = zipFile.getFileHeader(FILES_TO_ADD.get(1).getName());
+
+    try (SeekableByteChannel channel = zipFile.getStoredEntryChannel(fileHeader)) {
+      assertThat(channel.size()).isEqualTo(expectedContent.length);
+
+      ByteBuffer buffer = ByteBuffer.allocate(1000);
+      channel.position(expectedContent.length - 500);
+      assertThat(channel.read(buffer)).isEqualTo(500);
+      assertThat(channel.read(buffer)).isEqualTo(-1);
+      assertThat(Arrays.copyOf(buffer.array(), 500))
+          .isEqualTo(Arrays.copyOfRange(expectedContent, expectedContent.length - 500, expectedContent.length));
+
+      buffer.clear();
+      channel.position(1234);
+      assertThat(channel.read(buffer)).isEqualTo(1000);
+      assertThat(buffer.array()).isEqualTo(Arrays.copyOfRange(expectedContent, 1234, 2234));
+    }
+  }
+
+  @Test
+  public void testDeflatedEntryChannelReadsFromArbitraryPositionUsingCheckpointIndex() throws ZipException, IOException {
+    File largeFile = temporaryFolder.newFile("large.txt");
+    byte[] sampleContent = Files.readAllBytes(FILES_TO_ADD.get(1).toPath());
+    Random random = new Random(42);
+    ByteArrayOutputStream largeContent = new ByteArrayOutputStream();
+    for (int i = 0; i < 2000; i++) {
+      int start = random.nextInt(sampleContent.length - 1000);
+      largeContent.write(sampleContent, start, random.nextInt(1000));
+      for (int j = 0; j < 200; j++) {
+        largeContent.write('a' + random.nextInt(26));
+      }
+    }
+    byte[] expectedContent = largeContent.toByteArray();
+    Files.write(largeFile.toPath(), expectedContent);
+
+    ZipFile zipFile = new ZipFile(generatedZipFile);
+    zipFile.createZipFile(largeFile, new ZipParameters());
+    FileHeader fileHeader = zipFile.getFileHeader("large.txt");
+
+    DeflateCheckpointIndex checkpointIndex = zipFile.createCheckpointIndex(fileHeader, 64 * 1024);
+    assertThat(checkpointIndex.getCheckpoints().size()).isGreaterThan(3);
+    ByteArrayOutputStream persistedIndex = new ByteArrayOutputStream();
+    checkpointIndex.write(persistedIndex);
+    checkpointIndex = DeflateCheckpointIndex.read(new ByteArrayInputStream(persistedIndex.toByteArray()));
+
+    try (SeekableByteChannel channel = new ZipFile(generatedZipFile).getDeflatedEntryChannel(fileHeader,
+        checkpointIndex)) {
+      assertThat(channel.size()).isEqualTo(expectedContent.length);
+
+      for (int position : Arrays.asList(expectedContent.length - 3000, 700000, 12, 300000, 0)) {
+        ByteBuffer buffer = ByteBuffer.allocate(3000);
+        channel.position(position);
+        while (buffer.hasRemaining() && channel.read(buffer) != -1);
+        assertThat(buffer.array()).isEqualTo(Arrays.copyOfRange(expectedContent, position, position + 3000));
+      }
+
+      ByteArrayOutputStream completeContent = new ByteArrayOutputStream();
+      ByteBuffer buffer = ByteBuffer.allocate(8192);
+      channel.position(0);
+      while (channel.read(buffer) != -1) {
+        completeContent.write(buffer.array(), 0, buffer.position());
+        buffer.clear();
+      }
+      assertThat(completeContent.toByteArray()).isEqualTo(expectedContent);
+    }
+  }
+
+  @Test
+  public void testMapStoredEntry() throws ZipException, IOException {
+    ZipParameters zipParameters = new ZipParameters();
+    zipParameters.setCompressionMethod(CompressionMethod.STORE);
+    ZipFile zipFile = new ZipFile(generatedZipFile);
+    zipFile.createZipFile(FILES_TO_ADD, zipParameters);
+
+    zipFile = new ZipFile(generatedZipFile);
+    for (File fileToAdd : FILES_TO_ADD) {
+      MappedByteBuffer mappedEntry = zipFile.mapStoredEntry(zipFile.getFileHeader(fileToAdd.getName()));
+
+      assertThat(mappedEntry.isReadOnly()).isTrue();
+      byte[] mappedContent = new byte[mappedEntry.remaining()];
+      mappedEntry.get(mappedContent);
+      assertThat(mappedContent).isEqualTo(Files.readAllBytes(fileToAdd.toPath()));
+    }
+  }
+
+  @Test
+  public void testStoredEntryDataAlignment() throws ZipException, IOException {
+    ZipParameters zipParameters = new ZipParameters();
+    zipParameters.setCompressionMethod(CompressionMethod.STORE);
+    zipParameters.setStoredEntryDataAlignment(4096);
+    ZipFile zipFile = new ZipFile(generatedZipFile);
+    zipFile.createZipFile(FILES_TO_ADD, zipParameters);
+
+    zipFile = new ZipFile(generatedZipFile);
+    for (File fileToAdd : FILES_TO_ADD) {
+      FileHeader fileHeader = zipFile.getFileHeader(fileToAdd.getName());
+      assertThat(zipFile.isEntryDataAligned(fileHeader, 4096)).isTrue();
+
+      MappedByteBuffer mappedEntry = zipFile.mapStoredEntry(fileHeader);
+      byte[] mappedContent = new byte[mappedEntry.remaining()];
+      mappedEntry.get(mappedContent);
+      assertThat(mappedContent).isEqualTo(Files.readAllBytes(fileToAdd.toPath()));
+    }
+
+    verifyZipFile(generatedZipFile, temporaryFolder);
+  }
+
+  @Test
+  public void testArchiveIndexIsUsedForLookupsUntilZipFileIsModified() throws ZipException, IOException {
+    ZipParameters zipParameters = new ZipParameters();
+    zipParameters.setEncryptFiles(true);
+    zipParameters.setEncryptionMethod(EncryptionMethod.AES);
+    ZipFile zipFile = new ZipFile(generatedZipFile, PASSWORD);
+    zipFile.createZipFile(FILES_TO_ADD, zipParameters);
+
+    File indexFile = temporaryFolder.newFile("archive.idx");
+    new ZipFile(generatedZipFile).writeArchiveIndex(indexFile);
+
+    zipFile = new ZipFile(generatedZipFile, PASSWORD);
+    assertThat(zipFile.useArchiveIndex(indexFile)).isTrue();
+    assertThat(zipFile.getArchiveIndex().getNumberOfEntries()).isEqualTo(FILES_TO_ADD.size());
+    assertThat(zipFile.getFileHeader("does-not-exist.txt")).isNull();
+
+    for (File fileToAdd : FILES_TO_ADD) {
+      FileHeader fileHeader = zipFile.getFileHeader(fileToAdd.getName());
+      assertThat(fileHeader.getUncompressedSize()).isEqualTo(fileToAdd.length());
+      assertThat(zipFile.readFileContent(fileHeader)).isEqualTo(Files.readAllBytes(fileToAdd.toPath()));
+    }
+
+    ZipParameters streamParameters = new ZipParameters();
+    streamParameters.setFileNameInZip("added.txt");
+    zipFile.addStream(new ByteArrayInputStream("added".getBytes()), streamParameters);
+
+    zipFile = new ZipFile(generatedZipFile, PASSWORD);
+    assertThat(zipFile.useArchiveIndex(indexFile)).isFalse();
+    assertThat(zipFile.getFileHeader("added.txt")).isNotNull();
+  }
+
+  @Test
+  public void testZipModelCacheIsSharedBetweenInstancesUntilZipFileIsModified() throws ZipException, IOException {
+    ZipFile zipFile = new ZipFile(generatedZipFile);
+    zipFile.createZipFile(FILES_TO_ADD, new ZipParameters());
+
+    ZipModelCache zipModelCache = new ZipModelCache(1024 * 1024);
+    zipFile = new ZipFile(generatedZipFile);
+    zipFile.setZipModelCache(zipModelCache);
+    assertThat(zipFile.getFileHeaders()).hasSize(FILES_TO_ADD.size());
+    assertThat(zipModelCache.getMissCount()).isEqualTo(1);
+
+    zipFile = new ZipFile(generatedZipFile);
+    zipFile.setZipModelCache(zipModelCache);
+    List<FileHeader> fileHeaders = zipFile.getFileHeaders();
+    assertThat(fileHeaders).hasSize(FILES_TO_ADD.size());
+    assertThat(zipModelCache.getHitCount()).isEqualTo(1);
+    fileHeaders.get(0).setFileName("changed-by-caller.txt");
+
+    ZipParameters zipParameters = new ZipParameters();
+    zipParameters.setFileNameInZip("added.txt");
+    zipFile = new ZipFile(generatedZipFile);
+    zipFile.setZipModelCache(zipModelCache);
+    zipFile.addStream(new ByteArrayInputStream("added".getBytes()), zipParameters);
+    assertThat(zipModelCache.getHitCount()).isEqualTo(2);
+
+    zipFile = new ZipFile(generatedZipFile);
+    zipFile.setZipModelCache(zipModelCache);
+    assertThat(zipFile.readFileContent(zipFile.getFileHeader("added.txt"))).isEqualTo("added".getBytes());
+    assertThat(zipFile.getFileHeader(FILES_TO_ADD.get(0).getName())).isNotNull();
+    assertThat(zipModelCache.getCachedZipModelCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void testEntryNameIndexListsAndExtractsFolderContents() throws ZipException, IOException {
+    try (ZipOutputStream zipOutputStream = new ZipOutputStream(new FileOutputStream(generatedZipFile))) {
+      for (String fileName : Arrays.asList("readme.txt", "assets/css/site.css", "assets/img/logo.png",
+          "assets/img/icons/open.png", "assets/img/icons/close.png")) {
+        ZipParameters zipParameters = new ZipParameters();
+        zipParameters.setFileNameInZip(fileName);
+        zipOutputStream.putNextEntry(zipParameters);
+        zipOutputStream.write(fileName.getBytes());
+        zipOutputStream.closeEntry();
+      }
+    }
+
+    EntryNameIndex entryNameIndex = new ZipFile(generatedZipFile).getEntryNameIndex();
+    assertThat(entryNameIndex.listChildren("")).containsExactly("assets/", "readme.txt");
+    assertThat(entryNameIndex.listChildren("assets/img")).containsExactly("assets/img/icons/",
+        "assets/img/logo.png");
+    assertThat(entryNameIndex.listPrefix("assets/img/")).hasSize(3);
+    assertThat(entryNameIndex.glob("assets/**/*.png")).hasSize(3);
+    assertThat(entryNameIndex.glob("*.txt")).hasSize(1);
+    assertThat(entryNameIndex.glob("assets/*/*.png")).hasSize(1);
+
+    File extractedFolder = temporaryFolder.newFolder();
+    new ZipFile(generatedZipFile).extractFiles(entryNameIndex.listPrefix("assets/img/icons/"),
+        extractedFolder.getPath(), null);
+    assertThat(new File(extractedFolder, "assets/img/icons/open.png")).hasContent("assets/img/icons/open.png");
+    assertThat(new File(extractedFolder, "assets/img/icons/close.png")).exists();
+    assertThat(new File(extractedFolder, "assets/img/logo.png")).doesNotExist();
+    assertThat(new File(extractedFolder, "readme.txt")).doesNotExist();
+  }
+
+  @Test
+  public void testBZip2CompressedEntriesCanBeWrittenAndRead() throws ZipException, IOException {
+    ZipParameters zipParameters = new ZipParameters();
+    zipParameters.setCompressionMethod(CompressionMethod.BZIP2);
+    zipParameters.setEncryptFiles(true);
+    zipParameters.setEncryptionMethod(EncryptionMethod.AES);
+    ZipFile zipFile = new ZipFile(generatedZipFile, PASSWORD);
+    zipFile.createZipFile(FILES_TO_ADD, zipParameters);
+    verifyZipFile(generatedZipFile, temporaryFolder, PASSWORD);
+
+    Random random = new Random(42);
+    byte[] periodicContent = new byte[350000];
+    for (int i = 0; i < periodicContent.length; i++) {
+      periodicContent[i] = (byte) "abcabcabd".charAt(i % 9);
+    }
+    byte[] randomContent = new byte[120000];
+    random.nextBytes(randomContent);
+    List<byte[]> contents = Arrays.asList(periodicContent, new byte[0], randomContent, new byte[300]);
+
+    File bzip2ZipFile = temporaryFolder.newFile("bzip2.zip");
+    try (ZipOutputStream zipOutputStream = new ZipOutputStream(new FileOutputStream(bzip2ZipFile))) {
+      for (int i = 0; i < contents.size(); i++) {
+        ZipParameters entryParameters = new ZipParameters();
+        entryParameters.setCompressionMethod(CompressionMethod.BZIP2);
+        entryParameters.setCompressionLevel(CompressionLevel.FASTEST);
+        entryParameters.setFileNameInZip("entry" + i);
+        zipOutputStream.putNextEntry(entryParameters);
+        zipOutputStream.write(contents.get(i));
+        zipOutputStream.closeEntry();
+      }
+    }
+
+    zipFile = new ZipFile(bzip2ZipFile);
+    assertThat(zipFile.getFileHeader("entry0").getCompressedSize()).isLessThan(1000);
+    for (int i = 0; i < contents.size(); i++) {
+      assertThat(zipFile.readFileContent(zipFile.getFileHeader("entry" + i))).isEqualTo(contents.get(i));
+    }
+
+    // Entries are read one after the other, which needs the data read beyond each entry to be pushed back
+    try (ZipInputStream zipInputStream = new ZipInputStream(new FileInputStream(bzip2ZipFile))) {
+      byte[] buff = new byte[4096];
+      for (byte[] expectedContent : contents) {
+        assertThat(zipInputStream.getNextEntry()).isNotNull();
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        int readLen;
+        while ((readLen = zipInputStream.read(buff)) != -1) {
+          content.write(buff, 0, readLen);
+        }
+        assertThat(content.toByteArray()).isEqualTo(expectedContent);
+      }
+    }
+  }
+
+  @Test
+  public void testCodecForMethodIdNotListedInCompressionMethodCanBeUsed() throws ZipException, IOException {
+    // Method id 93 (Zstandard) is not listed in CompressionMethod, the codec reuses bzip2 to produce valid data
+    final CompressionCodec bzip2Codec = new BZip2Codec();
+    CompressionCodecRegistry.register(new CompressionCodec() {
+      @Override
+      public int getMethodId() {
+        return 93;
+      }
+
+      @Override
+      public OutputStream createCompressingStream(OutputStream outputStream, ZipParameters zipParameters)
+          throws IOException {
+        return bzip2Codec.createCompressingStream(outputStream, zipParameters);
+      }
+
+      @Override
+      public InputStream createDecompressingStream(InputStream inputStream) throws IOException {
+        return bzip2Codec.createDecompressingStream(inputStream);
+      }
+    });
+
+    byte[] content = Files.readAllBytes(FILES_TO_ADD.get(0).toPath());
+    try {
+      try (ZipOutputStream zipOutputStream = new ZipOutputStream(new FileOutputStream(generatedZipFile), PASSWORD)) {
+        ZipParameters zipParameters = new ZipParameters();
+        zipParameters.setCompressionMethodId(93);
+        zipParameters.setFileNameInZip("plain.txt");
+        zipOutputStream.putNextEntry(zipParameters);
+        zipOutputStream.write(content);
+        zipOutputStream.closeEntry();
+
+        zipParameters.setFileNameInZip("encrypted.txt");
+        zipParameters.setEncryptFiles(true);
+        zipParameters.setEncryptionMethod(EncryptionMethod.AES);
+        zipOutputStream.putNextEntry(zipParameters);
+        zipOutputStream.write(content);
+        zipOutputStream.closeEntry();
+      }
+
+      ZipFile zipFile = new ZipFile(generatedZipFile, PASSWORD);
+      FileHeader fileHeader = zipFile.getFileHeader("plain.txt");
+      assertThat(fileHeader.getCompressionMethod()).isNull();
+      assertThat(fileHeader.getCompressionMethodId()).isEqualTo(93);
+      assertThat(zipFile.readFileContent(fileHeader)).isEqualTo(content);
+      assertThat(zipFile.readFileContent(zipFile.getFileHeader("encrypted.txt"))).isEqualTo(content);
+    } finally {
+      CompressionCodecRegistry.unregister(93);
+    }
+
+    ZipFile zipFile = new ZipFile(generatedZipFile, PASSWORD);
+    try {
+      zipFile.readFileContent(zipFile.getFileHeader("plain.txt"));
+      fail("Should throw an exception");
+    } catch (ZipException e) {
+      assertThat(e.getMessage()).contains("unsupported compression method");
+    }
+  }
+
+  @Test
+  public void testDeflate64CompressedEntriesCanBeRead() throws ZipException, IOException {
+    // Without a Deflate64 compressor, entries are deflated with matches shorter than 258 bytes and marked as
+    // Deflate64, as such deflate data is decoded the same in both formats
+    Random random = new Random(42);
+    List<byte[]> contents = new ArrayList<>();
+    for (int length : Arrays.asList(150000, 10, 70000)) {
+      byte[] content = new byte[length];
+      for (int i = 0; i < length; i++) {
+        content[i] = (byte) ('a' + random.nextInt(26));
+      }
+      contents.add(content);
+    }
+
+    try (ZipOutputStream zipOutputStream = new ZipOutputStream(new FileOutputStream(generatedZipFile))) {
+      for (int i = 0; i < contents.size(); i++) {
+        ZipParameters zipParameters = new ZipParameters();
+        zipParameters.setFileNameInZip("entry" + i);
+        zipOutputStream.putNextEntry(zipParameters);
+        zipOutputStream.write(contents.get(i));
+        zipOutputStream.closeEntry();
+      }
+    }
+
+    byte[] zipContent = Files.readAllBytes(generatedZipFile.toPath());
+    for (FileHeader fileHeader : new ZipFile(generatedZipFile).getFileHeaders()) {
+      zipContent[(int) fileHeader.getOffsetLocalHeader() + 8] = 9;
+    }
+    for (int i = 0; i < zipContent.length - 4; i++) {
+      if (zipContent[i] == 0x50 && zipContent[i + 1] == 0x4b && zipContent[i + 2] == 0x01
+          && zipContent[i + 3] == 0x02) {
+        zipContent[i + 10] = 9;
+      }
+    }
+    Files.write(generatedZipFile.toPath(), zipContent);
+
+    ZipFile zipFile = new ZipFile(generatedZipFile);
+    assertThat(zipFile.getFileHeader("entry0").getCompressionMethod()).isEqualTo(CompressionMethod.DEFLATE64);
+    for (int i = 0; i < contents.size(); i++) {
+      assertThat(zipFile.readFileContent(zipFile.getFileHeader("entry" + i))).isEqualTo(contents.get(i));
+    }
+
+    try (ZipInputStream zipInputStream = new ZipInputStream(new FileInputStream(generatedZipFile))) {
+      byte[] buff = new byte[4096];
+      for (byte[] expectedContent : contents) {
+        assertThat(zipInputStream.getNextEntry()).isNotNull();
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        int readLen;
+        while ((readLen = zipInputStream.read(buff)) != -1) {
+          content.write(buff, 0, readLen);
+        }
+        assertThat(content.toByteArray()).isEqualTo(expectedContent);
+      }
+    }
+  }
+
+  @Test
+  public void testDeflate64EntryWithLongMatchesAndLargeDistancesCanBeExtracted() throws ZipException, IOException {
+    // The entry uses the Deflate64 length symbol 285 with lengths up to 65538, and distance codes 30 and 31 for
+    // distances over 32KB
+    byte[] sampleText = Arrays.copyOf(Files.readAllBytes(getFileFromResources("sample_text_large.txt").toPath()),
+        60000);
+    ByteArrayOutputStream expectedContent = new ByteArrayOutputStream();
+    expectedContent.write(sampleText);
+    expectedContent.write(sampleText);
+    expectedContent.write(sampleText, 20000, 40000);
+    byte[] run = new byte[70000];
+    Arrays.fill(run, (byte) 'a');
+    expectedContent.write(run);
+
+    ZipFile zipFile = new ZipFile(getFileFromResources("deflate64.zip"));
+    FileHeader fileHeader = zipFile.getFileHeader("deflate64.txt");
+    assertThat(fileHeader.getCompressionMethod()).isEqualTo(CompressionMethod.DEFLATE64);
+
+    File extractedFolder = temporaryFolder.newFolder();
+    zipFile.extractAll(extractedFolder.getPath());
+    assertThat(Files.readAllBytes(new File(extractedFolder, "deflate64.txt").toPath()))
+        .isEqualTo(expectedContent.toByteArray());
+
+    try (ZipInputStream zipInputStream = new ZipInputStream(
+        new FileInputStream(getFileFromResources("deflate64.zip")))) {
+      assertThat(zipInputStream.getNextEntry()).isNotNull();
+      ByteArrayOutputStream content = new ByteArrayOutputStream();
+      int readByte;
+      while ((readByte = zipInputStream.read()) != -1) {
+        content.write(readByte);
+      }
+      assertThat(content.toByteArray()).isEqualTo(expectedContent.toByteArray());
+    }
+  }
+
+  @Test
+  public void testAdaptiveCompressionStoresIncompressibleFiles() throws ZipException, IOException {
+    byte[] randomContent = new byte[100000];
+    new Random(42).nextBytes(randomContent);
+    File randomFile = temporaryFolder.newFile("random.bin");
+    Files.write(randomFile.toPath(), randomContent);
+    File imageFile = temporaryFolder.newFile("image.JPG");
+    Files.write(imageFile.toPath(), "not really an image, but compressible compressible compressible".getBytes());
+
+    List<File> filesToAdd = new ArrayList<>(FILES_TO_ADD);
+    filesToAdd.add(randomFile);
+    filesToAdd.add(imageFile);
+    ZipParameters zipParameters = new ZipParameters();
+    zipParameters.setAdaptiveCompression(true);
+    ZipFile zipFile = new ZipFile(generatedZipFile);
+    zipFile.createZipFile(filesToAdd, zipParameters);
+
+    List<CompressionDecision> compressionDecisions = zipFile.getProgressMonitor().getCompressionDecisions();
+    assertThat(compressionDecisions).hasSize(filesToAdd.size());
+    CompressionDecision randomFileDecision = compressionDecisions.get(filesToAdd.size() - 2);
+    assertThat(randomFileDecision.getFileNameInZip()).isEqualTo("random.bin");
+    assertThat(randomFileDecision.getSampledBytes()).isEqualTo(64 * 1024);
+    assertThat(randomFileDecision.getEstimatedSavings()).isLessThan(0.05);
+    assertThat(compressionDecisions.get(filesToAdd.size() - 1).isDecidedByFileExtension()).isTrue();
+
+    zipFile = new ZipFile(generatedZipFile);
+    assertThat(zipFile.getFileHeader(FILES_TO_ADD.get(0).getName()).getCompressionMethod())
+        .isEqualTo(CompressionMethod.DEFLATE);
+    assertThat(zipFile.getFileHeader("random.bin").getCompressionMethod()).isEqualTo(CompressionMethod.STORE);
+    assertThat(zipFile.getFileHeader("image.JPG").getCompressionMethod()).isEqualTo(CompressionMethod.STORE);
+    assertThat(zipFile.readFileContent(zipFile.getFileHeader("random.bin"))).isEqualTo(randomContent);
+  }
+
+  @Test
+  public void testParallelCompressionCreatesSingleDeflateStream() throws ZipException, IOException {
+    byte[] sampleContent = Files.readAllBytes(FILES_TO_ADD.get(1).toPath());
+    Random random = new Random(42);
+    ByteArrayOutputStream largeContent = new ByteArrayOutputStream();
+    while (largeContent.size() < 1000000) {
+      int start = random.nextInt(sampleContent.length - 1000);
+      largeContent.write(sampleContent, start, random.nextInt(1000));
+      largeContent.write(random.nextInt(256));
+    }
+    File largeFile = temporaryFolder.newFile("large.txt");
+    Files.write(largeFile.toPath(), largeContent.toByteArray());
+
+    ZipParameters zipParameters = new ZipParameters();
+    zipParameters.setParallelCompressionThreads(4);
+    zipParameters.setParallelCompressionBlockSize(32 * 1024);
+    ZipFile zipFile = new ZipFile(generatedZipFile);
+    zipFile.createZipFile(Arrays.asList(largeFile, FILES_TO_ADD.get(0)), zipParameters);
+
+    CRC32 crc32 = new CRC32();
+    crc32.update(largeContent.toByteArray());
+    zipFile = new ZipFile(generatedZipFile);
+    FileHeader fileHeader = zipFile.getFileHeader("large.txt");
+    assertThat(fileHeader.getCrc32()).isEqualTo(crc32.getValue());
+    assertThat(fileHeader.getCompressedSize()).isLessThan(largeContent.size() / 2);
+    assertThat(zipFile.readFileContent(fileHeader)).isEqualTo(largeContent.toByteArray());
+
+    try (java.util.zip.ZipFile jdkZipFile = new java.util.zip.ZipFile(generatedZipFile)) {
+      try (InputStream inputStream = jdkZipFile.getInputStream(jdkZipFile.getEntry("large.txt"))) {
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        byte[] buff = new byte[4096];
+        int readLen;
+        while ((readLen = inputStream.read(buff)) != -1) {
+          content.write(buff, 0, readLen);
+        }
+        assertThat(content.toByteArray()).isEqualTo(largeContent.toByteArray());
+      }
+    }
+  }
+
+  @Test
+  public void testTargetCompressionThroughputAdjustsCompressionLevel() throws ZipException, IOException {
+    byte[] sampleContent = Files.readAllBytes(FILES_TO_ADD.get(1).toPath());
+    ByteArrayOutputStream largeContent = new ByteArrayOutputStream();
+    while (largeContent.size() < 5 * 1024 * 1024) {
+      largeContent.write(sampleContent);
+    }
+    File largeFile = temporaryFolder.newFile("large.txt");
+    Files.write(largeFile.toPath(), Arrays.copyOf(largeContent.toByteArray(), 5 * 1024 * 1024));
+
+    // An unreachable target lowers the level for every MB, down to the fastest level
+    ZipParameters zipParameters = new ZipParameters();
+    zipParameters.setTargetCompressionThroughput(Long.MAX_VALUE / 2);
+    ZipFile zipFile = new ZipFile(generatedZipFile);
+    zipFile.createZipFile(Arrays.asList(largeFile, FILES_TO_ADD.get(0)), zipParameters);
+
+    List<CompressionStatistics> compressionStatistics = zipFile.getProgressMonitor().getCompressionStatistics();
+    assertThat(compressionStatistics).hasSize(2);
+    CompressionStatistics largeFileStatistics = compressionStatistics.get(0);
+    assertThat(largeFileStatistics.getFileNameInZip()).isEqualTo("large.txt");
+    assertThat(largeFileStatistics.getUncompressedSize()).isEqualTo(5 * 1024 * 1024);
+    assertThat(largeFileStatistics.getFinalLevel()).isEqualTo(CompressionLevel.FASTEST.getLevel());
+    assertThat(largeFileStatistics.getBytesCompressedAtLevel(CompressionLevel.NORMAL.getLevel()))
+        .isEqualTo(1024 * 1024);
+    assertThat(largeFileStatistics.getRatio()).isLessThan(0.5);
+    assertThat(zipFile.readFileContent(zipFile.getFileHeader("large.txt"))).isEqualTo(Files.readAllBytes(
+        largeFile.toPath()));
+
+    // A target which is easily reached raises the level
+    zipParameters.setTargetCompressionThroughput(1);
+    zipFile = new ZipFile(new File(temporaryFolder.getRoot(), "slow.zip"));
+    zipFile.createZipFile(largeFile, zipParameters);
+    assertThat(zipFile.getProgressMonitor().getCompressionStatistics().get(0).getFinalLevel()).isEqualTo(9);
+  }
+
+  @Test
+  public void testCompressionPolicyChoosesCompressionPerFile() throws ZipException, IOException {
+    ZipParameters zipParameters = new ZipParameters();
+    zipParameters.setCompressionPolicy(new CompressionPolicy() {
+      @Override
+      public void apply(File sourceFile, ZipParameters entryParameters) {
+        if (sourceFile.getName().endsWith(".pdf")) {
+          entryParameters.setCompressionMethod(CompressionMethod.STORE);
+        } else if (sourceFile.length() > 10000) {
+          entryParameters.setCompressionLevel(CompressionLevel.FASTEST);
+          entryParameters.setCompressionStrategy(CompressionStrategy.HUFFMAN_ONLY);
+        }
+      }
+    });
+    ZipFile zipFile = new ZipFile(generatedZipFile);
+    zipFile.createZipFile(FILES_TO_ADD, zipParameters);
+
+    File defaultZipFile = new File(temporaryFolder.getRoot(), "default.zip");
+    new ZipFile(defaultZipFile).createZipFile(FILES_TO_ADD, new ZipParameters());
+
+    zipFile = new ZipFile(generatedZipFile);
+    FileHeader largeFileHeader = zipFile.getFileHeader(FILES_TO_ADD.get(1).getName());
+    assertThat(zipFile.getFileHeader(FILES_TO_ADD.get(0).getName()).getCompressionMethod())
+        .isEqualTo(CompressionMethod.DEFLATE);
+    assertThat(largeFileHeader.getCompressionMethod()).isEqualTo(CompressionMethod.DEFLATE);
+    assertThat(zipFile.getFileHeader(FILES_TO_ADD.get(2).getName()).getCompressionMethod())
+        .isEqualTo(CompressionMethod.STORE);
+
+    // Huffman coding without string matching compresses the text worse than the default strategy
+    assertThat(largeFileHeader.getCompressedSize()).isGreaterThan(
+        new ZipFile(defaultZipFile).getFileHeader(FILES_TO_ADD.get(1).getName()).getCompressedSize());
+    verifyZipFile(generatedZipFile, temporaryFolder);
+  }
+
+  @Test
+  public void testPipelinedIoAddsAndExtractsFiles() throws ZipException, IOException {
+    byte[] randomContent = new byte[1024 * 1024 + 123];
+    new Random(42).nextBytes(randomContent);
+    File randomFile = temporaryFolder.newFile("random.bin");
+    Files.write(randomFile.toPath(), randomContent);
+    List<File> filesToAdd = new ArrayList<>(FILES_TO_ADD);
+    filesToAdd.add(randomFile);
+
+    ZipParameters zipParameters = new ZipParameters();
+    zipParameters.setPipelinedIo(true);
+    ZipFile zipFile = new ZipFile(generatedZipFile);
+    zipFile.createZipFile(filesToAdd, zipParameters);
+
+    File extractedFolder = temporaryFolder.newFolder();
+    UnzipParameters unzipParameters = new UnzipParameters();
+    unzipParameters.setPipelinedIo(true);
+    zipFile = new ZipFile(generatedZipFile);
+    zipFile.extractAll(extractedFolder.getPath(), unzipParameters);
+
+    for (File fileToAdd : filesToAdd) {
+      verifyFileContent(fileToAdd, new File(extractedFolder, fileToAdd.getName()));
+    }
+  }
+
+  @Test
+  public void testMergeSplitFilesInParallelMatchesSequentialMerge() throws ZipException, IOException {
+    Random random = new Random(42);
+    byte[][] contents = new byte[40][];
+    ZipParameters zipParameters = new ZipParameters();
+
+    try (ZipOutputStream zos = new ZipOutputStream(new SplitOutputStream(generatedZipFile, 65536))) {
+      for (int i = 0; i < contents.length; i++) {
+        contents[i] = new byte[20000 + random.nextInt(40000)];
+        random.nextBytes(contents[i]);
+
+        zipParameters.setFileNameInZip("file" + i + ".bin");
+        zos.putNextEntry(zipParameters);
+        zos.write(contents[i]);
+        zos.closeEntry();
+      }
+    }
+
+    File sequentiallyMergedZipFile = new File(temporaryFolder.getRoot(), "sequential.zip");
+    File parallelMergedZipFile = new File(temporaryFolder.getRoot(), "parallel.zip");
+    ZipFile zipFile = new ZipFile(generatedZipFile);
+    assertThat(zipFile.isSplitArchive()).isTrue();
+    zipFile.mergeSplitFiles(sequentiallyMergedZipFile);
+    new ZipFile(generatedZipFile).mergeSplitFiles(parallelMergedZipFile, 4);
+
+    assertThat(Files.readAllBytes(parallelMergedZipFile.toPath()))
+        .isEqualTo(Files.readAllBytes(sequentiallyMergedZipFile.toPath()));
+
+    zipFile = new ZipFile(parallelMergedZipFile);
+    assertThat(zipFile.isSplitArchive()).isFalse();
+    File extractedFolder = temporaryFolder.newFolder();
+    zipFile.extractAll(extractedFolder.getPath());
+    for (int i = 0; i < contents.length; i++) {
+      assertThat(Files.readAllBytes(new File(extractedFolder, "file" + i + ".bin").toPath())).isEqualTo(contents[i]);
+    }
+  }
 }
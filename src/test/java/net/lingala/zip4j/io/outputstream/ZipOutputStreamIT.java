@@ -1,5 +1,6 @@
 package net.lingala.zip4j.io.outputstream;
 
+import net.lingala.zip4j.ZipFile;
 import net.lingala.zip4j.exception.ZipException;
 import net.lingala.zip4j.model.ZipParameters;
 import net.lingala.zip4j.utils.AbstractIT;
@@ -13,8 +14,12 @@ import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.Random;
 
 import static net.lingala.zip4j.utils.ZipVerifier.verifyZipFile;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assert.fail;
 
 public class ZipOutputStreamIT extends AbstractIT {
 
@@ -58,6 +63,95 @@ public class ZipOutputStreamIT extends AbstractIT {
     testZipOutputStream(CompressionMethod.DEFLATE, true, EncryptionMethod.AES, AesKeyStrength.KEY_STRENGTH_256);
   }
 
+  @Test
+  public void testSplitOutputStreamWithManySmallEntriesAndBufferLargerThanSplitLength()
+      throws IOException, ZipException {
+    Random random = new Random(42);
+    byte[][] contents = new byte[300][];
+    ZipParameters zipParameters = new ZipParameters();
+
+    try (ZipOutputStream zos = new ZipOutputStream(new SplitOutputStream(generatedZipFile, 65536, 256 * 1024))) {
+      for (int i = 0; i < contents.length; i++) {
+        contents[i] = new byte[100 + random.nextInt(800)];
+        random.nextBytes(contents[i]);
+
+        zipParameters.setFileNameInZip("file" + i + ".bin");
+        zos.putNextEntry(zipParameters);
+        zos.write(contents[i]);
+        zos.closeEntry();
+      }
+    }
+
+    int numberOfSplitFiles = 0;
+    for (File file : temporaryFolder.getRoot().listFiles()) {
+      if (file.getName().matches("output\\.z\\d\\d")) {
+        assertThat(file.length()).isLessThanOrEqualTo(65536);
+        numberOfSplitFiles++;
+      }
+    }
+    assertThat(numberOfSplitFiles).isGreaterThan(1);
+
+    File extractedFolder = temporaryFolder.newFolder();
+    new ZipFile(generatedZipFile).extractAll(extractedFolder.getPath());
+    for (int i = 0; i < contents.length; i++) {
+      assertThat(Files.readAllBytes(new File(extractedFolder, "file" + i + ".bin").toPath())).isEqualTo(contents[i]);
+    }
+  }
+
+  @Test
+  public void testSplitOutputStreamWithPreallocatedSplitFilesClosedAsyncReplacesStaleSplitFiles()
+      throws IOException, ZipException {
+    File staleSplitFile = new File(temporaryFolder.getRoot(), "output.z02");
+    Files.write(staleSplitFile.toPath(), new byte[200000]);
+    Random random = new Random(42);
+    byte[][] contents = new byte[600][];
+    ZipParameters zipParameters = new ZipParameters();
+
+    try (ZipOutputStream zos = new ZipOutputStream(new SplitOutputStream(generatedZipFile, 65536, 16 * 1024, true,
+        true))) {
+      for (int i = 0; i < contents.length; i++) {
+        contents[i] = new byte[1000 + random.nextInt(1000)];
+        random.nextBytes(contents[i]);
+
+        zipParameters.setFileNameInZip("file" + i + ".bin");
+        zos.putNextEntry(zipParameters);
+        zos.write(contents[i]);
+        zos.closeEntry();
+      }
+    }
+
+    int numberOfSplitFiles = 0;
+    for (File file : temporaryFolder.getRoot().listFiles()) {
+      if (file.getName().matches("output\\.z\\d\\d")) {
+        assertThat(file.length()).isLessThanOrEqualTo(65536);
+        numberOfSplitFiles++;
+      }
+    }
+    assertThat(numberOfSplitFiles).isGreaterThan(9);
+    assertThat(new File(temporaryFolder.getRoot(), "output.z10")).exists();
+
+    File extractedFolder = temporaryFolder.newFolder();
+    new ZipFile(generatedZipFile).extractAll(extractedFolder.getPath());
+    for (int i = 0; i < contents.length; i++) {
+      assertThat(Files.readAllBytes(new File(extractedFolder, "file" + i + ".bin").toPath())).isEqualTo(contents[i]);
+    }
+  }
+
+  @Test
+  public void testParallelCompressionWithTargetCompressionThroughputIsRejected() throws IOException {
+    ZipParameters zipParameters = new ZipParameters();
+    zipParameters.setFileNameInZip("file.txt");
+    zipParameters.setParallelCompressionThreads(4);
+    zipParameters.setTargetCompressionThroughput(1024 * 1024);
+
+    try (ZipOutputStream zos = new ZipOutputStream(new FileOutputStream(generatedZipFile))) {
+      zos.putNextEntry(zipParameters);
+      fail("Should throw an exception");
+    } catch (IllegalArgumentException e) {
+      assertThat(e.getMessage()).contains("parallel compression cannot be combined");
+    }
+  }
+
   private void testZipOutputStream(CompressionMethod compressionMethod, boolean encrypt,
                                    EncryptionMethod encryptionMethod, AesKeyStrength aesKeyStrength)
       throws IOException, ZipException {